@@ -44,6 +44,8 @@ public class GhastToolsPlugin extends JavaPlugin {
     // Proper async operation management
     private ExecutorService asyncExecutor;
     private ExecutorService databaseExecutor;
+    // Long admin data operations (cleanup, export, import, migration); they wait on database work
+    private ExecutorService adminExecutor;
 
     // Core managers (volatile for thread safety)
     private volatile ConfigManager configManager;
@@ -79,7 +81,7 @@ public class GhastToolsPlugin extends JavaPlugin {
 
     // Configuration constants to avoid magic numbers
     private static final int ASYNC_THREAD_POOL_SIZE = 4;
-    private static final int DATABASE_THREAD_POOL_SIZE = 2;
+    private static final int DATABASE_THREAD_POOL_SIZE = 4;
     private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
     private static final long CLEANUP_INTERVAL_TICKS = 20 * 60; // 1 minute
 
@@ -133,6 +135,15 @@ public class GhastToolsPlugin extends JavaPlugin {
             // Cleanup listeners
             cleanupListeners();
 
+            // Finish queued explosions before milestones and player data are saved
+            if (blockBreaker != null) {
+                try {
+                    blockBreaker.shutdown();
+                } catch (Exception e) {
+                    getLogger().log(Level.WARNING, "Error during block breaker shutdown", e);
+                }
+            }
+
             // ADDED: Shutdown milestone system
             if (milestoneManager != null) {
                 try {
@@ -241,6 +252,12 @@ public class GhastToolsPlugin extends JavaPlugin {
             t.setDaemon(true);
             return t;
         });
+
+        adminExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "GhastTools-Admin");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     /**
@@ -277,26 +294,20 @@ public class GhastToolsPlugin extends JavaPlugin {
      * Proper thread pool shutdown
      */
     private void shutdownThreadPools() {
-        if (asyncExecutor != null && !asyncExecutor.isShutdown()) {
-            asyncExecutor.shutdown();
-            try {
-                if (!asyncExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    asyncExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                asyncExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+        shutdownThreadPool(adminExecutor);
+        shutdownThreadPool(asyncExecutor);
+        shutdownThreadPool(databaseExecutor);
+    }
 
-        if (databaseExecutor != null && !databaseExecutor.isShutdown()) {
-            databaseExecutor.shutdown();
+    private void shutdownThreadPool(ExecutorService executor) {
+        if (executor != null && !executor.isShutdown()) {
+            executor.shutdown();
             try {
-                if (!databaseExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    databaseExecutor.shutdownNow();
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
                 }
             } catch (InterruptedException e) {
-                databaseExecutor.shutdownNow();
+                executor.shutdownNow();
                 Thread.currentThread().interrupt();
             }
         }
@@ -333,7 +344,7 @@ public class GhastToolsPlugin extends JavaPlugin {
     private void cleanupOfflinePlayerData() {
         // This will be called by the cleanup task to remove offline player data from memory
         if (dataManager != null) {
-            // Cleanup will be handled by individual managers
+            dataManager.evictOfflineSessions();
         }
     }
 
@@ -371,6 +382,12 @@ public class GhastToolsPlugin extends JavaPlugin {
                 getLogger().info("Milestone configurations reloaded");
             }
 
+            // Recompile the per-material block rules from the reloaded configurations
+            if (blockBreaker != null) {
+                blockBreaker.reloadRules();
+                getLogger().info("Block rules recompiled");
+            }
+
             // Reinitialize managers with error handling
             try {
                 if (toolManager != null) {
@@ -678,6 +695,8 @@ public class GhastToolsPlugin extends JavaPlugin {
         if (getServer().getPluginManager().getPlugin("WorldGuard") != null && worldGuardHook != null) {
             try {
                 worldGuardHook.initialize();
+                // Regions or world lists may have changed
+                worldGuardHook.clearCache();
             } catch (Exception e) {
                 getLogger().log(Level.WARNING, "Failed to reinitialize WorldGuard hook", e);
             }
@@ -997,4 +1016,11 @@ public class GhastToolsPlugin extends JavaPlugin {
     public ExecutorService getDatabaseExecutor() {
         return databaseExecutor;
     }
+
+    /**
+     * Executor for admin data operations that wait on work queued on the database executor
+     */
+    public ExecutorService getAdminExecutor() {
+        return adminExecutor;
+    }
 }
\ No newline at end of file
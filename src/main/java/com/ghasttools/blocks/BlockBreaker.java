@@ -2,9 +2,10 @@ package com.ghasttools.blocks;
 
 import com.ghasttools.GhastToolsPlugin;
 import com.ghasttools.data.PlayerData;
-import org.bukkit.Bukkit;
+import com.ghasttools.hooks.WorldGuardHook;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -23,6 +24,11 @@ import java.util.logging.Level;
 public class BlockBreaker {
 
     private final GhastToolsPlugin plugin;
+    private final SphereScanner sphereScanner;
+    private final ExplosionScheduler explosionScheduler;
+    private final RewardAccumulator rewardAccumulator;
+    // Compiled on first use, after the regeneration and milestone managers are up, and swapped on reload
+    private volatile MaterialRules materialRules;
 
     // Configuration constants to avoid magic numbers
     private static final int DEFAULT_MAX_BLOCKS = 500;
@@ -31,44 +37,50 @@ public class BlockBreaker {
 
     public BlockBreaker(GhastToolsPlugin plugin) {
         this.plugin = plugin;
+        this.sphereScanner = new SphereScanner(plugin);
+        this.explosionScheduler = new ExplosionScheduler(plugin);
+        this.rewardAccumulator = new RewardAccumulator(plugin);
     }
 
     /**
      * FIXED: Block breaking with comprehensive validation and proper milestone tracking
      */
     public CompletableFuture<Void> breakBlocksInRadius(Player player, Location center, int radius, String enchantmentType) {
-        return CompletableFuture.runAsync(() -> {
+        return CompletableFuture.supplyAsync(() -> {
             // Check if plugin is shutting down
             if (plugin.isShuttingDown()) {
-                return;
+                return CompletableFuture.<Void>completedFuture(null);
             }
 
             // Validate input parameters
             if (player == null || center == null || center.getWorld() == null || radius <= 0) {
                 plugin.getLogger().warning("Invalid parameters for block breaking");
-                return;
+                return CompletableFuture.<Void>completedFuture(null);
             }
 
+            // Fetch the regions around the explosion once for every WorldGuard check below
+            final WorldGuardHook.AreaCheck area = getAreaCheck(player, center, radius);
+
             // FIXED: Comprehensive validation before processing
-            if (!validateAllBlockBreakingConditions(player, center, radius)) {
-                return;
+            if (!validateAllBlockBreakingConditions(player, center, radius, area)) {
+                return CompletableFuture.<Void>completedFuture(null);
             }
 
-            // FIXED: Use PERFECT SPHERE calculation for all explosion enchantments
-            Set<Block> blocksToBreak = getBlocksInPerfectSphere(center, radius);
-
-            // Apply max block limit
-            int maxBlocks = getMaxBlocks();
-            if (blocksToBreak.size() > maxBlocks) {
-                blocksToBreak = limitBlocks(blocksToBreak, maxBlocks);
+            // Scan the sphere on chunk snapshots instead of live world data
+            SphereScanner.Result scan;
+            try {
+                scan = sphereScanner.scan(center, radius);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to scan blocks around " + center, e);
+                return CompletableFuture.<Void>completedFuture(null);
             }
 
             // FIXED: Filter blocks with comprehensive validation
-            final Set<Block> finalBlocksToBreak = filterBlocksWithComprehensiveValidation(blocksToBreak, player);
+            final List<Block> validBlocks = filterBlocksWithComprehensiveValidation(scan, player, area);
 
-            if (finalBlocksToBreak.isEmpty()) {
+            if (validBlocks.isEmpty()) {
                 plugin.getLogger().fine("No valid blocks to break for " + player.getName());
-                return;
+                return CompletableFuture.<Void>completedFuture(null);
             }
 
             // Check if this is an explosion enchantment
@@ -84,144 +96,235 @@ public class BlockBreaker {
                 playerData = plugin.getDataManager().loadPlayerData(player.getUniqueId()).join();
             } catch (Exception e) {
                 plugin.getLogger().log(Level.WARNING, "Failed to load player data for " + player.getName(), e);
-                return;
+                return CompletableFuture.<Void>completedFuture(null);
             }
 
-            // Variables for tracking rewards and milestones
-            final double[] totalXp = {0};
-            final double[] totalEssence = {0};
-            final int[] blocksDestroyed = {0};
-            final Map<Material, Integer> brokenBlocks = new HashMap<>();
-            final Map<Material, Long> milestoneBlocks = new HashMap<>(); // ADDED: Track milestone blocks
-
             // Get tool enchantments to check for boost enchantments
             ItemStack tool = getCurrentHeldTool(player);
             Map<String, Integer> enchantments = tool != null ?
                     plugin.getToolManager().getToolEnchantments(tool) : new HashMap<>();
 
-            // Break blocks on main thread with proper error handling
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                try {
-                    // FIXED: Store original blocks with their Y-coordinates for proper regeneration
-                    Map<String, BlockData> originalBlocks = new HashMap<>();
-
-                    for (Block block : finalBlocksToBreak) {
-                        if (plugin.isShuttingDown()) break;
-
-                        // FIXED: Validate each block individually with level and region checks
-                        if (canBreakBlockWithAllValidation(player, block)) {
-                            Material originalType = block.getType();
-
-                            // FIXED: Store block data with full coordinates (including Y level)
-                            String blockKey = block.getX() + "," + block.getY() + "," + block.getZ();
-                            originalBlocks.put(blockKey, new BlockData(block.getLocation().clone(), originalType, block.getBlockData().clone()));
-
-                            // Calculate rewards BEFORE breaking the block
-                            double xp = getXpReward(originalType);
-                            double essence = getEssenceReward(originalType);
-
-                            // Apply boost multipliers if tool has boost enchantments
-                            int xpBoostLevel = enchantments.getOrDefault("xpboost", 0);
-                            if (xpBoostLevel > 0 && xp > 0) {
-                                var xpConfig = plugin.getEnchantmentManager().getEnchantmentConfig("xpboost");
-                                if (xpConfig != null && xpConfig.getMultiplier() != null && xpConfig.getMultiplier().size() >= xpBoostLevel) {
-                                    double multiplier = xpConfig.getMultiplier().get(xpBoostLevel - 1);
-                                    xp *= multiplier;
-                                }
-                            }
+            // Blocks nearest to the player break first, the rest ripples out over the next ticks.
+            // The max block limit is applied after sorting so it trims the far side of the sphere evenly.
+            Location origin = player.getLocation();
+            validBlocks.sort(Comparator.comparingDouble(block -> distanceSquared(block, origin)));
+            int maxBlocks = getMaxBlocks();
+            List<Block> orderedBlocks = validBlocks.size() > maxBlocks
+                    ? new ArrayList<>(validBlocks.subList(0, Math.max(0, maxBlocks)))
+                    : validBlocks;
 
-                            int essenceBoostLevel = enchantments.getOrDefault("essenceboost", 0);
-                            if (essenceBoostLevel > 0 && essence > 0) {
-                                var essenceConfig = plugin.getEnchantmentManager().getEnchantmentConfig("essenceboost");
-                                if (essenceConfig != null && essenceConfig.getMultiplier() != null && essenceConfig.getMultiplier().size() >= essenceBoostLevel) {
-                                    double multiplier = essenceConfig.getMultiplier().get(essenceBoostLevel - 1);
-                                    essence *= multiplier;
-                                }
-                            }
+            return explosionScheduler.submit(new ExplosionApplication(player, playerData, enchantmentType,
+                    isExplosionEnchantment, enchantments, orderedBlocks, area));
 
-                            // Track broken blocks for explosion rewards BEFORE breaking
-                            brokenBlocks.merge(originalType, 1, Integer::sum);
+        }, plugin.getAsyncExecutor()).thenCompose(applied -> applied);
+    }
 
-                            // FIXED: Track milestone blocks if material is tracked AND player can break it
-                            if (plugin.getMilestoneManager() != null &&
-                                    plugin.getMilestoneManager().isTrackedMaterial(originalType)) {
-                                milestoneBlocks.merge(originalType, 1L, Long::sum);
-                            }
+    private static double distanceSquared(Block block, Location origin) {
+        double dx = block.getX() + 0.5 - origin.getX();
+        double dy = block.getY() + 0.5 - origin.getY();
+        double dz = block.getZ() + 0.5 - origin.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Stop applying queued explosions; rewards and milestones of blocks already broken are still granted
+     */
+    public void shutdown() {
+        explosionScheduler.shutdown();
+        rewardAccumulator.shutdown();
+    }
 
-                            // FIXED: Check if block should regenerate
-                            boolean willRegenerate = plugin.getBlockRegenerationManager() != null &&
-                                    plugin.getBlockRegenerationManager().isRegenerationBlock(originalType);
+    public ExplosionScheduler getExplosionScheduler() {
+        return explosionScheduler;
+    }
 
-                            if (willRegenerate) {
-                                // Let regeneration manager handle the block breaking and regeneration
-                                plugin.getBlockRegenerationManager().handleBlockBreak(block, enchantmentType);
-                            } else {
-                                // Normal block breaking without regeneration
-                                breakBlockSafely(block);
-                            }
+    public RewardAccumulator getRewardAccumulator() {
+        return rewardAccumulator;
+    }
 
-                            // Update totals
-                            totalXp[0] += xp;
-                            totalEssence[0] += essence;
-                            blocksDestroyed[0]++;
-                        }
+    /**
+     * @return Per-material rules of the current configuration
+     */
+    public MaterialRules getMaterialRules() {
+        MaterialRules rules = materialRules;
+        if (rules == null) {
+            synchronized (this) {
+                rules = materialRules;
+                if (rules == null) {
+                    rules = MaterialRules.compile(plugin);
+                    materialRules = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Recompile the per-material rules after a configuration reload; explosions in progress keep the old table
+     */
+    public void reloadRules() {
+        materialRules = MaterialRules.compile(plugin);
+    }
+
+    /**
+     * One explosion applied block by block on the main thread by the {@link ExplosionScheduler}
+     */
+    private class ExplosionApplication implements ExplosionScheduler.Job {
+        private final Player player;
+        private final PlayerData playerData;
+        private final String enchantmentType;
+        private final boolean isExplosionEnchantment;
+        private final Map<String, Integer> enchantments;
+        private final List<Block> blocks;
+        private final WorldGuardHook.AreaCheck area;
+        private int nextBlock;
+        // Packed positions of the blocks broken without regeneration, for the physics pass afterwards
+        private final Set<Long> brokenPositions = new HashSet<>();
+
+        // Variables for tracking rewards and milestones
+        private double totalXp;
+        private double totalEssence;
+        private int blocksDestroyed;
+        private final Map<Material, Integer> brokenBlocks = new HashMap<>();
+        private final Map<Material, Long> milestoneBlocks = new HashMap<>(); // ADDED: Track milestone blocks
+
+        private ExplosionApplication(Player player, PlayerData playerData, String enchantmentType,
+                                     boolean isExplosionEnchantment, Map<String, Integer> enchantments, List<Block> blocks,
+                                     WorldGuardHook.AreaCheck area) {
+            this.player = player;
+            this.playerData = playerData;
+            this.enchantmentType = enchantmentType;
+            this.isExplosionEnchantment = isExplosionEnchantment;
+            this.enchantments = enchantments;
+            this.blocks = blocks;
+            this.area = area;
+        }
+
+        @Override
+        public UUID getOwner() {
+            return player.getUniqueId();
+        }
+
+        @Override
+        public boolean applyNext() {
+            if (nextBlock >= blocks.size() || plugin.isShuttingDown()) {
+                return false;
+            }
+            Block block = blocks.get(nextBlock++);
+
+            // FIXED: Validate each block individually with level and region checks
+            if (canBreakBlockWithAllValidation(player, block, area)) {
+                Material originalType = block.getType();
+                MaterialRules rules = getMaterialRules();
+
+                // Calculate rewards BEFORE breaking the block
+                double xp = rules.getXpReward(originalType);
+                double essence = rules.getEssenceReward(originalType);
+
+                // Apply boost multipliers if tool has boost enchantments
+                int xpBoostLevel = enchantments.getOrDefault("xpboost", 0);
+                if (xpBoostLevel > 0 && xp > 0) {
+                    var xpConfig = plugin.getEnchantmentManager().getEnchantmentConfig("xpboost");
+                    if (xpConfig != null && xpConfig.getMultiplier() != null && xpConfig.getMultiplier().size() >= xpBoostLevel) {
+                        double multiplier = xpConfig.getMultiplier().get(xpBoostLevel - 1);
+                        xp *= multiplier;
                     }
+                }
 
-                    // FIXED: Properly save milestone blocks to database through PlayerData
-                    if (!milestoneBlocks.isEmpty() && plugin.getMilestoneManager() != null) {
-                        for (Map.Entry<Material, Long> entry : milestoneBlocks.entrySet()) {
-                            Material material = entry.getKey();
-                            Long amount = entry.getValue();
+                int essenceBoostLevel = enchantments.getOrDefault("essenceboost", 0);
+                if (essenceBoostLevel > 0 && essence > 0) {
+                    var essenceConfig = plugin.getEnchantmentManager().getEnchantmentConfig("essenceboost");
+                    if (essenceConfig != null && essenceConfig.getMultiplier() != null && essenceConfig.getMultiplier().size() >= essenceBoostLevel) {
+                        double multiplier = essenceConfig.getMultiplier().get(essenceBoostLevel - 1);
+                        essence *= multiplier;
+                    }
+                }
 
-                            // FIXED: Add to PlayerData first (this saves to database)
-                            playerData.addMilestoneBlocksBroken(material, amount);
+                // Track broken blocks for explosion rewards BEFORE breaking
+                brokenBlocks.merge(originalType, 1, Integer::sum);
 
-                            plugin.getLogger().fine("Enchantment added " + amount + " " + material.name() + " to PlayerData for " + player.getName());
-                        }
+                // FIXED: Track milestone blocks if material is tracked AND player can break it
+                if (rules.isMilestoneTracked(originalType)) {
+                    milestoneBlocks.merge(originalType, 1L, Long::sum);
+                }
 
-                        // FIXED: Save player data first, then trigger milestone manager
-                        plugin.getDataManager().savePlayerData(player.getUniqueId(), playerData).thenRun(() -> {
-                            // FIXED: Track with milestone manager AFTER data is saved
-                            for (Map.Entry<Material, Long> entry : milestoneBlocks.entrySet()) {
-                                Material material = entry.getKey();
-                                Long amount = entry.getValue();
-                                plugin.getMilestoneManager().trackBlockBreak(player, material, amount);
-                            }
-                        });
+                // FIXED: Check if block should regenerate
+                boolean willRegenerate = plugin.getBlockRegenerationManager() != null &&
+                        rules.regenerates(originalType);
+
+                if (willRegenerate) {
+                    // Let regeneration manager handle the block breaking and regeneration
+                    plugin.getBlockRegenerationManager().handleBlockBreak(block, enchantmentType);
+                } else {
+                    // Normal block breaking without regeneration
+                    if (breakBlockSafely(block)) {
+                        brokenPositions.add(SphereScanner.pack(block.getX(), block.getY(), block.getZ()));
                     }
+                }
 
-                    // Always give rewards and explosion blocks for explosion enchantments
-                    if (blocksDestroyed[0] > 0) {
-                        // Give XP and Essence rewards for explosion enchantments OR boost enchantments using COMMANDS
-                        boolean hasXpBoost = enchantments.getOrDefault("xpboost", 0) > 0;
-                        boolean hasEssenceBoost = enchantments.getOrDefault("essenceboost", 0) > 0;
+                // Update totals
+                totalXp += xp;
+                totalEssence += essence;
+                blocksDestroyed++;
+            }
 
-                        if (isExplosionEnchantment || hasXpBoost || hasEssenceBoost) {
-                            updatePlayerRewardsWithCommands(player, playerData, totalXp[0], totalEssence[0],
-                                    blocksDestroyed[0], enchantmentType, enchantments, isExplosionEnchantment);
-                        }
+            return nextBlock < blocks.size();
+        }
 
-                        // Check inventory space BEFORE giving explosion block rewards
-                        if (isExplosionEnchantment && !brokenBlocks.isEmpty()) {
-                            boolean rewardsGiven = giveExplosionBlockRewards(player, brokenBlocks);
-                            if (rewardsGiven) {
-                                int totalBlocksGiven = brokenBlocks.values().stream().mapToInt(Integer::intValue).sum();
-                            }
-                        }
+        @Override
+        public void complete() {
+            // One physics pass over the neighbours of every broken block
+            if (!brokenPositions.isEmpty()) {
+                scheduleNeighborPhysics(blocks.get(0).getWorld(), brokenPositions);
+            }
+
+            // FIXED: Properly save milestone blocks to database through PlayerData
+            if (!milestoneBlocks.isEmpty() && plugin.getMilestoneManager() != null) {
+                for (Map.Entry<Material, Long> entry : milestoneBlocks.entrySet()) {
+                    Material material = entry.getKey();
+                    Long amount = entry.getValue();
+
+                    // FIXED: Add to PlayerData first (this saves to database)
+                    playerData.addMilestoneBlocksBroken(material, amount);
+
+                    plugin.getLogger().fine("Enchantment added " + amount + " " + material.name() + " to PlayerData for " + player.getName());
+                }
+
+                // FIXED: Save player data first, then trigger milestone manager
+                plugin.getDataManager().savePlayerData(player.getUniqueId(), playerData).thenRun(() -> {
+                    // FIXED: Track with milestone manager AFTER data is saved
+                    for (Map.Entry<Material, Long> entry : milestoneBlocks.entrySet()) {
+                        Material material = entry.getKey();
+                        Long amount = entry.getValue();
+                        plugin.getMilestoneManager().trackBlockBreak(player, material, amount);
                     }
+                });
+            }
+
+            // Always give rewards and explosion blocks for explosion enchantments
+            if (blocksDestroyed > 0) {
+                // Give XP and Essence rewards for explosion enchantments OR boost enchantments using COMMANDS
+                boolean hasXpBoost = enchantments.getOrDefault("xpboost", 0) > 0;
+                boolean hasEssenceBoost = enchantments.getOrDefault("essenceboost", 0) > 0;
 
-                } catch (Exception e) {
-                    plugin.getLogger().log(Level.WARNING, "Error during block breaking", e);
+                if (isExplosionEnchantment || hasXpBoost || hasEssenceBoost) {
+                    updatePlayerRewards(player, playerData, totalXp, totalEssence,
+                            blocksDestroyed, enchantmentType, enchantments, isExplosionEnchantment);
                 }
-            });
 
-        }, plugin.getAsyncExecutor());
+                // Check inventory space BEFORE giving explosion block rewards
+                if (isExplosionEnchantment && !brokenBlocks.isEmpty()) {
+                    giveExplosionBlockRewards(player, brokenBlocks);
+                }
+            }
+        }
     }
 
     /**
      * FIXED: Comprehensive validation for all block breaking conditions
      */
-    private boolean validateAllBlockBreakingConditions(Player player, Location center, int radius) {
+    private boolean validateAllBlockBreakingConditions(Player player, Location center, int radius,
+                                                       WorldGuardHook.AreaCheck area) {
         // 1. Check if player is holding a GhastTool
         ItemStack tool = getCurrentHeldTool(player);
         if (tool == null || !plugin.getToolManager().isGhastTool(tool)) {
@@ -248,7 +351,7 @@ public class BlockBreaker {
         }
 
         // 3. Check if player is in allowed region (WorldGuard) for the CENTER and RADIUS
-        if (!canBreakInArea(player, center, radius)) {
+        if (!canBreakInArea(center, radius, area)) {
             return false;
         }
 
@@ -256,23 +359,23 @@ public class BlockBreaker {
     }
 
     /**
-     * FIXED: Filter blocks with comprehensive validation including level and region checks
+     * FIXED: Filter scanned blocks with comprehensive validation including level and region checks.
+     * Block types come from the scan snapshots; the main thread validates the live blocks again before breaking.
      */
-    private Set<Block> filterBlocksWithComprehensiveValidation(Set<Block> blocks, Player player) {
-        Set<Block> filtered = new HashSet<>();
-
-        // Get player's tool info for validation
-        ItemStack tool = getCurrentHeldTool(player);
-        String toolType = plugin.getToolManager().getToolType(tool);
-        int toolTier = plugin.getToolManager().getToolTier(tool);
+    private List<Block> filterBlocksWithComprehensiveValidation(SphereScanner.Result scan, Player player,
+                                                                WorldGuardHook.AreaCheck area) {
+        List<Block> filtered = new ArrayList<>();
+        World world = scan.getWorld();
 
-        for (Block block : blocks) {
-            // Add EARLY RETURN if block is air to optimize
-            if (block.getType() == Material.AIR) continue;
+        for (int i = 0; i < scan.size(); i++) {
+            long position = scan.getPosition(i);
+            int x = SphereScanner.unpackX(position);
+            int y = SphereScanner.unpackY(position);
+            int z = SphereScanner.unpackZ(position);
 
             // FIXED: Comprehensive validation for each block
-            if (canBreakBlockWithAllValidation(player, block)) {
-                filtered.add(block);
+            if (canBreakBlockWithAllValidation(player, scan.getType(i), x, y, z, area)) {
+                filtered.add(world.getBlockAt(x, y, z));
             }
         }
 
@@ -282,72 +385,53 @@ public class BlockBreaker {
     /**
      * FIXED: Comprehensive block validation with ALL checks
      */
-    private boolean canBreakBlockWithAllValidation(Player player, Block block) {
-        if (block == null || block.getType() == Material.AIR) {
+    private boolean canBreakBlockWithAllValidation(Player player, Block block, WorldGuardHook.AreaCheck area) {
+        if (block == null) {
             return false;
         }
+        return canBreakBlockWithAllValidation(player, block.getType(), block.getX(), block.getY(), block.getZ(), area);
+    }
 
-        // 1. Check whitelist FIRST
-        if (!isBlockAllowedByWhitelist(block.getType())) {
+    private boolean canBreakBlockWithAllValidation(Player player, Material type, int x, int y, int z,
+                                                   WorldGuardHook.AreaCheck area) {
+        if (type == null) {
             return false;
         }
+        MaterialRules rules = getMaterialRules();
 
-        // 2. Check if block is in blacklist
-        if (isBlockBlacklisted(block.getType())) {
+        // 1. Check whitelist, blacklist and vanilla breakability in one lookup
+        if (!rules.isBreakable(type)) {
             return false;
         }
 
-        // 3. Check block level requirements
-        if (!meetsBlockLevelRequirement(player, block.getType())) {
+        // 2. Check block level requirements
+        if (!meetsBlockLevelRequirement(player, type, rules.getRequiredLevel(type))) {
             return false;
         }
 
-        // 4. Check WorldGuard for specific block location
-        if (plugin.getWorldGuardHook() != null) {
-            if (!plugin.getWorldGuardHook().canUseTools(player, block.getLocation())) {
-                return false;
-            }
-        }
-
-        // 5. Check if player can break this block type based on tool level
-        if (!canPlayerBreakBlockType(player, block.getType())) {
+        // 3. Check WorldGuard for specific block location against the prefetched regions
+        if (!area.isAllowed(x, y, z)) {
             return false;
         }
 
-        // 6. Check if block can be broken by player (vanilla permissions)
-        return !block.getType().isAir() && block.getType().getHardness() >= 0;
+        // 4. Check if player can break this block type based on tool level
+        return canPlayerBreakBlockType(player, type, rules);
     }
 
     /**
      * Check if player meets block level requirement
      */
-    private boolean meetsBlockLevelRequirement(Player player, Material blockType) {
+    private boolean meetsBlockLevelRequirement(Player player, Material blockType, int requiredLevel) {
         try {
+            if (requiredLevel <= 0) {
+                return true; // No level requirement
+            }
+
             // Check if player has bypass permission
             if (player.hasPermission("ghasttools.bypass.levelcheck")) {
                 return true;
             }
 
-            FileConfiguration config = plugin.getConfigManager().getMainConfig();
-            if (config == null) {
-                return true; // Allow if config not available
-            }
-
-            ConfigurationSection blockLevelSection = config.getConfigurationSection("block-level-requirements");
-            if (blockLevelSection == null) {
-                return true; // No block level requirements configured
-            }
-
-            String blockKey = blockType.name().toLowerCase();
-            if (!blockLevelSection.contains(blockKey)) {
-                return true; // Block not in requirements list
-            }
-
-            int requiredLevel = blockLevelSection.getInt(blockKey, 0);
-            if (requiredLevel <= 0) {
-                return true; // No level requirement
-            }
-
             // Check player level using levels handler
             if (plugin.getLevelsHandler() == null) {
                 plugin.getLogger().warning("Levels handler not available for block level check");
@@ -372,7 +456,7 @@ public class BlockBreaker {
     /**
      * FIXED: Check if player can break this specific block type based on their tool level
      */
-    private boolean canPlayerBreakBlockType(Player player, Material blockType) {
+    private boolean canPlayerBreakBlockType(Player player, Material blockType, MaterialRules rules) {
         // Get player's current tool
         ItemStack tool = getCurrentHeldTool(player);
         if (tool == null || !plugin.getToolManager().isGhastTool(tool)) {
@@ -393,8 +477,7 @@ public class BlockBreaker {
 
         // FIXED: For milestone materials, check if player can actually break this material
         // This prevents tracking blocks that player cannot legitimately break
-        if (plugin.getMilestoneManager() != null &&
-                plugin.getMilestoneManager().isTrackedMaterial(blockType)) {
+        if (rules.isMilestoneTracked(blockType)) {
 
             // If it's a tracked milestone material, validate more strictly
             if (plugin.getLevelsHandler() != null && !player.hasPermission("ghasttools.bypass.levelcheck")) {
@@ -427,58 +510,11 @@ public class BlockBreaker {
     }
 
     /**
-     * FIXED: Get blocks in PERFECT SPHERE shape - improved algorithm for true sphere
-     */
-    private Set<Block> getBlocksInPerfectSphere(Location center, int radius) {
-        Set<Block> blocks = new HashSet<>();
-
-        // Use double precision for perfect sphere calculation
-        double radiusSquared = radius * radius;
-        double centerX = center.getX();
-        double centerY = center.getY();
-        double centerZ = center.getZ();
-
-        // FIXED: Iterate through all possible positions in a cube around the center
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    // FIXED: Calculate EXACT distance using double precision and proper center coordinates
-                    double dx = x;
-                    double dy = y;
-                    double dz = z;
-                    double distanceSquared = dx * dx + dy * dy + dz * dz;
-
-                    // Only include blocks within the PERFECT SPHERE
-                    if (distanceSquared <= radiusSquared) {
-                        // FIXED: Use proper block coordinates with center offset
-                        int blockX = (int) Math.floor(centerX) + x;
-                        int blockY = (int) Math.floor(centerY) + y;
-                        int blockZ = (int) Math.floor(centerZ) + z;
-
-                        Location blockLoc = new Location(center.getWorld(), blockX, blockY, blockZ);
-
-                        // Ensure block is within world bounds
-                        if (blockLoc.getY() >= center.getWorld().getMinHeight() &&
-                                blockLoc.getY() <= center.getWorld().getMaxHeight()) {
-                            Block block = blockLoc.getBlock();
-                            if (block.getType() != Material.AIR) {
-                                blocks.add(block);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return blocks;
-    }
-
-    /**
-     * Command-based reward system that properly handles explosion enchantments and boost enchantments
+     * Reward system that properly handles explosion enchantments and boost enchantments
      */
-    private void updatePlayerRewardsWithCommands(Player player, PlayerData playerData, double totalXp,
-                                                 double totalEssence, int blocksDestroyed, String enchantmentType,
-                                                 Map<String, Integer> enchantments, boolean isExplosionEnchantment) {
+    private void updatePlayerRewards(Player player, PlayerData playerData, double totalXp,
+                                     double totalEssence, int blocksDestroyed, String enchantmentType,
+                                     Map<String, Integer> enchantments, boolean isExplosionEnchantment) {
         try {
             // Update player data
             playerData.addXpEarned(totalXp);
@@ -489,14 +525,14 @@ public class BlockBreaker {
             boolean hasXpBoost = enchantments.getOrDefault("xpboost", 0) > 0;
             boolean hasEssenceBoost = enchantments.getOrDefault("essenceboost", 0) > 0;
 
-            // Give XP for explosion enchantments OR boost enchantments using COMMANDS
+            // Give XP for explosion enchantments OR boost enchantments with the next reward flush
             if ((isExplosionEnchantment || hasXpBoost) && totalXp > 0) {
-                giveXpWithCommand(player, Math.round(totalXp));
+                rewardAccumulator.addXp(player, totalXp);
             }
 
-            // Give Essence for explosion enchantments OR boost enchantments using COMMANDS
+            // Give Essence for explosion enchantments OR boost enchantments with the next reward flush
             if ((isExplosionEnchantment || hasEssenceBoost) && totalEssence > 0) {
-                giveEssenceWithCommand(player, Math.round(totalEssence));
+                rewardAccumulator.addEssence(player, totalEssence);
             }
 
             // Save player data asynchronously
@@ -511,86 +547,6 @@ public class BlockBreaker {
         }
     }
 
-    /**
-     * Give XP using command from rewards.yml
-     */
-    private void giveXpWithCommand(Player player, long amount) {
-        try {
-            FileConfiguration rewardsConfig = plugin.getConfigManager().getRewardsConfig();
-            if (rewardsConfig == null) {
-                plugin.getLogger().warning("Rewards config not available for XP command!");
-                return;
-            }
-
-            String xpCommand = rewardsConfig.getString("rewards.xp.command", "levels give {player} {amount}");
-
-            if (xpCommand == null || xpCommand.isEmpty()) {
-                plugin.getLogger().warning("XP command not configured in rewards.yml!");
-                return;
-            }
-
-            // Replace placeholders
-            String finalCommand = xpCommand
-                    .replace("{player}", player.getName())
-                    .replace("{amount}", String.valueOf(amount));
-
-            // Execute command on main thread
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                try {
-                    boolean success = Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand);
-                    if (!success) {
-                        plugin.getLogger().warning("Failed to execute XP command: " + finalCommand);
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().log(Level.WARNING, "Error executing XP command: " + finalCommand, e);
-                }
-            });
-
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error giving XP with command to " + player.getName(), e);
-        }
-    }
-
-    /**
-     * Give Essence using command from rewards.yml
-     */
-    private void giveEssenceWithCommand(Player player, long amount) {
-        try {
-            FileConfiguration rewardsConfig = plugin.getConfigManager().getRewardsConfig();
-            if (rewardsConfig == null) {
-                plugin.getLogger().warning("Rewards config not available for Essence command!");
-                return;
-            }
-
-            String essenceCommand = rewardsConfig.getString("rewards.essence.command", "essence give {player} {amount}");
-
-            if (essenceCommand == null || essenceCommand.isEmpty()) {
-                plugin.getLogger().warning("Essence command not configured in rewards.yml!");
-                return;
-            }
-
-            // Replace placeholders
-            String finalCommand = essenceCommand
-                    .replace("{player}", player.getName())
-                    .replace("{amount}", String.valueOf(amount));
-
-            // Execute command on main thread
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                try {
-                    boolean success = Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand);
-                    if (!success) {
-                        plugin.getLogger().warning("Failed to execute Essence command: " + finalCommand);
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().log(Level.WARNING, "Error executing Essence command: " + finalCommand, e);
-                }
-            });
-
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error giving Essence with command to " + player.getName(), e);
-        }
-    }
-
     /**
      * Explosion block rewards with inventory space check
      */
@@ -663,61 +619,7 @@ public class BlockBreaker {
         }
     }
 
-    /**
-     * Proper whitelist checking functionality
-     */
-    private boolean isBlockAllowedByWhitelist(Material material) {
-        try {
-            FileConfiguration config = plugin.getConfigManager().getMainConfig();
-            if (config == null) {
-                return true; // Allow if config not available
-            }
-
-            boolean whitelistEnabled = config.getBoolean("explosion.block_whitelist.enabled", false);
-
-            if (!whitelistEnabled) {
-                return true; // Whitelist disabled, allow all blocks (except blacklisted)
-            }
-
-            List<String> whitelist = config.getStringList("explosion.block_whitelist.blocks");
-
-            if (whitelist.isEmpty()) {
-                return true; // Empty whitelist means allow all
-            }
-
-            String materialName = material.name().toLowerCase();
-            return whitelist.contains(materialName) || whitelist.contains(material.name().toUpperCase());
-
-        } catch (Exception e) {
-            plugin.getLogger().fine("Error checking whitelist: " + e.getMessage());
-            return true; // Default to allow on error
-        }
-    }
-
     // Helper methods and classes
-    private static class BlockData {
-        private final Location location;
-        private final Material material;
-        private final org.bukkit.block.data.BlockData blockData;
-
-        public BlockData(Location location, Material material, org.bukkit.block.data.BlockData blockData) {
-            this.location = location;
-            this.material = material;
-            this.blockData = blockData;
-        }
-
-        public Location getLocation() {
-            return location;
-        }
-
-        public Material getMaterial() {
-            return material;
-        }
-
-        public org.bukkit.block.data.BlockData getBlockData() {
-            return blockData;
-        }
-    }
 
     private List<ItemStack> createProperStacks(Material material, int totalAmount, String itemName,
                                                List<String> lore, int customModelData) {
@@ -837,56 +739,95 @@ public class BlockBreaker {
         return null;
     }
 
-    private boolean canBreakInArea(Player player, Location center, int radius) {
-        if (plugin.getWorldGuardHook() != null) {
-            if (!plugin.getWorldGuardHook().canUseTools(player, center)) {
-                return false;
-            }
+    private boolean canBreakInArea(Location center, int radius, WorldGuardHook.AreaCheck area) {
+        if (!area.isAllowed(center.getBlockX(), center.getBlockY(), center.getBlockZ())) {
+            return false;
+        }
 
-            for (int i = 0; i < 4; i++) {
-                double angle = (Math.PI * 2 * i) / 4;
-                Location checkPoint = center.clone().add(
-                        Math.cos(angle) * radius,
-                        0,
-                        Math.sin(angle) * radius
-                );
+        for (int i = 0; i < 4; i++) {
+            double angle = (Math.PI * 2 * i) / 4;
+            Location checkPoint = center.clone().add(
+                    Math.cos(angle) * radius,
+                    0,
+                    Math.sin(angle) * radius
+            );
 
-                if (!plugin.getWorldGuardHook().canUseTools(player, checkPoint)) {
-                    return false;
-                }
+            if (!area.isAllowed(checkPoint.getBlockX(), checkPoint.getBlockY(), checkPoint.getBlockZ())) {
+                return false;
             }
         }
 
         return true;
     }
 
-    private void breakBlockSafely(Block block) {
+    /**
+     * WorldGuard check for the bounding box of the explosion, allowing everything without WorldGuard
+     */
+    private WorldGuardHook.AreaCheck getAreaCheck(Player player, Location center, int radius) {
+        WorldGuardHook worldGuardHook = plugin.getWorldGuardHook();
+        if (worldGuardHook == null) {
+            return WorldGuardHook.AreaCheck.ALLOW;
+        }
+
+        World world = center.getWorld();
+        return worldGuardHook.canUseToolsInArea(player, world,
+                center.getBlockX() - radius, Math.max(world.getMinHeight(), center.getBlockY() - radius),
+                center.getBlockZ() - radius,
+                center.getBlockX() + radius, Math.min(world.getMaxHeight() - 1, center.getBlockY() + radius),
+                center.getBlockZ() + radius);
+    }
+
+    private boolean breakBlockSafely(Block block) {
         try {
             block.setType(Material.AIR, false);
-
-            plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-                if (!plugin.isShuttingDown()) {
-                    updateSurroundingPhysics(block.getLocation());
-                }
-            }, 1L);
-
+            return true;
         } catch (Exception e) {
             plugin.getLogger().fine("Error breaking block at " + block.getLocation() + ": " + e.getMessage());
+            return false;
         }
     }
 
-    private void updateSurroundingPhysics(Location location) {
-        try {
-            for (int x = -1; x <= 1; x++) {
-                for (int y = -1; y <= 1; y++) {
-                    for (int z = -1; z <= 1; z++) {
-                        if (x == 0 && y == 0 && z == 0) continue;
+    /**
+     * Update the gravity blocks around the broken blocks one tick after the explosion
+     */
+    private void scheduleNeighborPhysics(World world, Set<Long> brokenPositions) {
+        if (plugin.isShuttingDown()) {
+            return;
+        }
 
-                        Location checkLoc = location.clone().add(x, y, z);
-                        Block checkBlock = checkLoc.getBlock();
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            if (!plugin.isShuttingDown()) {
+                updateNeighborPhysics(world, brokenPositions);
+            }
+        }, 1L);
+    }
 
-                        if (needsPhysicsUpdate(checkBlock.getType())) {
-                            checkBlock.getState().update(true, true);
+    /**
+     * Visit each neighbour shared by several broken blocks only once; the broken blocks themselves are air
+     */
+    private void updateNeighborPhysics(World world, Set<Long> brokenPositions) {
+        try {
+            MaterialRules rules = getMaterialRules();
+            Set<Long> visited = new HashSet<>(brokenPositions);
+            int minY = world.getMinHeight();
+            int maxY = world.getMaxHeight() - 1;
+
+            for (long position : brokenPositions) {
+                int blockX = SphereScanner.unpackX(position);
+                int blockY = SphereScanner.unpackY(position);
+                int blockZ = SphereScanner.unpackZ(position);
+
+                for (int x = -1; x <= 1; x++) {
+                    for (int y = -1; y <= 1; y++) {
+                        for (int z = -1; z <= 1; z++) {
+                            int checkY = blockY + y;
+                            if (checkY < minY || checkY > maxY) continue;
+                            if (!visited.add(SphereScanner.pack(blockX + x, checkY, blockZ + z))) continue;
+
+                            Block checkBlock = world.getBlockAt(blockX + x, checkY, blockZ + z);
+                            if (rules.isGravityBlock(checkBlock.getType())) {
+                                checkBlock.getState().update(true, true);
+                            }
                         }
                     }
                 }
@@ -897,66 +838,6 @@ public class BlockBreaker {
         }
     }
 
-    private boolean needsPhysicsUpdate(Material material) {
-        return material == Material.SAND ||
-                material == Material.GRAVEL ||
-                material == Material.RED_SAND ||
-                material.name().contains("CONCRETE_POWDER") ||
-                material == Material.DRAGON_EGG ||
-                material == Material.ANVIL ||
-                material.name().contains("FALLING");
-    }
-
-    private Set<Block> limitBlocks(Set<Block> blocks, int maxBlocks) {
-        if (blocks.size() <= maxBlocks) {
-            return blocks;
-        }
-
-        Set<Block> limited = new HashSet<>();
-        int count = 0;
-
-        for (Block block : blocks) {
-            if (count >= maxBlocks) break;
-            limited.add(block);
-            count++;
-        }
-
-        return limited;
-    }
-
-    private boolean isBlockBlacklisted(Material material) {
-        try {
-            FileConfiguration config = plugin.getConfigManager().getMainConfig();
-            if (config == null) {
-                return isDefaultBlacklisted(material);
-            }
-
-            List<String> blacklist = config.getStringList("explosion.blacklisted_blocks");
-
-            if (blacklist.isEmpty()) {
-                return isDefaultBlacklisted(material);
-            }
-
-            return blacklist.contains(material.name().toLowerCase()) || blacklist.contains(material.name().toUpperCase());
-
-        } catch (Exception e) {
-            plugin.getLogger().fine("Error checking blacklist: " + e.getMessage());
-            return isDefaultBlacklisted(material);
-        }
-    }
-
-    private boolean isDefaultBlacklisted(Material material) {
-        return material == Material.BEDROCK ||
-                material == Material.BARRIER ||
-                material == Material.END_PORTAL_FRAME ||
-                material == Material.SPAWNER ||
-                material == Material.COMMAND_BLOCK ||
-                material == Material.STRUCTURE_BLOCK ||
-                material == Material.JIGSAW ||
-                material == Material.LIGHT ||
-                material.name().contains("PORTAL");
-    }
-
     private String translateColors(String text) {
         if (text == null || text.isEmpty()) {
             return text;
@@ -964,30 +845,6 @@ public class BlockBreaker {
         return org.bukkit.ChatColor.translateAlternateColorCodes('&', text);
     }
 
-    private double getXpReward(Material material) {
-        try {
-            FileConfiguration config = plugin.getConfigManager().getRewardsConfig();
-            if (config != null) {
-                return config.getDouble("rewards.xp.materials." + material.name().toLowerCase(), 0.0);
-            }
-        } catch (Exception e) {
-            plugin.getLogger().fine("Error getting XP reward: " + e.getMessage());
-        }
-        return 0.0;
-    }
-
-    private double getEssenceReward(Material material) {
-        try {
-            FileConfiguration config = plugin.getConfigManager().getRewardsConfig();
-            if (config != null) {
-                return config.getDouble("rewards.essence.materials." + material.name().toLowerCase(), 0.0);
-            }
-        } catch (Exception e) {
-            plugin.getLogger().fine("Error getting essence reward: " + e.getMessage());
-        }
-        return 0.0;
-    }
-
     private int getMaxBlocks() {
         try {
             FileConfiguration config = plugin.getConfigManager().getMainConfig();
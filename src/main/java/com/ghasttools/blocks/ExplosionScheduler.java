@@ -0,0 +1,201 @@
+package com.ghasttools.blocks;
+
+import com.ghasttools.GhastToolsPlugin;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Applies explosions on the main thread a few blocks at a time under a per-tick time budget.
+ *
+ * Jobs are queued per player and served round-robin, so one player's meteor shower cannot delay
+ * everyone else's explosions, and several explosions in the same tick spread over the next ticks
+ * instead of stacking into one long tick. The tick task only runs while there is work.
+ */
+public class ExplosionScheduler {
+
+    /**
+     * One explosion; every method is called on the main thread
+     */
+    public interface Job {
+        /**
+         * @return Player whose queue the job waits in
+         */
+        UUID getOwner();
+
+        /**
+         * Apply the next block
+         * @return False once every block has been applied
+         */
+        boolean applyNext();
+
+        /**
+         * Called once after the last block, or early when the plugin shuts down
+         */
+        void complete();
+    }
+
+    private final GhastToolsPlugin plugin;
+
+    // Submitted from any thread, moved into the player queues by the tick task
+    private final ConcurrentLinkedQueue<QueuedJob> incoming = new ConcurrentLinkedQueue<>();
+    // Main thread only: per-player queues in round-robin order
+    private final LinkedHashMap<UUID, ArrayDeque<QueuedJob>> queues = new LinkedHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile BukkitTask task;
+
+    // Configuration constants to avoid magic numbers
+    private static final double DEFAULT_TICK_BUDGET_MS = 5.0;
+    private static final int DEFAULT_BLOCKS_PER_TURN = 16;
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    public ExplosionScheduler(GhastToolsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queue an explosion
+     * @return Future completed after the job's complete() ran
+     */
+    public CompletableFuture<Void> submit(Job job) {
+        QueuedJob queued = new QueuedJob(job);
+        incoming.add(queued);
+        ensureRunning();
+        return queued.future;
+    }
+
+    private void ensureRunning() {
+        if (plugin.isShuttingDown() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (tick()) {
+                    return;
+                }
+
+                cancel();
+                running.set(false);
+                // A job submitted between the last check and the reset would otherwise wait for the next submit
+                if (!incoming.isEmpty()) {
+                    ensureRunning();
+                }
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
+    }
+
+    /**
+     * Apply queued explosions until the tick budget is spent
+     * @return False once there is no work left
+     */
+    private boolean tick() {
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        double budgetMs = config.getDouble("explosion.tick_budget_ms", DEFAULT_TICK_BUDGET_MS);
+        if (budgetMs <= 0) {
+            budgetMs = DEFAULT_TICK_BUDGET_MS;
+        }
+        int blocksPerTurn = Math.max(1, config.getInt("explosion.blocks_per_turn", DEFAULT_BLOCKS_PER_TURN));
+        long deadline = System.nanoTime() + (long) (budgetMs * NANOS_PER_MS);
+
+        drainIncoming();
+
+        // One turn per player per round, until the budget is spent or nothing is left
+        while (!queues.isEmpty() && System.nanoTime() < deadline) {
+            Iterator<Map.Entry<UUID, ArrayDeque<QueuedJob>>> players = queues.entrySet().iterator();
+            while (players.hasNext() && System.nanoTime() < deadline) {
+                ArrayDeque<QueuedJob> queue = players.next().getValue();
+                QueuedJob queued = queue.peek();
+
+                boolean more = true;
+                for (int i = 0; i < blocksPerTurn && more; i++) {
+                    more = apply(queued);
+                }
+
+                if (!more) {
+                    queue.poll();
+                    complete(queued);
+                    if (queue.isEmpty()) {
+                        players.remove();
+                    }
+                }
+            }
+        }
+
+        return !queues.isEmpty() || !incoming.isEmpty();
+    }
+
+    private void drainIncoming() {
+        QueuedJob queued;
+        while ((queued = incoming.poll()) != null) {
+            queues.computeIfAbsent(queued.job.getOwner(), id -> new ArrayDeque<>()).add(queued);
+        }
+    }
+
+    private boolean apply(QueuedJob queued) {
+        try {
+            return queued.job.applyNext();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error while applying explosion", e);
+            return false;
+        }
+    }
+
+    private void complete(QueuedJob queued) {
+        try {
+            queued.job.complete();
+            queued.future.complete(null);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error while completing explosion", e);
+            queued.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return Explosions waiting or in progress (main thread)
+     */
+    public int getQueuedJobCount() {
+        int count = incoming.size();
+        for (ArrayDeque<QueuedJob> queue : queues.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stop applying blocks and complete the remaining jobs with what they applied so far (main thread)
+     */
+    public void shutdown() {
+        if (task != null && !task.isCancelled()) {
+            task.cancel();
+        }
+
+        drainIncoming();
+        for (ArrayDeque<QueuedJob> queue : queues.values()) {
+            for (QueuedJob queued : queue) {
+                complete(queued);
+            }
+        }
+        queues.clear();
+        running.set(false);
+    }
+
+    private static final class QueuedJob {
+        private final Job job;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private QueuedJob(Job job) {
+            this.job = job;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ghasttools.blocks;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.regeneration.BlockRegenerationManager;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.List;
+
+/**
+ * Per-material block rules compiled from the configuration, indexed by {@link Material#ordinal()}.
+ *
+ * Whitelist, blacklist, level requirements, rewards, regeneration, milestone tracking and gravity are resolved
+ * once when the configuration is loaded, so classifying a block is a few array reads instead of config
+ * lookups. Instances never change; a reload compiles a new table and swaps it in.
+ */
+public final class MaterialRules {
+
+    private static final byte WHITELISTED = 1;
+    private static final byte BLACKLISTED = 1 << 1;
+    private static final byte UNBREAKABLE = 1 << 2;
+    private static final byte MILESTONE_TRACKED = 1 << 3;
+    private static final byte GRAVITY = 1 << 4;
+
+    private final byte[] flags;
+    private final int[] requiredLevels;
+    private final double[] xpRewards;
+    private final double[] essenceRewards;
+    private final BlockRegenerationManager.RegenerationConfig[] regeneration;
+
+    private MaterialRules(int size) {
+        this.flags = new byte[size];
+        this.requiredLevels = new int[size];
+        this.xpRewards = new double[size];
+        this.essenceRewards = new double[size];
+        this.regeneration = new BlockRegenerationManager.RegenerationConfig[size];
+    }
+
+    /**
+     * Compile the rules from the current configuration and the loaded regeneration and milestone settings
+     */
+    public static MaterialRules compile(GhastToolsPlugin plugin) {
+        Material[] materials = Material.values();
+        MaterialRules rules = new MaterialRules(materials.length);
+
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        FileConfiguration rewards = plugin.getConfigManager().getRewardsConfig();
+
+        // Whitelist disabled or empty means every block is allowed (except blacklisted ones)
+        List<String> whitelist = config != null && config.getBoolean("explosion.block_whitelist.enabled", false)
+                ? config.getStringList("explosion.block_whitelist.blocks") : List.of();
+        // Without a configured blacklist the built-in one applies
+        List<String> blacklist = config != null ? config.getStringList("explosion.blacklisted_blocks") : List.of();
+
+        for (Material material : materials) {
+            if (material.isLegacy()) {
+                continue;
+            }
+            int index = material.ordinal();
+            byte flag = 0;
+
+            if (whitelist.isEmpty() || containsName(whitelist, material)) {
+                flag |= WHITELISTED;
+            }
+            if (blacklist.isEmpty() ? isDefaultBlacklisted(material) : containsName(blacklist, material)) {
+                flag |= BLACKLISTED;
+            }
+            if (material.isBlock() && material.getHardness() < 0) {
+                flag |= UNBREAKABLE;
+            }
+            if (plugin.getMilestoneManager() != null && plugin.getMilestoneManager().isTrackedMaterial(material)) {
+                flag |= MILESTONE_TRACKED;
+            }
+            if (needsPhysicsUpdate(material)) {
+                flag |= GRAVITY;
+            }
+            rules.flags[index] = flag;
+
+            if (plugin.getBlockRegenerationManager() != null) {
+                rules.regeneration[index] = plugin.getBlockRegenerationManager().getRegenerationConfig(material);
+            }
+        }
+
+        ConfigurationSection levels = config != null ? config.getConfigurationSection("block-level-requirements") : null;
+        if (levels != null) {
+            for (String key : levels.getKeys(false)) {
+                Material material = Material.getMaterial(key.toUpperCase());
+                if (material != null) {
+                    rules.requiredLevels[material.ordinal()] = Math.max(0, levels.getInt(key, 0));
+                }
+            }
+        }
+
+        if (rewards != null) {
+            readRewards(rewards.getConfigurationSection("rewards.xp.materials"), rules.xpRewards);
+            readRewards(rewards.getConfigurationSection("rewards.essence.materials"), rules.essenceRewards);
+        }
+
+        return rules;
+    }
+
+    private static void readRewards(ConfigurationSection section, double[] target) {
+        if (section == null) {
+            return;
+        }
+        for (String key : section.getKeys(false)) {
+            Material material = Material.getMaterial(key.toUpperCase());
+            if (material != null) {
+                target[material.ordinal()] = section.getDouble(key, 0.0);
+            }
+        }
+    }
+
+    private static boolean containsName(List<String> names, Material material) {
+        return names.contains(material.name().toLowerCase()) || names.contains(material.name());
+    }
+
+    private static boolean isDefaultBlacklisted(Material material) {
+        return material == Material.BEDROCK ||
+                material == Material.BARRIER ||
+                material == Material.END_PORTAL_FRAME ||
+                material == Material.SPAWNER ||
+                material == Material.COMMAND_BLOCK ||
+                material == Material.STRUCTURE_BLOCK ||
+                material == Material.JIGSAW ||
+                material == Material.LIGHT ||
+                material.name().contains("PORTAL");
+    }
+
+    private static boolean needsPhysicsUpdate(Material material) {
+        return material == Material.SAND ||
+                material == Material.GRAVEL ||
+                material == Material.RED_SAND ||
+                material.name().contains("CONCRETE_POWDER") ||
+                material == Material.DRAGON_EGG ||
+                material == Material.ANVIL ||
+                material.name().contains("FALLING") ||
+                (material.isBlock() && material.hasGravity());
+    }
+
+    /**
+     * Allowed by the whitelist, not blacklisted and breakable at all (the checks that do not depend on the player)
+     */
+    public boolean isBreakable(Material material) {
+        return (flags[material.ordinal()] & (WHITELISTED | BLACKLISTED | UNBREAKABLE)) == WHITELISTED
+                && !material.isAir();
+    }
+
+    public boolean isWhitelisted(Material material) {
+        return (flags[material.ordinal()] & WHITELISTED) != 0;
+    }
+
+    public boolean isBlacklisted(Material material) {
+        return (flags[material.ordinal()] & BLACKLISTED) != 0;
+    }
+
+    public boolean isMilestoneTracked(Material material) {
+        return (flags[material.ordinal()] & MILESTONE_TRACKED) != 0;
+    }
+
+    /**
+     * Falls when the block below is removed, so it needs a physics update after neighbours are broken
+     */
+    public boolean isGravityBlock(Material material) {
+        return (flags[material.ordinal()] & GRAVITY) != 0;
+    }
+
+    /**
+     * @return Level needed to break the block, 0 if there is no requirement
+     */
+    public int getRequiredLevel(Material material) {
+        return requiredLevels[material.ordinal()];
+    }
+
+    public double getXpReward(Material material) {
+        return xpRewards[material.ordinal()];
+    }
+
+    public double getEssenceReward(Material material) {
+        return essenceRewards[material.ordinal()];
+    }
+
+    /**
+     * @return Regeneration settings of the block, null if it does not regenerate
+     */
+    public BlockRegenerationManager.RegenerationConfig getRegenerationConfig(Material material) {
+        return regeneration[material.ordinal()];
+    }
+
+    public boolean regenerates(Material material) {
+        return regeneration[material.ordinal()] != null;
+    }
+}
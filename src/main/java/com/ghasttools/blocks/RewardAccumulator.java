@@ -0,0 +1,207 @@
+package com.ghasttools.blocks;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.essence.EssenceHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Collects XP and essence rewards per player and hands them out in one go every few ticks.
+ *
+ * Every explosion or boost used to dispatch its own console command; now the amounts of a player
+ * are added up and given once per flush. Essence goes straight to the GhastEssence EssenceManager,
+ * the configured commands are only used when that integration is missing. Fractions are carried
+ * over to the next flush instead of being rounded away on every reward.
+ */
+public class RewardAccumulator {
+
+    private final GhastToolsPlugin plugin;
+
+    private final ConcurrentHashMap<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Configuration constants to avoid magic numbers
+    private static final long DEFAULT_FLUSH_INTERVAL_TICKS = 1L;
+    private static final String DEFAULT_XP_COMMAND = "levels give {player} {amount}";
+    private static final String DEFAULT_ESSENCE_COMMAND = "essence give {player} {amount}";
+
+    public RewardAccumulator(GhastToolsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queue XP for the next flush
+     */
+    public void addXp(Player player, double amount) {
+        add(player, amount, 0.0);
+    }
+
+    /**
+     * Queue essence for the next flush
+     */
+    public void addEssence(Player player, double amount) {
+        add(player, 0.0, amount);
+    }
+
+    private void add(Player player, double xp, double essence) {
+        if (player == null || (xp <= 0 && essence <= 0)) {
+            return;
+        }
+        pending.merge(player.getUniqueId(), new Pending(player.getName(), xp, essence), Pending::plus);
+        ensureRunning();
+    }
+
+    private void ensureRunning() {
+        if (plugin.isShuttingDown() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        long interval = getFlushInterval();
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                flush(false);
+                if (hasWholeRewards()) {
+                    return;
+                }
+
+                cancel();
+                running.set(false);
+                // A reward added between the last flush and the reset would otherwise wait for the next one
+                if (hasWholeRewards()) {
+                    ensureRunning();
+                }
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+
+    /**
+     * Fractions left over by a flush wait for the next reward instead of keeping the task alive
+     */
+    private boolean hasWholeRewards() {
+        for (Pending rewards : pending.values()) {
+            if (rewards.xp >= 1.0 || rewards.essence >= 1.0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long getFlushInterval() {
+        FileConfiguration rewardsConfig = plugin.getConfigManager().getRewardsConfig();
+        long interval = rewardsConfig != null
+                ? rewardsConfig.getLong("rewards.flush_interval_ticks", DEFAULT_FLUSH_INTERVAL_TICKS)
+                : DEFAULT_FLUSH_INTERVAL_TICKS;
+        if (interval <= 0) {
+            plugin.getLogger().warning("Invalid rewards.flush_interval_ticks: " + interval +
+                    ". Using default: " + DEFAULT_FLUSH_INTERVAL_TICKS);
+            interval = DEFAULT_FLUSH_INTERVAL_TICKS;
+        }
+        return interval;
+    }
+
+    /**
+     * Give the whole amounts collected so far (main thread)
+     * @param all Also give fractions by rounding them instead of carrying them over
+     */
+    private void flush(boolean all) {
+        // Copy the keys first, carried over fractions are put back while flushing
+        for (UUID playerId : List.copyOf(pending.keySet())) {
+            Pending rewards = pending.remove(playerId);
+            if (rewards == null) {
+                continue;
+            }
+
+            long xp = all ? Math.round(rewards.xp) : (long) Math.floor(rewards.xp);
+            long essence = all ? Math.round(rewards.essence) : (long) Math.floor(rewards.essence);
+
+            Player player = Bukkit.getPlayer(playerId);
+            try {
+                if (xp > 0) {
+                    giveXp(rewards.playerName, xp);
+                }
+                if (essence > 0) {
+                    giveEssence(player, rewards.playerName, essence);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Error giving rewards to " + rewards.playerName, e);
+            }
+
+            // Carry the fractions over to the next flush while the player is online
+            double xpLeft = all ? 0.0 : rewards.xp - xp;
+            double essenceLeft = all ? 0.0 : rewards.essence - essence;
+            if (player != null && (xpLeft > 0 || essenceLeft > 0)) {
+                pending.merge(playerId, new Pending(rewards.playerName, xpLeft, essenceLeft), Pending::plus);
+            }
+        }
+    }
+
+    /**
+     * Give XP using command from rewards.yml
+     */
+    private void giveXp(String playerName, long amount) {
+        dispatchRewardCommand("rewards.xp.command", DEFAULT_XP_COMMAND, playerName, amount);
+    }
+
+    /**
+     * Give essence through GhastEssence, or with the command from rewards.yml when it is not available
+     */
+    private void giveEssence(Player player, String playerName, long amount) {
+        EssenceHandler essenceHandler = plugin.getEssenceHandler();
+        if (player != null && essenceHandler != null && essenceHandler.isAvailable()) {
+            if (!essenceHandler.giveEssence(player, (int) Math.min(Integer.MAX_VALUE, amount))) {
+                plugin.getLogger().warning("Failed to give " + amount + " essence to " + playerName);
+            }
+            return;
+        }
+        dispatchRewardCommand("rewards.essence.command", DEFAULT_ESSENCE_COMMAND, playerName, amount);
+    }
+
+    private void dispatchRewardCommand(String path, String defaultCommand, String playerName, long amount) {
+        FileConfiguration rewardsConfig = plugin.getConfigManager().getRewardsConfig();
+        if (rewardsConfig == null) {
+            plugin.getLogger().warning("Rewards config not available for " + path + "!");
+            return;
+        }
+
+        String command = rewardsConfig.getString(path, defaultCommand);
+        if (command == null || command.isEmpty()) {
+            plugin.getLogger().warning(path + " not configured in rewards.yml!");
+            return;
+        }
+
+        String finalCommand = command
+                .replace("{player}", playerName)
+                .replace("{amount}", String.valueOf(amount));
+        if (!Bukkit.dispatchCommand(Bukkit.getConsoleSender(), finalCommand)) {
+            plugin.getLogger().warning("Failed to execute reward command: " + finalCommand);
+        }
+    }
+
+    /**
+     * @return Players with rewards waiting for the next flush
+     */
+    public int getPendingPlayerCount() {
+        return pending.size();
+    }
+
+    /**
+     * Give everything still pending, fractions rounded (main thread)
+     */
+    public void shutdown() {
+        flush(true);
+    }
+
+    private record Pending(String playerName, double xp, double essence) {
+        private Pending plus(Pending other) {
+            return new Pending(other.playerName, xp + other.xp, essence + other.essence);
+        }
+    }
+}
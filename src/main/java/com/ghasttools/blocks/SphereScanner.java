@@ -0,0 +1,236 @@
+package com.ghasttools.blocks;
+
+import com.ghasttools.GhastToolsPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the non-air blocks in a sphere without touching live world data off the main thread.
+ *
+ * The chunks around the sphere are copied into ChunkSnapshots on the main thread, then scanned on the
+ * calling thread (or per chunk on the common fork-join pool for large radii). Sphere shapes are
+ * precomputed once per radius as the half height of every column, so the scan only walks blocks that
+ * are inside the sphere and never allocates Locations or Blocks.
+ */
+final class SphereScanner {
+
+    private final GhastToolsPlugin plugin;
+
+    // Radius -> half height of each (dx, dz) column, -1 for columns outside the sphere
+    private final ConcurrentHashMap<Integer, int[]> columnTables = new ConcurrentHashMap<>();
+
+    // Configuration constants to avoid magic numbers
+    private static final int PARALLEL_SCAN_RADIUS = 8;
+    private static final long SNAPSHOT_TIMEOUT_SECONDS = 5;
+
+    SphereScanner(GhastToolsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Scan the sphere; may be called from any thread, snapshots are taken on the main thread
+     */
+    Result scan(Location center, int radius) throws Exception {
+        World world = center.getWorld();
+        int centerX = center.getBlockX();
+        int centerY = center.getBlockY();
+        int centerZ = center.getBlockZ();
+
+        int minChunkX = (centerX - radius) >> 4;
+        int minChunkZ = (centerZ - radius) >> 4;
+        int chunksX = ((centerX + radius) >> 4) - minChunkX + 1;
+        int chunksZ = ((centerZ + radius) >> 4) - minChunkZ + 1;
+
+        ChunkSnapshot[] snapshots;
+        if (Bukkit.isPrimaryThread()) {
+            snapshots = captureSnapshots(world, minChunkX, minChunkZ, chunksX, chunksZ);
+        } else {
+            snapshots = Bukkit.getScheduler()
+                    .callSyncMethod(plugin, () -> captureSnapshots(world, minChunkX, minChunkZ, chunksX, chunksZ))
+                    .get(SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        int[] columns = columnTables.computeIfAbsent(radius, SphereScanner::buildColumnTable);
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight() - 1;
+
+        List<ChunkTask> tasks = new ArrayList<>(snapshots.length);
+        for (int i = 0; i < snapshots.length; i++) {
+            if (snapshots[i] != null) {
+                int chunkX = minChunkX + i / chunksZ;
+                int chunkZ = minChunkZ + i % chunksZ;
+                tasks.add(new ChunkTask(snapshots[i], chunkX, chunkZ, centerX, centerY, centerZ, radius,
+                        columns, minY, maxY));
+            }
+        }
+
+        List<Result> parts = radius >= PARALLEL_SCAN_RADIUS && tasks.size() > 1
+                ? tasks.parallelStream().map(ChunkTask::scan).toList()
+                : tasks.stream().map(ChunkTask::scan).toList();
+        return Result.merge(world, parts);
+    }
+
+    /**
+     * Copy the loaded chunks of the area; unloaded chunks are left out instead of being loaded
+     */
+    private static ChunkSnapshot[] captureSnapshots(World world, int minChunkX, int minChunkZ, int chunksX, int chunksZ) {
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[chunksX * chunksZ];
+        for (int x = 0; x < chunksX; x++) {
+            for (int z = 0; z < chunksZ; z++) {
+                if (world.isChunkLoaded(minChunkX + x, minChunkZ + z)) {
+                    snapshots[x * chunksZ + z] = world.getChunkAt(minChunkX + x, minChunkZ + z)
+                            .getChunkSnapshot(false, false, false);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * For every column (dx, dz) of the bounding square, the largest dy with dx² + dy² + dz² <= r²
+     */
+    private static int[] buildColumnTable(int radius) {
+        int size = radius * 2 + 1;
+        int radiusSquared = radius * radius;
+        int[] columns = new int[size * size];
+
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                int remaining = radiusSquared - dx * dx - dz * dz;
+                int halfHeight = -1;
+                if (remaining >= 0) {
+                    halfHeight = (int) Math.sqrt(remaining);
+                    while (halfHeight * halfHeight > remaining) {
+                        halfHeight--;
+                    }
+                    while ((halfHeight + 1) * (halfHeight + 1) <= remaining) {
+                        halfHeight++;
+                    }
+                }
+                columns[(dx + radius) * size + (dz + radius)] = halfHeight;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Pack block coordinates into one long (26 bits x, 26 bits z, 12 bits y)
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+    /**
+     * Scan of the part of the sphere inside one chunk
+     */
+    private record ChunkTask(ChunkSnapshot snapshot, int chunkX, int chunkZ, int centerX, int centerY, int centerZ,
+                             int radius, int[] columns, int minY, int maxY) {
+
+        Result scan() {
+            int size = radius * 2 + 1;
+            int fromX = Math.max(chunkX << 4, centerX - radius);
+            int toX = Math.min((chunkX << 4) + 15, centerX + radius);
+            int fromZ = Math.max(chunkZ << 4, centerZ - radius);
+            int toZ = Math.min((chunkZ << 4) + 15, centerZ + radius);
+
+            Result result = new Result(null, Math.max(16, (toX - fromX + 1) * (toZ - fromZ + 1) * radius));
+            for (int x = fromX; x <= toX; x++) {
+                int row = (x - centerX + radius) * size;
+                for (int z = fromZ; z <= toZ; z++) {
+                    int halfHeight = columns[row + z - centerZ + radius];
+                    if (halfHeight < 0) {
+                        continue;
+                    }
+
+                    int fromY = Math.max(minY, centerY - halfHeight);
+                    int toY = Math.min(maxY, centerY + halfHeight);
+                    for (int y = fromY; y <= toY; y++) {
+                        Material type = snapshot.getBlockType(x & 15, y, z & 15);
+                        if (!type.isAir()) {
+                            result.add(pack(x, y, z), type);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Packed positions of the blocks found, with their types at the time of the snapshot
+     */
+    static final class Result {
+        private final World world;
+        private long[] positions;
+        private Material[] types;
+        private int size;
+
+        private Result(World world, int capacity) {
+            this.world = world;
+            this.positions = new long[capacity];
+            this.types = new Material[capacity];
+        }
+
+        private void add(long position, Material type) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+            positions[size] = position;
+            types[size] = type;
+            size++;
+        }
+
+        private static Result merge(World world, List<Result> parts) {
+            int total = 0;
+            for (Result part : parts) {
+                total += part.size;
+            }
+
+            Result merged = new Result(world, Math.max(1, total));
+            for (Result part : parts) {
+                System.arraycopy(part.positions, 0, merged.positions, merged.size, part.size);
+                System.arraycopy(part.types, 0, merged.types, merged.size, part.size);
+                merged.size += part.size;
+            }
+            return merged;
+        }
+
+        World getWorld() {
+            return world;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long getPosition(int index) {
+            return positions[index];
+        }
+
+        Material getType(int index) {
+            return types[index];
+        }
+    }
+}
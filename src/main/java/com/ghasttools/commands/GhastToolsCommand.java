@@ -70,6 +70,8 @@ public class GhastToolsCommand implements CommandExecutor, TabCompleter {
                     return handleExportData(sender, args);
                 case "importdata":
                     return handleImportData(sender, args);
+                case "migratedata":
+                    return handleMigrateData(sender, args);
                 case "cleandata":
                     return handleCleanData(sender, args);
                 case "info":
@@ -569,7 +571,7 @@ public class GhastToolsCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        String fileName = args.length > 1 ? args[1] : "ghasttools_export_" + System.currentTimeMillis() + ".json";
+        String fileName = args.length > 1 ? args[1] : "ghasttools_export_" + System.currentTimeMillis() + ".ndjson.gz";
 
         sender.sendMessage("§eExporting data to " + fileName + "...");
 
@@ -609,6 +611,34 @@ public class GhastToolsCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleMigrateData(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("ghasttools.admin")) {
+            plugin.getMessageUtil().sendMessage(sender, "no_permission");
+            return true;
+        }
+
+        if (args.length < 2 || !Arrays.asList("yaml", "sqlite", "log", "mysql", "mariadb", "postgresql").contains(args[1].toLowerCase())) {
+            sender.sendMessage("§cUsage: /ghasttools migratedata <yaml|sqlite|log|mysql|mariadb|postgresql>");
+            sender.sendMessage("§7Copies all players from the given storage into the active storage.");
+            return true;
+        }
+
+        String source = args[1].toLowerCase();
+        sender.sendMessage("§eMigrating player data from " + source + " storage...");
+
+        plugin.getDataManager().migrateData(source, message -> sender.sendMessage("§7" + message))
+                .whenComplete((migrated, throwable) -> {
+                    if (throwable != null) {
+                        Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+                        sender.sendMessage("§cData migration failed: " + cause.getMessage());
+                    } else {
+                        sender.sendMessage("§aMigrated " + migrated + " players from " + source + " storage!");
+                    }
+                });
+
+        return true;
+    }
+
     private boolean handleCleanData(CommandSender sender, String[] args) {
         if (!sender.hasPermission("ghasttools.admin")) {
             plugin.getMessageUtil().sendMessage(sender, "no_permission");
@@ -1179,6 +1209,7 @@ public class GhastToolsCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage("§e/ghasttools listenchants §7- List all available enchantments");
             sender.sendMessage("§e/ghasttools exportdata [file] §7- Export player data");
             sender.sendMessage("§e/ghasttools importdata <file> §7- Import player data");
+            sender.sendMessage("§e/ghasttools migratedata <yaml|sqlite|log|mysql|mariadb|postgresql> §7- Copy player data from another storage type");
             sender.sendMessage("§e/ghasttools cleandata [days|none] §7- Clean old data");
             sender.sendMessage("§e/ghasttools stats [player] §7- View player statistics");
             sender.sendMessage("§e/ghasttools milestone <player> §7- View player milestone profile");
@@ -1213,7 +1244,7 @@ public class GhastToolsCommand implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("ghasttools.admin")) {
                 subCommands.addAll(Arrays.asList("give", "givemax", "maxtools", "upgrade", "upgradeamount", "upgradeamt",
                         "enchant", "addenchant", "enchantamount", "enchantamt", "removeenchant", "delenchant",
-                        "listenchants", "enchants", "exportdata", "importdata", "cleandata", "milestone", "reload", "debug", "test"));
+                        "listenchants", "enchants", "exportdata", "importdata", "migratedata", "cleandata", "milestone", "reload", "debug", "test"));
             }
 
             if (sender.hasPermission("ghasttools.player.info")) {
@@ -1299,6 +1330,14 @@ public class GhastToolsCommand implements CommandExecutor, TabCompleter {
                 }
                 break;
 
+            case "migratedata":
+                if (args.length == 2) {
+                    return Arrays.asList("yaml", "sqlite", "log", "mysql", "mariadb", "postgresql").stream()
+                            .filter(type -> type.startsWith(args[1].toLowerCase()))
+                            .collect(Collectors.toList());
+                }
+                break;
+
             case "test":
                 if (args.length == 2) {
                     return Arrays.asList("colors", "enchant", "animations", "maxtools", "meteor", "level", "playerlevel", "milestone", "profile").stream()
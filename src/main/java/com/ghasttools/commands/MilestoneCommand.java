@@ -142,6 +142,11 @@ public class MilestoneCommand implements CommandExecutor, TabCompleter {
 
             milestoneManager.loadMilestoneConfiguration();
 
+            // Explosions read milestone tracking from the compiled block rules
+            if (plugin.getBlockBreaker() != null) {
+                plugin.getBlockBreaker().reloadRules();
+            }
+
             player.sendMessage("§aMilestone configuration reloaded successfully!");
             return true;
 
@@ -0,0 +1,316 @@
+package com.ghasttools.data;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.data.storage.ChangeLog;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Keeps cached player data consistent between servers that share one storage.
+ *
+ * The change log of the shared storage is polled on a short interval. When another server wrote a
+ * player, a cached session here is flushed and reloaded and the milestone and level caches of that
+ * player are dropped. Session loads wait until the server that last held the player has flushed and
+ * released it, and a server that sees another one acquire a player it no longer has online releases it
+ * right away instead of waiting for the quit event.
+ */
+public class ClusterSync {
+
+    private final GhastToolsPlugin plugin;
+    private final DataManager dataManager;
+    private final ChangeLog changeLog;
+
+    private final long pollIntervalTicks;
+    private final long handoffTimeoutMs;
+    private final long retentionMs;
+
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+    private final Set<UUID> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private BukkitTask pollTask;
+
+    // Poll state, only touched by the poll task
+    private long cursor;
+    private final Set<Long> processed = new HashSet<>();
+    private long lastPrune;
+
+    // Configuration constants to avoid magic numbers
+    private static final long DEFAULT_POLL_INTERVAL_MS = 1000;
+    private static final long DEFAULT_HANDOFF_TIMEOUT_MS = 2000;
+    // Same default as the prefetch in PlayerJoinListener
+    private static final long DEFAULT_PREFETCH_TIMEOUT_MS = 3000;
+    // Time a prefetch needs for the load itself after the handoff
+    private static final long HANDOFF_LOAD_MARGIN_MS = 1000;
+    private static final long DEFAULT_RETENTION_SECONDS = 300;
+    private static final long HANDOFF_CHECK_INTERVAL_MS = 100;
+    private static final long PRUNE_INTERVAL_MS = 60000;
+    private static final long MS_PER_TICK = 50;
+    private static final int MAX_ENTRIES_PER_POLL = 1000;
+    // Entries younger than this may still have gaps below them from transactions that have not committed
+    private static final long COMMIT_GRACE_MS = 5000;
+
+    public ClusterSync(GhastToolsPlugin plugin, DataManager dataManager, ChangeLog changeLog, FileConfiguration config) {
+        this.plugin = plugin;
+        this.dataManager = dataManager;
+        this.changeLog = changeLog;
+
+        long pollIntervalMs = config.getLong("storage.network.sync.poll_interval_ms", DEFAULT_POLL_INTERVAL_MS);
+        if (pollIntervalMs < MS_PER_TICK) {
+            plugin.getLogger().warning("Invalid storage.network.sync.poll_interval_ms: " + pollIntervalMs
+                    + ". Using default: " + DEFAULT_POLL_INTERVAL_MS);
+            pollIntervalMs = DEFAULT_POLL_INTERVAL_MS;
+        }
+        this.pollIntervalTicks = pollIntervalMs / MS_PER_TICK;
+        this.handoffTimeoutMs = readHandoffTimeout(plugin, config);
+        this.retentionMs = Math.max(COMMIT_GRACE_MS * 2,
+                config.getLong("storage.network.sync.retention_seconds", DEFAULT_RETENTION_SECONDS) * 1000L);
+    }
+
+    /**
+     * The handoff has to end before a prefetching login gives up, otherwise cross-server joins time out
+     */
+    private static long readHandoffTimeout(GhastToolsPlugin plugin, FileConfiguration config) {
+        long handoffTimeoutMs = Math.max(0, config.getLong("storage.network.sync.handoff_timeout_ms", DEFAULT_HANDOFF_TIMEOUT_MS));
+        if (!config.getBoolean("storage.prefetch.enabled", true)) {
+            return handoffTimeoutMs;
+        }
+
+        long prefetchTimeoutMs = config.getLong("storage.prefetch.timeout_ms", DEFAULT_PREFETCH_TIMEOUT_MS);
+        if (prefetchTimeoutMs <= 0) {
+            prefetchTimeoutMs = DEFAULT_PREFETCH_TIMEOUT_MS;
+        }
+        long maxHandoffMs = Math.max(0, prefetchTimeoutMs - HANDOFF_LOAD_MARGIN_MS);
+        if (handoffTimeoutMs > maxHandoffMs) {
+            plugin.getLogger().warning("storage.network.sync.handoff_timeout_ms (" + handoffTimeoutMs
+                    + ") must stay below storage.prefetch.timeout_ms (" + prefetchTimeoutMs + "). Using: " + maxHandoffMs);
+            handoffTimeoutMs = maxHandoffMs;
+        }
+        return handoffTimeoutMs;
+    }
+
+    /**
+     * Start polling from the current end of the log
+     */
+    public void start() throws Exception {
+        cursor = changeLog.getLatestSequence();
+        lastPrune = System.currentTimeMillis();
+
+        pollTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+            if (!plugin.isShuttingDown()) {
+                poll();
+            }
+        }, pollIntervalTicks, pollIntervalTicks);
+
+        plugin.getLogger().info("Cross-server sync started as node " + changeLog.getNodeId());
+    }
+
+    /**
+     * Read new entries of other servers and refresh or release the affected players
+     */
+    void poll() {
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            List<ChangeLog.Entry> entries = changeLog.readSince(cursor, MAX_ENTRIES_PER_POLL);
+
+            Set<UUID> changed = new LinkedHashSet<>();
+            long settled = cursor;
+            boolean gap = false;
+
+            for (ChangeLog.Entry entry : entries) {
+                // The cursor only moves past entries old enough that nothing can still commit below them
+                if (!gap && entry.getCreatedAt() < now - COMMIT_GRACE_MS) {
+                    settled = entry.getSequence();
+                } else {
+                    gap = true;
+                }
+
+                if (!processed.add(entry.getSequence())) {
+                    continue;
+                }
+
+                switch (entry.getKind()) {
+                    case CHANGED:
+                        changed.add(entry.getPlayerId());
+                        break;
+                    case ACQUIRED:
+                        handleAcquired(entry.getPlayerId());
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            cursor = settled;
+            long settledCursor = settled;
+            processed.removeIf(sequence -> sequence <= settledCursor);
+
+            // Retry refreshes that were skipped because the session had unsaved changes
+            changed.addAll(pendingRefresh);
+            pendingRefresh.removeAll(changed);
+            for (UUID playerId : changed) {
+                refresh(playerId);
+            }
+
+            if (now - lastPrune >= PRUNE_INTERVAL_MS) {
+                lastPrune = now;
+                int pruned = changeLog.prune(now - retentionMs);
+                if (pruned > 0) {
+                    plugin.getLogger().fine("Pruned " + pruned + " change log entries");
+                }
+            }
+
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to poll the storage change log", e);
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Another server wrote the player: reload a cached session, drop derived caches
+     */
+    private void refresh(UUID playerId) {
+        if (!dataManager.isSessionCached(playerId)) {
+            invalidateCaches(playerId);
+            return;
+        }
+
+        dataManager.refreshSession(playerId).whenComplete((refreshed, throwable) -> {
+            if (throwable != null || !refreshed) {
+                pendingRefresh.add(playerId);
+                return;
+            }
+            invalidateCaches(playerId);
+        });
+    }
+
+    /**
+     * Another server started a session: hand over the player if they are no longer online here
+     */
+    private void handleAcquired(UUID playerId) {
+        if (dataManager.isSessionCached(playerId) && plugin.getServer().getPlayer(playerId) == null) {
+            dataManager.unloadPlayerSession(playerId);
+        }
+        invalidateCaches(playerId);
+    }
+
+    private void invalidateCaches(UUID playerId) {
+        if (plugin.getMilestoneManager() != null) {
+            plugin.getMilestoneManager().invalidatePlayer(playerId);
+        }
+        if (plugin.getLevelsHandler() != null) {
+            plugin.getLevelsHandler().clearCache(playerId);
+        }
+    }
+
+    /**
+     * Record that this server starts a session for the player. The future completes once the server that
+     * held the player before has flushed and released it, or the handoff timeout passed. Release checks run
+     * as delayed tasks on the database executor, so a waiting join does not hold a database thread.
+     */
+    CompletableFuture<Void> acquire(UUID playerId) {
+        long deadline = System.currentTimeMillis() + handoffTimeoutMs;
+
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        long sequence = changeLog.append(playerId, ChangeLog.Kind.ACQUIRED);
+                        ChangeLog.Entry owner = changeLog.findLastOwnership(playerId, sequence);
+                        if (owner == null || owner.getKind() != ChangeLog.Kind.ACQUIRED
+                                || owner.getNodeId().equals(changeLog.getNodeId())) {
+                            return null;
+                        }
+                        return owner;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, plugin.getDatabaseExecutor())
+                .thenCompose(owner -> {
+                    CompletableFuture<Void> released = new CompletableFuture<>();
+                    if (owner == null) {
+                        released.complete(null);
+                    } else {
+                        checkReleased(playerId, owner, deadline, released);
+                    }
+                    return released;
+                })
+                .exceptionally(throwable -> {
+                    plugin.getLogger().log(Level.WARNING, "Failed to acquire player " + playerId + " in the change log", throwable);
+                    return null;
+                });
+    }
+
+    /**
+     * Complete once the previous owner released the player, checking again after a short delay otherwise
+     */
+    private void checkReleased(UUID playerId, ChangeLog.Entry owner, long deadline, CompletableFuture<Void> released) {
+        try {
+            if (changeLog.isReleased(playerId, owner.getNodeId(), owner.getSequence())) {
+                released.complete(null);
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                plugin.getLogger().warning("Server " + owner.getNodeId() + " did not release player " + playerId
+                        + " within " + handoffTimeoutMs + "ms, loading the stored data as is");
+                released.complete(null);
+                return;
+            }
+
+            CompletableFuture.runAsync(() -> checkReleased(playerId, owner, deadline, released),
+                            CompletableFuture.delayedExecutor(HANDOFF_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS,
+                                    plugin.getDatabaseExecutor()))
+                    .exceptionally(throwable -> {
+                        // Executor shut down, load what is stored
+                        released.complete(null);
+                        return null;
+                    });
+
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to check the release of player " + playerId, e);
+            released.complete(null);
+        }
+    }
+
+    /**
+     * Record that this server has flushed and closed the player's session
+     */
+    void release(UUID playerId) {
+        try {
+            changeLog.append(playerId, ChangeLog.Kind.RELEASED);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to release player " + playerId + " in the change log", e);
+        }
+    }
+
+    /**
+     * Stop polling and release the given (already flushed) sessions
+     */
+    public void shutdown(Set<UUID> sessions) {
+        if (pollTask != null && !pollTask.isCancelled()) {
+            pollTask.cancel();
+        }
+
+        for (UUID playerId : sessions) {
+            release(playerId);
+        }
+        pendingRefresh.clear();
+    }
+
+    public String getNodeId() {
+        return changeLog.getNodeId();
+    }
+}
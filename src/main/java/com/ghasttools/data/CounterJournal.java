@@ -0,0 +1,573 @@
+package com.ghasttools.data;
+
+import com.ghasttools.GhastToolsPlugin;
+import org.bukkit.Material;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Local write-ahead journal of counter increments that are not in storage yet.
+ *
+ * PlayerData appends each increment (player, counter, delta) to an in-memory buffer, and a background
+ * thread writes and fsyncs the buffer on a short interval. Every delta gets a position; when a save has
+ * written a player's changes up to a position, a checkpoint record says so. Segment files are deleted
+ * oldest first once no unsaved deltas are left in them. On startup the deltas after each player's last
+ * checkpoint are replayed into storage.
+ *
+ * A crash after a save committed but before its checkpoint was synced replays that save's deltas again,
+ * so the sync interval bounds both the progress that can be lost and the progress that can be doubled.
+ */
+public class CounterJournal {
+
+    // Counter ids, milestone materials use MILESTONE_BASE + their id in the segment's material table
+    public static final int BLOCKS_BROKEN = 0;
+    public static final int XP_EARNED = 1;
+    public static final int ESSENCE_EARNED = 2;
+    public static final int METEORS_SPAWNED = 3;
+    public static final int AIRSTRIKES = 4;
+    private static final int MILESTONE_BASE = 1000;
+
+    // Record types
+    private static final byte LONG_DELTA = 1;
+    private static final byte DOUBLE_DELTA = 2;
+    private static final byte MATERIAL = 3;
+    private static final byte CHECKPOINT = 4;
+
+    // Configuration constants to avoid magic numbers
+    private static final int MAGIC = 0x47544A4C; // "GTJL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_RECORD_SIZE = 512;
+    private static final String SEGMENT_FORMAT = "journal-%06d.wal";
+    private static final long DEFAULT_SYNC_INTERVAL_MS = 100;
+    private static final long DEFAULT_SEGMENT_SIZE_KB = 4096;
+
+    private final GhastToolsPlugin plugin;
+    private final File directory;
+    private final long syncIntervalMs;
+    private final long segmentSizeBytes;
+
+    // Guarded by this: the buffer being filled and the bookkeeping of every segment
+    private ByteArrayOutputStream active = new ByteArrayOutputStream();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment current;
+    private long position;
+    private boolean rotateRequested;
+
+    // Guarded by ioLock: file writes, rotation and deletion
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private Segment channelSegment;
+
+    private volatile boolean running;
+    private Thread syncThread;
+
+    public CounterJournal(GhastToolsPlugin plugin, File directory, long syncIntervalMs, long segmentSizeKb) {
+        this.plugin = plugin;
+        this.directory = directory;
+        this.syncIntervalMs = syncIntervalMs > 0 ? syncIntervalMs : DEFAULT_SYNC_INTERVAL_MS;
+        this.segmentSizeBytes = (segmentSizeKb > 0 ? segmentSizeKb : DEFAULT_SEGMENT_SIZE_KB) * 1024L;
+    }
+
+    /**
+     * Read the existing segments and start a new one after them
+     * @return Deltas per player that were not saved before the last shutdown or crash
+     */
+    public synchronized Map<UUID, PendingDeltas> open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create journal directory " + directory);
+        }
+
+        Map<UUID, PendingDeltas> pending = new LinkedHashMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("journal-") && name.endsWith(".wal"));
+        TreeMap<Long, File> existing = new TreeMap<>();
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    existing.put(Long.parseLong(file.getName().substring(8, file.getName().length() - 4)), file);
+                } catch (NumberFormatException e) {
+                    plugin.getLogger().warning("Ignoring unexpected journal file " + file.getName());
+                }
+            }
+        }
+
+        long nextId = 1;
+        for (Map.Entry<Long, File> entry : existing.entrySet()) {
+            Segment segment = new Segment(entry.getKey(), entry.getValue());
+            readSegment(segment, pending);
+            segments.put(segment.id, segment);
+            nextId = segment.id + 1;
+        }
+
+        // Players whose deltas were all checkpointed have nothing to replay
+        pending.values().removeIf(PendingDeltas::isEmpty);
+        for (Segment segment : segments.values()) {
+            segment.unsaved.keySet().retainAll(pending.keySet());
+        }
+
+        current = new Segment(nextId, new File(directory, String.format(SEGMENT_FORMAT, nextId)));
+        current.startPosition = position + 1;
+        segments.put(current.id, current);
+        return pending;
+    }
+
+    private void readSegment(Segment segment, Map<UUID, PendingDeltas> pending) throws IOException {
+        Map<Integer, Material> materials = new HashMap<>();
+
+        try (InputStream stream = Files.newInputStream(segment.file.toPath());
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                plugin.getLogger().warning("Ignoring journal segment with unknown format: " + segment.file.getName());
+                return;
+            }
+            segment.startPosition = in.readLong();
+            position = Math.max(position, segment.startPosition - 1);
+
+            byte[] payload = new byte[MAX_RECORD_SIZE];
+            while (true) {
+                int length;
+                try {
+                    length = in.readUnsignedShort();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (length == 0 || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                try {
+                    in.readFully(payload, 0, length);
+                    int checksum = in.readInt();
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break; // Torn record at the end, written while the server went down
+                }
+
+                ByteBuffer record = ByteBuffer.wrap(payload, 0, length);
+                byte type = record.get();
+                if (type == MATERIAL) {
+                    int id = record.getInt();
+                    byte[] name = new byte[record.remaining()];
+                    record.get(name);
+                    Material material = Material.getMaterial(new String(name, StandardCharsets.UTF_8));
+                    if (material != null) {
+                        materials.put(id, material);
+                    }
+                    continue;
+                }
+
+                UUID playerId = new UUID(record.getLong(), record.getLong());
+                if (type == CHECKPOINT) {
+                    long savedPosition = record.getLong();
+                    PendingDeltas deltas = pending.get(playerId);
+                    if (deltas != null) {
+                        deltas.discardUpTo(savedPosition);
+                    }
+                    continue;
+                }
+
+                long deltaPosition = ++position;
+                int counter = record.getInt();
+                PendingDeltas deltas = pending.computeIfAbsent(playerId, PendingDeltas::new);
+                segment.unsaved.put(playerId, deltaPosition);
+
+                if (counter >= MILESTONE_BASE) {
+                    Material material = materials.get(counter - MILESTONE_BASE);
+                    if (material != null) {
+                        deltas.add(deltaPosition, counter, material, record.getLong());
+                    }
+                } else if (type == DOUBLE_DELTA) {
+                    deltas.add(deltaPosition, counter, null, record.getDouble());
+                } else {
+                    deltas.add(deltaPosition, counter, null, record.getLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Start the background thread that writes and fsyncs the journal
+     */
+    public void start() {
+        running = true;
+        syncThread = new Thread(this::runSync, "GhastTools-Journal-Sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    private void runSync() {
+        while (running) {
+            try {
+                Thread.sleep(syncIntervalMs);
+                sync();
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to sync the counter journal", e);
+            }
+        }
+    }
+
+    /**
+     * Record a whole-number increment; called by PlayerData while it holds its write lock
+     */
+    public synchronized void recordLong(UUID playerId, int counter, long delta) {
+        beginRecord(LONG_DELTA, playerId).putInt(counter).putLong(delta);
+        finishDelta(playerId);
+    }
+
+    public synchronized void recordDouble(UUID playerId, int counter, double delta) {
+        beginRecord(DOUBLE_DELTA, playerId).putInt(counter).putDouble(delta);
+        finishDelta(playerId);
+    }
+
+    public synchronized void recordMilestone(UUID playerId, Material material, long delta) {
+        Integer id = current.materialIds.get(material);
+        if (id == null) {
+            id = current.materialIds.size();
+            current.materialIds.put(material, id);
+
+            recordBuffer.clear();
+            recordBuffer.put(MATERIAL).putInt(id).put(material.name().getBytes(StandardCharsets.UTF_8));
+            finishRecord();
+        }
+
+        beginRecord(LONG_DELTA, playerId).putInt(MILESTONE_BASE + id).putLong(delta);
+        finishDelta(playerId);
+    }
+
+    /**
+     * @return Position of the last recorded delta
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * Mark the player's deltas up to the position as saved
+     */
+    public synchronized void checkpoint(UUID playerId, long savedPosition) {
+        boolean journaled = false;
+        for (Segment segment : segments.values()) {
+            Long last = segment.unsaved.get(playerId);
+            if (last != null) {
+                journaled = true;
+                if (last <= savedPosition) {
+                    segment.unsaved.remove(playerId);
+                }
+            }
+        }
+
+        // Also needed when newer deltas keep a segment unsaved, so a replay skips the saved ones
+        if (journaled) {
+            beginRecord(CHECKPOINT, playerId).putLong(savedPosition);
+            finishRecord();
+        }
+    }
+
+    private ByteBuffer beginRecord(byte type, UUID playerId) {
+        recordBuffer.clear();
+        return recordBuffer.put(type)
+                .putLong(playerId.getMostSignificantBits())
+                .putLong(playerId.getLeastSignificantBits());
+    }
+
+    private void finishDelta(UUID playerId) {
+        position++;
+        current.unsaved.put(playerId, position);
+        finishRecord();
+    }
+
+    private void finishRecord() {
+        int length = recordBuffer.position();
+        crc.reset();
+        crc.update(recordBuffer.array(), 0, length);
+
+        active.write(length >>> 8);
+        active.write(length);
+        active.write(recordBuffer.array(), 0, length);
+        int checksum = (int) crc.getValue();
+        active.write(checksum >>> 24);
+        active.write(checksum >>> 16);
+        active.write(checksum >>> 8);
+        active.write(checksum);
+    }
+
+    /**
+     * Write and fsync everything recorded so far, rotate a full segment and delete saved ones
+     */
+    public void sync() throws IOException {
+        synchronized (ioLock) {
+            byte[] bytes;
+            Segment target;
+            synchronized (this) {
+                bytes = active.toByteArray();
+                active = new ByteArrayOutputStream(Math.max(32, bytes.length));
+                target = current;
+
+                if (rotateRequested) {
+                    rotateRequested = false;
+                    current = new Segment(current.id + 1, new File(directory, String.format(SEGMENT_FORMAT, current.id + 1)));
+                    current.startPosition = position + 1;
+                    segments.put(current.id, current);
+                }
+            }
+
+            if (bytes.length > 0 || target != channelSegment) {
+                FileChannel targetChannel = channelFor(target);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    targetChannel.write(buffer);
+                }
+                targetChannel.force(false);
+
+                if (targetChannel.size() >= segmentSizeBytes) {
+                    synchronized (this) {
+                        rotateRequested = true;
+                    }
+                }
+            }
+
+            deleteSavedSegments();
+        }
+    }
+
+    /**
+     * Start a fresh segment once every delta has been saved, so the journal does not grow between flushes
+     */
+    public void truncateIfSaved() throws IOException {
+        synchronized (ioLock) {
+            synchronized (this) {
+                for (Segment segment : segments.values()) {
+                    if (!segment.unsaved.isEmpty()) {
+                        return;
+                    }
+                }
+                if (active.size() == 0 && (channelSegment == null
+                        || channelSegment == current && channel.size() <= HEADER_SIZE)) {
+                    return; // Nothing written since the last truncation
+                }
+                rotateRequested = true;
+            }
+            sync();
+            // The old segment (and everything it checkpointed) is gone, the new one only needs its header
+            sync();
+        }
+    }
+
+    private FileChannel channelFor(Segment segment) throws IOException {
+        if (segment == channelSegment) {
+            return channel;
+        }
+
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+
+        channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(segment.startPosition);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channelSegment = segment;
+        return channel;
+    }
+
+    /**
+     * Delete segments in order, up to the first one that still holds unsaved deltas. Later segments may
+     * hold the checkpoints of earlier ones, so they are never deleted first.
+     */
+    private void deleteSavedSegments() {
+        List<Segment> deletable = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Segment> iterator = segments.values().iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (segment == current || segment == channelSegment || !segment.unsaved.isEmpty()) {
+                    break;
+                }
+                iterator.remove();
+                deletable.add(segment);
+            }
+        }
+
+        for (Segment segment : deletable) {
+            try {
+                Files.deleteIfExists(segment.file.toPath());
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to delete journal segment " + segment.file.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Stop the sync thread, write what is left and delete the journal if everything was saved
+     */
+    public void close() {
+        running = false;
+        if (syncThread != null) {
+            syncThread.interrupt();
+            try {
+                syncThread.join(syncIntervalMs * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            truncateIfSaved();
+            sync();
+
+            synchronized (ioLock) {
+                boolean saved;
+                synchronized (this) {
+                    saved = segments.values().stream().allMatch(segment -> segment.unsaved.isEmpty());
+                }
+
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+                if (saved && channelSegment != null) {
+                    Files.deleteIfExists(channelSegment.file.toPath());
+                }
+                channelSegment = null;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close the counter journal", e);
+        }
+    }
+
+    /**
+     * @return Number of players with deltas that have not been saved yet
+     */
+    public synchronized int getUnsavedPlayerCount() {
+        Set<UUID> players = new HashSet<>();
+        for (Segment segment : segments.values()) {
+            players.addAll(segment.unsaved.keySet());
+        }
+        return players.size();
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final File file;
+        private long startPosition;
+        // Player -> position of their last delta in this segment, removed once a checkpoint covers it
+        private final Map<UUID, Long> unsaved = new HashMap<>();
+        private final Map<Material, Integer> materialIds = new HashMap<>();
+
+        private Segment(long id, File file) {
+            this.id = id;
+            this.file = file;
+        }
+    }
+
+    /**
+     * Deltas of one player found in the journal on startup
+     */
+    public static final class PendingDeltas {
+        private final UUID playerId;
+        private final List<Delta> deltas = new ArrayList<>();
+
+        private PendingDeltas(UUID playerId) {
+            this.playerId = playerId;
+        }
+
+        private void add(long position, int counter, Material material, double value) {
+            deltas.add(new Delta(position, counter, material, value));
+        }
+
+        private void discardUpTo(long savedPosition) {
+            deltas.removeIf(delta -> delta.position <= savedPosition);
+        }
+
+        private boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        /**
+         * Add the deltas to a player's data loaded from storage
+         */
+        public void applyTo(PlayerData data) {
+            for (Delta delta : deltas) {
+                switch (delta.counter) {
+                    case BLOCKS_BROKEN:
+                        data.addBlocksBroken((long) delta.value);
+                        break;
+                    case XP_EARNED:
+                        data.addXpEarned(delta.value);
+                        break;
+                    case ESSENCE_EARNED:
+                        data.addEssenceEarned(delta.value);
+                        break;
+                    case METEORS_SPAWNED:
+                        for (long i = 0; i < (long) delta.value; i++) {
+                            data.addMeteorSpawned();
+                        }
+                        break;
+                    case AIRSTRIKES:
+                        for (long i = 0; i < (long) delta.value; i++) {
+                            data.addAirstrike();
+                        }
+                        break;
+                    default:
+                        if (delta.material != null) {
+                            data.addMilestoneBlocksBroken(delta.material, (long) delta.value);
+                        }
+                        break;
+                }
+            }
+        }
+    }
+
+    private static final class Delta {
+        private final long position;
+        private final int counter;
+        private final Material material;
+        private final double value;
+
+        private Delta(long position, int counter, Material material, double value) {
+            this.position = position;
+            this.counter = counter;
+            this.material = material;
+            this.value = value;
+        }
+    }
+}
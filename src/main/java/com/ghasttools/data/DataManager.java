@@ -1,22 +1,76 @@
     package com.ghasttools.data;
 
     import com.ghasttools.GhastToolsPlugin;
+    import com.ghasttools.data.storage.ChangeLog;
+    import com.ghasttools.data.storage.LogStorage;
+    import com.ghasttools.data.storage.NetworkSqlStorage;
     import com.ghasttools.data.storage.SQLiteStorage;
+    import com.ghasttools.data.storage.SqlDialect;
     import com.ghasttools.data.storage.StorageProvider;
     import com.ghasttools.data.storage.YamlStorage;
     import org.bukkit.configuration.file.FileConfiguration;
+    import org.bukkit.entity.Player;
+    import org.bukkit.scheduler.BukkitTask;
 
+    import java.io.File;
+    import java.io.IOException;
+    import java.util.ArrayList;
+    import java.util.Collection;
+    import java.util.HashMap;
+    import java.util.LinkedHashMap;
+    import java.util.List;
+    import java.util.Map;
+    import java.util.Set;
     import java.util.UUID;
     import java.util.concurrent.CompletableFuture;
+    import java.util.concurrent.CompletionException;
+    import java.util.concurrent.ConcurrentHashMap;
+    import java.util.concurrent.RejectedExecutionException;
+    import java.util.concurrent.atomic.AtomicBoolean;
+    import java.util.function.Consumer;
     import java.util.logging.Level;
 
     /**
      * Manages data storage for the plugin
+     *
+     * Online players are kept in a write-behind session cache: loads are served from memory,
+     * saves only mark the entry dirty, and dirty entries are flushed on an interval, on quit and at shutdown.
+     * Storage reads and writes go through a per-player serial queue on the database executor, so two
+     * operations for the same player never overtake each other.
      */
     public class DataManager {
 
         private final GhastToolsPlugin plugin;
         private StorageProvider storageProvider;
+        private String storageType;
+        private final AtomicBoolean migrationRunning = new AtomicBoolean(false);
+
+        // Session cache for online players
+        private final ConcurrentHashMap<UUID, PlayerData> sessionCache = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<UUID, CompletableFuture<PlayerData>> pendingSessionLoads = new ConcurrentHashMap<>();
+        private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+        // Players whose session was loaded before login -> time the session may be dropped if they never join
+        private final ConcurrentHashMap<UUID, Long> expectedJoins = new ConcurrentHashMap<>();
+        private BukkitTask flushTask;
+
+        // Per-player ordered storage operations with a bounded queue
+        private KeyedSerialExecutor storageExecutor;
+        private volatile long lastBackpressureWarning;
+
+        // Cross-server invalidation and handoff, only with shared storage
+        private ClusterSync clusterSync;
+
+        // Local journal of counter increments that are not in storage yet
+        private CounterJournal journal;
+
+        // Configuration constants to avoid magic numbers
+        private static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 30;
+        private static final int DEFAULT_MIGRATION_THREADS = 4;
+        private static final int DEFAULT_MAX_QUEUED_OPERATIONS = 10000;
+        private static final long BACKPRESSURE_WARNING_INTERVAL_MS = 30000;
+        private static final long PREFETCH_EXPIRY_MS = 60000;
+        private static final long DEFAULT_JOURNAL_SYNC_INTERVAL_MS = 100;
+        private static final long DEFAULT_JOURNAL_SEGMENT_SIZE_KB = 4096;
 
         public DataManager(GhastToolsPlugin plugin) {
             this.plugin = plugin;
@@ -27,22 +81,16 @@
          */
         public void initialize() {
             FileConfiguration config = plugin.getConfigManager().getMainConfig();
-            String storageType = config.getString("storage.type", "sqlite").toLowerCase();
+            storageType = config.getString("storage.type", "sqlite").toLowerCase();
 
             plugin.getLogger().info("Initializing " + storageType.toUpperCase() + " storage...");
 
             try {
-                switch (storageType) {
-                    case "sqlite":
-                        storageProvider = new SQLiteStorage(plugin);
-                        break;
-                    case "yaml":
-                        storageProvider = new YamlStorage(plugin);
-                        break;
-                    default:
-                        plugin.getLogger().warning("Unknown storage type: " + storageType + ". Using SQLite as default.");
-                        storageProvider = new SQLiteStorage(plugin);
-                        break;
+                storageProvider = createStorageProvider(storageType);
+                if (storageProvider == null) {
+                    plugin.getLogger().warning("Unknown storage type: " + storageType + ". Using SQLite as default.");
+                    storageType = "sqlite";
+                    storageProvider = new SQLiteStorage(plugin);
                 }
 
                 storageProvider.initialize();
@@ -52,47 +100,584 @@
                 plugin.getLogger().log(Level.SEVERE, "Failed to initialize data storage!", e);
                 throw new RuntimeException("Data storage initialization failed", e);
             }
+
+            int maxQueued = config.getInt("storage.max_queued_operations", DEFAULT_MAX_QUEUED_OPERATIONS);
+            if (maxQueued <= 0) {
+                plugin.getLogger().warning("Invalid storage.max_queued_operations: " + maxQueued
+                        + ". Using default: " + DEFAULT_MAX_QUEUED_OPERATIONS);
+                maxQueued = DEFAULT_MAX_QUEUED_OPERATIONS;
+            }
+            storageExecutor = new KeyedSerialExecutor(plugin.getDatabaseExecutor(), maxQueued);
+
+            openJournal(config);
+            startFlushTask(config);
+            startClusterSync(config);
+
+            // Warm the session cache for players that are already online (plugin reloads)
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                loadPlayerSession(player.getUniqueId());
+            }
         }
 
         /**
-         * Save player data asynchronously
+         * Create an uninitialized storage provider for a storage type
+         * @return The provider, or null for an unknown type
          */
-        public CompletableFuture<Void> savePlayerData(UUID playerId, PlayerData data) {
-            return CompletableFuture.runAsync(() -> {
+        private StorageProvider createStorageProvider(String type) {
+            switch (type) {
+                case "sqlite":
+                    return new SQLiteStorage(plugin);
+                case "yaml":
+                    return new YamlStorage(plugin);
+                case "log":
+                    return new LogStorage(plugin);
+                default:
+                    SqlDialect dialect = SqlDialect.fromStorageType(type);
+                    return dialect != null ? new NetworkSqlStorage(plugin, dialect) : null;
+            }
+        }
+
+        /**
+         * Open the counter journal and write increments left over from a crash to storage
+         */
+        private void openJournal(FileConfiguration config) {
+            if (!config.getBoolean("storage.journal.enabled", true)) {
+                return;
+            }
+
+            long syncIntervalMs = config.getLong("storage.journal.sync_interval_ms", DEFAULT_JOURNAL_SYNC_INTERVAL_MS);
+            if (syncIntervalMs <= 0) {
+                plugin.getLogger().warning("Invalid storage.journal.sync_interval_ms: " + syncIntervalMs
+                        + ". Using default: " + DEFAULT_JOURNAL_SYNC_INTERVAL_MS);
+                syncIntervalMs = DEFAULT_JOURNAL_SYNC_INTERVAL_MS;
+            }
+            long segmentSizeKb = config.getLong("storage.journal.segment_size_kb", DEFAULT_JOURNAL_SEGMENT_SIZE_KB);
+            if (segmentSizeKb <= 0) {
+                plugin.getLogger().warning("Invalid storage.journal.segment_size_kb: " + segmentSizeKb
+                        + ". Using default: " + DEFAULT_JOURNAL_SEGMENT_SIZE_KB);
+                segmentSizeKb = DEFAULT_JOURNAL_SEGMENT_SIZE_KB;
+            }
+
+            CounterJournal opened = new CounterJournal(plugin, new File(plugin.getDataFolder(), "journal"),
+                    syncIntervalMs, segmentSizeKb);
+            Map<UUID, CounterJournal.PendingDeltas> pending;
+            try {
+                pending = opened.open();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to open the counter journal, counters are only saved on flush", e);
+                return;
+            }
+
+            if (!pending.isEmpty()) {
+                replayJournal(opened, pending);
+            }
+            opened.start();
+            journal = opened;
+        }
+
+        /**
+         * Add journaled increments that never reached storage to the stored data
+         */
+        private void replayJournal(CounterJournal opened, Map<UUID, CounterJournal.PendingDeltas> pending) {
+            plugin.getLogger().info("Replaying unsaved counters of " + pending.size() + " players from the journal...");
+
+            long replayedPosition = opened.getPosition();
+            int replayed = 0;
+            for (CounterJournal.PendingDeltas deltas : pending.values()) {
+                UUID playerId = deltas.getPlayerId();
                 try {
+                    PlayerData data = storageProvider.loadPlayerData(playerId);
+                    deltas.applyTo(data);
                     storageProvider.savePlayerData(playerId, data);
+                    opened.checkpoint(playerId, replayedPosition);
+                    replayed++;
                 } catch (Exception e) {
-                    plugin.getLogger().log(Level.SEVERE, "Failed to save player data for " + playerId, e);
+                    // Left in the journal, the next start tries again
+                    plugin.getLogger().log(Level.WARNING, "Failed to replay journaled counters for " + playerId, e);
                 }
-            });
+            }
+
+            try {
+                opened.sync();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to sync the counter journal after replay", e);
+            }
+            plugin.getLogger().info("Replayed journaled counters of " + replayed + "/" + pending.size() + " players.");
+        }
+
+        /**
+         * Journal the counter increments of a session from now on
+         */
+        private PlayerData track(PlayerData data) {
+            CounterJournal current = journal;
+            if (current != null && data != null) {
+                data.attachJournal(current);
+            }
+            return data;
+        }
+
+        /**
+         * Start polling the change log when the storage is shared with other servers
+         */
+        private void startClusterSync(FileConfiguration config) {
+            if (!(storageProvider instanceof ChangeLog changeLog) || !changeLog.isChangeLogEnabled()) {
+                return;
+            }
+
+            try {
+                clusterSync = new ClusterSync(plugin, this, changeLog, config);
+                clusterSync.start();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to start cross-server sync, cached player data will not be refreshed", e);
+                clusterSync = null;
+            }
+        }
+
+        /**
+         * Start the periodic write-behind flush task
+         */
+        private void startFlushTask(FileConfiguration config) {
+            if (flushTask != null && !flushTask.isCancelled()) {
+                flushTask.cancel();
+            }
+
+            int intervalSeconds = config.getInt("storage.flush_interval_seconds", DEFAULT_FLUSH_INTERVAL_SECONDS);
+            if (intervalSeconds <= 0) {
+                plugin.getLogger().warning("Invalid storage.flush_interval_seconds: " + intervalSeconds
+                        + ". Using default: " + DEFAULT_FLUSH_INTERVAL_SECONDS);
+                intervalSeconds = DEFAULT_FLUSH_INTERVAL_SECONDS;
+            }
+
+            long intervalTicks = intervalSeconds * 20L;
+            flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+                if (!plugin.isShuttingDown()) {
+                    flushDirtyPlayers();
+                }
+            }, intervalTicks, intervalTicks);
         }
 
         /**
-         * Load player data asynchronously
+         * Save player data asynchronously.
+         * Players with a cached session are only marked dirty and written by the next flush.
+         * Saving a detached copy of a cached player adds its increments to the session instead of replacing it.
+         */
+        public CompletableFuture<Void> savePlayerData(UUID playerId, PlayerData data) {
+            PlayerData cached = sessionCache.get(playerId);
+            if (cached != null && data != null) {
+                if (cached != data) {
+                    // Caller worked on a detached copy; the session stays live and takes over its increments
+                    cached.addIncrements(data.captureChanges());
+                }
+                dirtyPlayers.add(playerId);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return queueSave(playerId, data);
+        }
+
+        /**
+         * Load player data asynchronously.
+         * Cached sessions (and sessions still being loaded) are returned without touching storage.
          */
         public CompletableFuture<PlayerData> loadPlayerData(UUID playerId) {
+            PlayerData cached = sessionCache.get(playerId);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            CompletableFuture<PlayerData> pending = pendingSessionLoads.get(playerId);
+            if (pending != null) {
+                return pending;
+            }
+
+            return storageExecutor.submit(playerId, () -> CompletableFuture.completedFuture(loadOrCreate(playerId)))
+                    .whenComplete((data, throwable) -> {
+                        if (throwable instanceof RejectedExecutionException) {
+                            warnBackpressure();
+                        }
+                    });
+        }
+
+        /**
+         * Load many players at once (leaderboards, stats, admin commands).
+         * Cached sessions are served from memory, the other players are read from storage together in a
+         * few queries. Meant for read-only views: the storage read does not wait for queued saves of
+         * players without a session.
+         * @return Data per requested player, in request order
+         */
+        public CompletableFuture<Map<UUID, PlayerData>> loadPlayerData(Collection<UUID> playerIds) {
+            Map<UUID, PlayerData> players = new LinkedHashMap<>();
+            List<UUID> uncached = new ArrayList<>();
+            for (UUID playerId : playerIds) {
+                PlayerData cached = sessionCache.get(playerId);
+                players.put(playerId, cached);
+                if (cached == null) {
+                    uncached.add(playerId);
+                }
+            }
+
+            if (uncached.isEmpty()) {
+                return CompletableFuture.completedFuture(players);
+            }
+
             return CompletableFuture.supplyAsync(() -> {
                 try {
-                    return storageProvider.loadPlayerData(playerId);
+                    storageProvider.loadPlayerData(uncached).forEach(players::put);
                 } catch (Exception e) {
-                    plugin.getLogger().log(Level.SEVERE, "Failed to load player data for " + playerId, e);
-                    return new PlayerData(playerId);
+                    throw new CompletionException(e);
+                }
+                return players;
+            }, plugin.getDatabaseExecutor());
+        }
+
+        /**
+         * Load a player's data into the session cache (called on join)
+         */
+        public CompletableFuture<PlayerData> loadPlayerSession(UUID playerId) {
+            PlayerData cached = sessionCache.get(playerId);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            CompletableFuture<PlayerData> future = new CompletableFuture<>();
+            CompletableFuture<PlayerData> pending = pendingSessionLoads.putIfAbsent(playerId, future);
+            if (pending != null) {
+                return pending;
+            }
+
+            storageExecutor.submit(playerId, () -> loadSessionFromStorage(playerId))
+                    .whenComplete((loaded, throwable) -> {
+                        if (throwable != null) {
+                            if (throwable instanceof RejectedExecutionException) {
+                                warnBackpressure();
+                            }
+                            pendingSessionLoads.remove(playerId, future);
+                            future.completeExceptionally(throwable);
+                            return;
+                        }
+
+                        PlayerData result = loaded;
+
+                        // Player may have quit (or never joined after a prefetch) while the load was running
+                        if (isExpectedOnline(playerId)) {
+                            PlayerData existing = sessionCache.putIfAbsent(playerId, track(result));
+                            if (existing != null) {
+                                result = existing;
+                            }
+                        } else if (clusterSync != null) {
+                            releaseSession(playerId);
+                        }
+
+                        pendingSessionLoads.remove(playerId, future);
+                        future.complete(result);
+                    });
+
+            return future;
+        }
+
+        /**
+         * Load a player's session before they join (called on pre-login, off the main thread).
+         * The session stays cached until the player joins or the prefetch expires.
+         */
+        public CompletableFuture<PlayerData> prefetchPlayerSession(UUID playerId) {
+            expectedJoins.put(playerId, System.currentTimeMillis() + PREFETCH_EXPIRY_MS);
+            return loadPlayerSession(playerId).whenComplete((data, throwable) -> {
+                if (throwable != null) {
+                    expectedJoins.remove(playerId);
                 }
             });
         }
 
+        /**
+         * The prefetched player has joined, their session now lives as long as they are online
+         */
+        public void completePrefetch(UUID playerId) {
+            expectedJoins.remove(playerId);
+        }
+
+        /**
+         * The login of a prefetched player was denied, drop the session again
+         */
+        public void cancelPrefetch(UUID playerId) {
+            if (expectedJoins.remove(playerId) != null && plugin.getServer().getPlayer(playerId) == null) {
+                unloadPlayerSession(playerId);
+            }
+        }
+
+        private boolean isExpectedOnline(UUID playerId) {
+            if (plugin.getServer().getPlayer(playerId) != null) {
+                return true;
+            }
+            Long expiry = expectedJoins.get(playerId);
+            return expiry != null && expiry > System.currentTimeMillis();
+        }
+
+        /**
+         * Flush and evict a player's session (called on quit)
+         */
+        public CompletableFuture<Void> unloadPlayerSession(UUID playerId) {
+            PlayerData data = sessionCache.remove(playerId);
+            boolean dirty = dirtyPlayers.remove(playerId);
+
+            CompletableFuture<Void> saved = data == null || !dirty
+                    ? CompletableFuture.completedFuture(null)
+                    : queueSave(playerId, data);
+
+            if (data == null || clusterSync == null) {
+                return saved;
+            }
+
+            // Queued behind the save, so other servers only load the player once it is written
+            return CompletableFuture.allOf(saved, releaseSession(playerId));
+        }
+
+        /**
+         * Tell other servers this server no longer holds the player, unless the session came back meanwhile
+         */
+        private CompletableFuture<Void> releaseSession(UUID playerId) {
+            return storageExecutor.submit(playerId, () -> {
+                        ClusterSync sync = clusterSync;
+                        if (sync != null && !sessionCache.containsKey(playerId)) {
+                            sync.release(playerId);
+                        }
+                        return CompletableFuture.<Void>completedFuture(null);
+                    })
+                    .exceptionally(throwable -> {
+                        plugin.getLogger().log(Level.WARNING, "Failed to release player " + playerId, throwable);
+                        return null;
+                    });
+        }
+
+        /**
+         * Replace a cached session with the stored data after another server wrote the player.
+         * Unsaved changes of this server are written first so the reloaded data includes them.
+         * @return False if the session could not be replaced and should be refreshed again later
+         */
+        public CompletableFuture<Boolean> refreshSession(UUID playerId) {
+            return storageExecutor.submit(playerId, () -> {
+                PlayerData current = sessionCache.get(playerId);
+                if (current == null) {
+                    return CompletableFuture.completedFuture(true);
+                }
+
+                CompletableFuture<Void> flushed = dirtyPlayers.remove(playerId)
+                        ? saveAndCheckpoint(playerId, current)
+                        : CompletableFuture.completedFuture(null);
+
+                return flushed.handleAsync((ignored, throwable) -> {
+                    if (throwable != null) {
+                        dirtyPlayers.add(playerId);
+                        return false;
+                    }
+                    return reloadSession(playerId, current);
+                }, plugin.getDatabaseExecutor());
+            });
+        }
+
+        private boolean reloadSession(UUID playerId, PlayerData current) {
+            PlayerData fresh;
+            try {
+                fresh = storageProvider.loadPlayerData(playerId);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to refresh player data for " + playerId, e);
+                return false;
+            }
+
+            // Changes made while reloading would be lost by the swap
+            if (dirtyPlayers.contains(playerId)) {
+                return false;
+            }
+            return sessionCache.replace(playerId, current, track(fresh)) || !sessionCache.containsKey(playerId);
+        }
+
+        /**
+         * Queue a save behind the player's earlier storage operations.
+         * A save of the same data that has not started yet is shared; it captures the changes when it runs.
+         * Saves of another copy are queued behind it, so no copy's changes are dropped.
+         */
+        private CompletableFuture<Void> submitSave(UUID playerId, PlayerData data) {
+            return storageExecutor.submitCoalescing(playerId, data, value -> saveAndCheckpoint(playerId, value));
+        }
+
+        /**
+         * Write a player and mark their journaled increments up to the written changes as saved
+         */
+        private CompletableFuture<Void> saveAndCheckpoint(UUID playerId, PlayerData data) {
+            CompletableFuture<Void> saved = storageProvider.queuePlayerSave(playerId, data);
+            CounterJournal current = journal;
+            if (current == null) {
+                return saved;
+            }
+            return saved.thenRun(() -> current.checkpoint(playerId, data.getJournalPosition()));
+        }
+
+        /**
+         * Save off the calling thread; saves rejected by a full queue are parked in the session cache for the next flush
+         */
+        private CompletableFuture<Void> queueSave(UUID playerId, PlayerData data) {
+            return submitSave(playerId, data)
+                    .exceptionally(throwable -> {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                                ? throwable.getCause() : throwable;
+                        if (cause instanceof RejectedExecutionException) {
+                            warnBackpressure();
+                            sessionCache.putIfAbsent(playerId, track(data));
+                            dirtyPlayers.add(playerId);
+                        } else {
+                            plugin.getLogger().log(Level.SEVERE, "Failed to save player data for " + playerId, throwable);
+                        }
+                        return null;
+                    });
+        }
+
+        /**
+         * Log that storage is falling behind, at most once per interval
+         */
+        private void warnBackpressure() {
+            long now = System.currentTimeMillis();
+            if (now - lastBackpressureWarning < BACKPRESSURE_WARNING_INTERVAL_MS) {
+                return;
+            }
+            lastBackpressureWarning = now;
+
+            plugin.getLogger().warning("Storage is falling behind: " + storageExecutor.getQueueDepth() + "/"
+                    + storageExecutor.getMaxQueued() + " operations queued, " + storageExecutor.getRejectedCount()
+                    + " rejected so far");
+        }
+
+        /**
+         * Write every dirty cached session to storage.
+         * All saves are queued first so batching providers can group them, then awaited.
+         * @return Number of sessions written
+         */
+        public int flushDirtyPlayers() {
+            Map<UUID, CompletableFuture<Void>> queued = new HashMap<>();
+
+            for (UUID playerId : new ArrayList<>(dirtyPlayers)) {
+                if (!dirtyPlayers.remove(playerId)) {
+                    continue;
+                }
+
+                PlayerData data = sessionCache.get(playerId);
+                if (data == null) {
+                    continue;
+                }
+
+                queued.put(playerId, submitSave(playerId, data));
+            }
+
+            int flushed = 0;
+            for (Map.Entry<UUID, CompletableFuture<Void>> entry : queued.entrySet()) {
+                try {
+                    entry.getValue().join();
+                    flushed++;
+                } catch (Exception e) {
+                    // Keep it dirty so the next flush retries
+                    dirtyPlayers.add(entry.getKey());
+                    if (e.getCause() instanceof RejectedExecutionException) {
+                        warnBackpressure();
+                    } else {
+                        plugin.getLogger().log(Level.WARNING, "Failed to flush player data for " + entry.getKey(), e);
+                    }
+                }
+            }
+
+            // Everything journaled so far may be saved now, start the journal over
+            if (journal != null && !queued.isEmpty()) {
+                try {
+                    journal.truncateIfSaved();
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to truncate the counter journal", e);
+                }
+            }
+
+            return flushed;
+        }
+
+        /**
+         * Evict sessions of players that are no longer online (missed quit events)
+         */
+        public void evictOfflineSessions() {
+            long now = System.currentTimeMillis();
+            expectedJoins.values().removeIf(expiry -> expiry <= now);
+
+            List<UUID> offline = new ArrayList<>();
+            for (UUID playerId : sessionCache.keySet()) {
+                if (!isExpectedOnline(playerId)) {
+                    offline.add(playerId);
+                }
+            }
+
+            for (UUID playerId : offline) {
+                unloadPlayerSession(playerId);
+            }
+        }
+
+        /**
+         * Check if a player's data is currently held in the session cache
+         */
+        public boolean isSessionCached(UUID playerId) {
+            return sessionCache.containsKey(playerId);
+        }
+
+        public int getCachedSessionCount() {
+            return sessionCache.size();
+        }
+
+        public int getDirtySessionCount() {
+            return dirtyPlayers.size();
+        }
+
+        /**
+         * Load a joining player's data, after the server that held them before has handed them over
+         */
+        private CompletableFuture<PlayerData> loadSessionFromStorage(UUID playerId) {
+            ClusterSync sync = clusterSync;
+            if (sync == null) {
+                return CompletableFuture.completedFuture(loadFromStorage(playerId));
+            }
+            // The player's queue waits for the handoff, the database threads do not
+            return sync.acquire(playerId).thenApplyAsync(ignored -> loadFromStorage(playerId), plugin.getDatabaseExecutor());
+        }
+
+        /**
+         * Read a player from storage. A failed read is thrown instead of returning empty data,
+         * which would be cached and written over the stored player on the next flush.
+         */
+        private PlayerData loadFromStorage(UUID playerId) {
+            try {
+                return storageProvider.loadPlayerData(playerId);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to load player data for " + playerId, e);
+                throw new CompletionException(e);
+            }
+        }
+
+        /**
+         * Read a player that is not cached, with empty data if the read fails
+         */
+        private PlayerData loadOrCreate(UUID playerId) {
+            try {
+                return loadFromStorage(playerId);
+            } catch (CompletionException e) {
+                return new PlayerData(playerId);
+            }
+        }
+
         /**
          * Clean up old player data
          */
         public CompletableFuture<Integer> cleanupOldData(int daysOffline) {
             return CompletableFuture.supplyAsync(() -> {
                 try {
+                    // Persist fresh lastSeen values of online players first
+                    flushDirtyPlayers();
                     return storageProvider.cleanupOldData(daysOffline);
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.SEVERE, "Failed to cleanup old data", e);
                     return 0;
                 }
-            });
+            }, plugin.getAdminExecutor());
         }
 
         /**
@@ -101,12 +686,13 @@
         public CompletableFuture<Boolean> exportData(String fileName) {
             return CompletableFuture.supplyAsync(() -> {
                 try {
+                    flushDirtyPlayers();
                     return storageProvider.exportData(fileName);
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.SEVERE, "Failed to export data", e);
                     return false;
                 }
-            });
+            }, plugin.getAdminExecutor());
         }
 
         /**
@@ -115,19 +701,139 @@
         public CompletableFuture<Boolean> importData(String fileName) {
             return CompletableFuture.supplyAsync(() -> {
                 try {
-                    return storageProvider.importData(fileName);
+                    flushDirtyPlayers();
+                    boolean imported = storageProvider.importData(fileName);
+                    if (imported) {
+                        refreshCachedSessions();
+                    }
+                    return imported;
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.SEVERE, "Failed to import data", e);
                     return false;
                 }
-            });
+            }, plugin.getAdminExecutor());
+        }
+
+        /**
+         * Copy all players from another storage type into the active storage
+         * @param sourceType Storage type to read from (yaml, sqlite, log or a network database type)
+         * @param progress Receives progress messages
+         * @return Number of players migrated
+         */
+        public CompletableFuture<Integer> migrateData(String sourceType, Consumer<String> progress) {
+            String type = sourceType.toLowerCase();
+            if (type.equals(storageType)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Data is already stored in " + type + " storage"));
+            }
+
+            StorageProvider source = createStorageProvider(type);
+            if (source == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown storage type: " + sourceType));
+            }
+
+            if (!migrationRunning.compareAndSet(false, true)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("A data migration is already running"));
+            }
+
+            int threads = plugin.getConfigManager().getMainConfig().getInt("storage.migration_threads", DEFAULT_MIGRATION_THREADS);
+            if (threads <= 0) {
+                threads = DEFAULT_MIGRATION_THREADS;
+            }
+            int migrationThreads = threads;
+
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    source.initialize();
+                    flushDirtyPlayers();
+
+                    int migrated = new StorageMigrator(plugin, source, type, storageProvider, storageType,
+                            migrationThreads, progress).migrate();
+
+                    refreshCachedSessions();
+                    return migrated;
+
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to migrate data from " + type + " storage", e);
+                    throw new CompletionException(e);
+                } finally {
+                    try {
+                        source.shutdown();
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.WARNING, "Error shutting down " + type + " storage", e);
+                    }
+                    migrationRunning.set(false);
+                }
+            }, plugin.getAdminExecutor());
+        }
+
+        /**
+         * Reload cached sessions from storage so imported data replaces what online players had in memory.
+         * Each reload is queued behind the player's storage operations; increments made on the old session
+         * since the flush before the import are carried over to the reloaded one.
+         */
+        private void refreshCachedSessions() {
+            List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+            for (UUID playerId : new ArrayList<>(sessionCache.keySet())) {
+                refreshes.add(storageExecutor.submit(playerId, () -> {
+                    try {
+                        replaceSession(playerId, track(loadFromStorage(playerId)));
+                    } catch (CompletionException e) {
+                        // Already logged, the player keeps the session they have
+                    }
+                    return CompletableFuture.<Void>completedFuture(null);
+                }));
+            }
+            CompletableFuture.allOf(refreshes.toArray(new CompletableFuture[0])).join();
+        }
+
+        private void replaceSession(UUID playerId, PlayerData fresh) {
+            PlayerData current = sessionCache.get(playerId);
+            if (current == null || !sessionCache.replace(playerId, current, fresh)) {
+                return;
+            }
+
+            // Swapped first, so new increments already go to the reloaded session
+            PlayerData.Changes changes = current.captureChanges();
+            if (fresh.addIncrements(changes)) {
+                dirtyPlayers.add(playerId);
+            } else {
+                dirtyPlayers.remove(playerId);
+            }
+
+            // The carried over increments are journaled again for the new session
+            CounterJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.checkpoint(playerId, current.getJournalPosition());
+            }
         }
 
         /**
          * Shutdown the storage system
          */
         public void shutdown() {
+            if (flushTask != null && !flushTask.isCancelled()) {
+                flushTask.cancel();
+            }
+
             if (storageProvider != null) {
+                // Flush the write-behind cache before the storage goes away
+                int flushed = flushDirtyPlayers();
+                if (flushed > 0) {
+                    plugin.getLogger().info("Flushed " + flushed + " cached player sessions.");
+                }
+
+                // Everything is written, other servers may load these players now
+                if (clusterSync != null) {
+                    clusterSync.shutdown(sessionCache.keySet());
+                    clusterSync = null;
+                }
+
+                // Deleted if every increment was flushed, otherwise replayed on the next start
+                if (journal != null) {
+                    journal.close();
+                    journal = null;
+                }
+
                 try {
                     storageProvider.shutdown();
                     plugin.getLogger().info("Data storage shutdown complete.");
@@ -135,9 +841,21 @@
                     plugin.getLogger().log(Level.SEVERE, "Error during storage shutdown", e);
                 }
             }
+
+            sessionCache.clear();
+            pendingSessionLoads.clear();
+            expectedJoins.clear();
+            dirtyPlayers.clear();
         }
 
         public StorageProvider getStorageProvider() {
             return storageProvider;
         }
-    }
\ No newline at end of file
+
+        /**
+         * Queue depth, rejection and coalescing metrics of the storage queue
+         */
+        public KeyedSerialExecutor getStorageExecutor() {
+            return storageExecutor;
+        }
+    }
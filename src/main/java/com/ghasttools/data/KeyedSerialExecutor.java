@@ -0,0 +1,224 @@
+package com.ghasttools.data;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs storage operations in submission order per player, and for different players in parallel.
+ *
+ * Each task returns a future and the next task for the same player only starts once it completes,
+ * so a save that hands off to a batch writer still blocks a later load of that player. Queued tasks are
+ * bounded across all players; when the bound is hit new tasks fail with a RejectedExecutionException.
+ * Coalescing submissions of the same value share a not yet started task for the same player instead of
+ * queueing another one.
+ */
+public class KeyedSerialExecutor {
+
+    private final Executor executor;
+    private final int maxQueued;
+    private final ConcurrentHashMap<UUID, SerialQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Coalesced<?, ?>> coalescing = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    public KeyedSerialExecutor(Executor executor, int maxQueued) {
+        this.executor = executor;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Queue a task behind earlier tasks for the same player
+     */
+    public <T> CompletableFuture<T> submit(UUID key, Supplier<CompletableFuture<T>> task) {
+        if (!reserve()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Storage queue is full (" + maxQueued + " operations pending)"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            queued.decrementAndGet();
+            CompletableFuture<T> future;
+            try {
+                future = task.get();
+            } catch (Throwable t) {
+                future = CompletableFuture.failedFuture(t);
+            }
+            future.whenComplete((value, throwable) -> {
+                completed.increment();
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        enqueue(key, start, result);
+        return result;
+    }
+
+    /**
+     * Queue a task, or join a task for the same player and the same value that has not started yet.
+     * A different value is never dropped: it is queued behind the pending task.
+     */
+    @SuppressWarnings("unchecked")
+    public <V, T> CompletableFuture<T> submitCoalescing(UUID key, V value, Function<V, CompletableFuture<T>> action) {
+        while (true) {
+            Coalesced<V, T> pending = (Coalesced<V, T>) coalescing.get(key);
+            if (pending != null) {
+                synchronized (pending) {
+                    if (!pending.started && pending.value == value) {
+                        coalesced.increment();
+                        return pending.future;
+                    }
+                }
+            }
+
+            // Nothing to join, or the pending task already runs or holds another value: queue a new one
+            Coalesced<V, T> created = new Coalesced<>(value);
+            boolean registered = pending == null
+                    ? coalescing.putIfAbsent(key, created) == null
+                    : coalescing.replace(key, pending, created);
+            if (!registered) {
+                continue;
+            }
+
+            CompletableFuture<T> future = submit(key, () -> {
+                synchronized (created) {
+                    created.started = true;
+                }
+                coalescing.remove(key, created);
+                return action.apply(value);
+            });
+
+            if (future.isCompletedExceptionally()) {
+                coalescing.remove(key, created);
+            }
+
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    created.future.completeExceptionally(throwable);
+                } else {
+                    created.future.complete(result);
+                }
+            });
+            return created.future;
+        }
+    }
+
+    private boolean reserve() {
+        while (true) {
+            int current = queued.get();
+            if (current >= maxQueued) {
+                rejected.increment();
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                peakQueued.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    private void enqueue(UUID key, Runnable start, CompletableFuture<?> result) {
+        while (true) {
+            SerialQueue queue = queues.computeIfAbsent(key, k -> new SerialQueue());
+            synchronized (queue) {
+                if (queue.retired) {
+                    // Emptied and removed after we looked it up; a fresh queue keeps the order
+                    continue;
+                }
+
+                queue.tasks.add(() -> {
+                    start.run();
+                    result.whenComplete((value, throwable) -> next(key, queue));
+                });
+                if (queue.running) {
+                    return;
+                }
+                queue.running = true;
+            }
+            next(key, queue);
+            return;
+        }
+    }
+
+    /**
+     * Start the next task of a player, or retire the queue when it is empty
+     */
+    private void next(UUID key, SerialQueue queue) {
+        Runnable task;
+        synchronized (queue) {
+            task = queue.tasks.poll();
+            if (task == null) {
+                queue.running = false;
+                queue.retired = true;
+                queues.remove(key, queue);
+                return;
+            }
+        }
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Executor is shutting down, finish the work on this thread
+            task.run();
+        }
+    }
+
+    /**
+     * Number of tasks waiting to start
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueued.get();
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    private static final class SerialQueue {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+    }
+
+    private static final class Coalesced<V, T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final V value;
+        private boolean started;
+
+        private Coalesced(V value) {
+            this.value = value;
+        }
+    }
+}
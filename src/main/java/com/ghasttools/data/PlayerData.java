@@ -4,7 +4,9 @@ import com.ghasttools.milestones.MilestoneData;
 import org.bukkit.Material;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -36,6 +38,21 @@ public class PlayerData {
     // Milestone data support
     private volatile MilestoneData milestoneData;
 
+    // Change tracking for delta persistence (guarded by lock)
+    private long pendingBlocksBroken;
+    private double pendingXpEarned;
+    private double pendingEssenceEarned;
+    private int pendingMeteorsSpawned;
+    private int pendingAirstrikes;
+    private boolean countersOverwritten;
+    private final Map<String, Integer> pendingToolUsage = new HashMap<>();
+    private final Map<String, Long> pendingEnchantmentUsage = new HashMap<>();
+    private final Set<String> dirtyCooldowns = new HashSet<>();
+
+    // Local journal of counter increments, and its position at the last capture (guarded by lock)
+    private volatile CounterJournal journal;
+    private long journalPosition;
+
     public PlayerData(UUID playerId) {
         this.playerId = playerId;
         this.totalBlocksBroken = 0;
@@ -64,8 +81,14 @@ public class PlayerData {
     }
 
     public void setTotalBlocksBroken(long totalBlocksBroken) {
-        this.totalBlocksBroken = Math.max(0, totalBlocksBroken);
-        updateLastSeen();
+        lock.writeLock().lock();
+        try {
+            this.totalBlocksBroken = Math.max(0, totalBlocksBroken);
+            this.countersOverwritten = true;
+            updateLastSeen();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void addBlocksBroken(long blocks) {
@@ -73,6 +96,10 @@ public class PlayerData {
             lock.writeLock().lock();
             try {
                 this.totalBlocksBroken += blocks;
+                this.pendingBlocksBroken += blocks;
+                if (journal != null) {
+                    journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, blocks);
+                }
                 updateLastSeen();
             } finally {
                 lock.writeLock().unlock();
@@ -85,8 +112,14 @@ public class PlayerData {
     }
 
     public void setTotalXpEarned(double totalXpEarned) {
-        this.totalXpEarned = Math.max(0.0, totalXpEarned);
-        updateLastSeen();
+        lock.writeLock().lock();
+        try {
+            this.totalXpEarned = Math.max(0.0, totalXpEarned);
+            this.countersOverwritten = true;
+            updateLastSeen();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void addXpEarned(double xp) {
@@ -94,6 +127,10 @@ public class PlayerData {
             lock.writeLock().lock();
             try {
                 this.totalXpEarned += xp;
+                this.pendingXpEarned += xp;
+                if (journal != null) {
+                    journal.recordDouble(playerId, CounterJournal.XP_EARNED, xp);
+                }
                 updateLastSeen();
             } finally {
                 lock.writeLock().unlock();
@@ -106,8 +143,14 @@ public class PlayerData {
     }
 
     public void setTotalEssenceEarned(double totalEssenceEarned) {
-        this.totalEssenceEarned = Math.max(0.0, totalEssenceEarned);
-        updateLastSeen();
+        lock.writeLock().lock();
+        try {
+            this.totalEssenceEarned = Math.max(0.0, totalEssenceEarned);
+            this.countersOverwritten = true;
+            updateLastSeen();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void addEssenceEarned(double essence) {
@@ -115,6 +158,10 @@ public class PlayerData {
             lock.writeLock().lock();
             try {
                 this.totalEssenceEarned += essence;
+                this.pendingEssenceEarned += essence;
+                if (journal != null) {
+                    journal.recordDouble(playerId, CounterJournal.ESSENCE_EARNED, essence);
+                }
                 updateLastSeen();
             } finally {
                 lock.writeLock().unlock();
@@ -136,14 +183,24 @@ public class PlayerData {
     }
 
     public void setTotalMeteorsSpawned(int totalMeteorsSpawned) {
-        this.totalMeteorsSpawned = Math.max(0, totalMeteorsSpawned);
-        updateLastSeen();
+        lock.writeLock().lock();
+        try {
+            this.totalMeteorsSpawned = Math.max(0, totalMeteorsSpawned);
+            this.countersOverwritten = true;
+            updateLastSeen();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void addMeteorSpawned() {
         lock.writeLock().lock();
         try {
             this.totalMeteorsSpawned++;
+            this.pendingMeteorsSpawned++;
+            if (journal != null) {
+                journal.recordLong(playerId, CounterJournal.METEORS_SPAWNED, 1);
+            }
             updateLastSeen();
         } finally {
             lock.writeLock().unlock();
@@ -155,14 +212,24 @@ public class PlayerData {
     }
 
     public void setTotalAirstrikes(int totalAirstrikes) {
-        this.totalAirstrikes = Math.max(0, totalAirstrikes);
-        updateLastSeen();
+        lock.writeLock().lock();
+        try {
+            this.totalAirstrikes = Math.max(0, totalAirstrikes);
+            this.countersOverwritten = true;
+            updateLastSeen();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void addAirstrike() {
         lock.writeLock().lock();
         try {
             this.totalAirstrikes++;
+            this.pendingAirstrikes++;
+            if (journal != null) {
+                journal.recordLong(playerId, CounterJournal.AIRSTRIKES, 1);
+            }
             updateLastSeen();
         } finally {
             lock.writeLock().unlock();
@@ -204,8 +271,23 @@ public class PlayerData {
 
     public void setCooldown(String enchantment, long durationMs) {
         if (enchantment != null && durationMs > 0) {
-            enchantmentCooldowns.put(enchantment, System.currentTimeMillis() + durationMs);
-            updateLastSeen();
+            lock.writeLock().lock();
+            try {
+                enchantmentCooldowns.put(enchantment, System.currentTimeMillis() + durationMs);
+                dirtyCooldowns.add(enchantment);
+                updateLastSeen();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Restore a cooldown end time (for loading from storage)
+     */
+    public void restoreCooldown(String enchantment, long cooldownEnd) {
+        if (enchantment != null && cooldownEnd > System.currentTimeMillis()) {
+            enchantmentCooldowns.put(enchantment, cooldownEnd);
         }
     }
 
@@ -233,12 +315,27 @@ public class PlayerData {
 
     public void incrementToolUsage(String toolType) {
         if (toolType != null && !toolType.trim().isEmpty()) {
-            toolUsageCount.merge(toolType, 1, Integer::sum);
+            lock.writeLock().lock();
+            try {
+                toolUsageCount.merge(toolType, 1, Integer::sum);
+                pendingToolUsage.merge(toolType, 1, Integer::sum);
+            } finally {
+                lock.writeLock().unlock();
+            }
             updateFavoriteToolType();
             updateLastSeen();
         }
     }
 
+    /**
+     * Restore a tool usage count (for loading from storage)
+     */
+    public void restoreToolUsage(String toolType, int count) {
+        if (toolType != null && count > 0) {
+            toolUsageCount.put(toolType, count);
+        }
+    }
+
     // Thread-safe enchantment usage tracking
     public Map<String, Long> getEnchantmentUsageCount() {
         // Return a copy to prevent external modification
@@ -247,11 +344,26 @@ public class PlayerData {
 
     public void incrementEnchantmentUsage(String enchantment) {
         if (enchantment != null && !enchantment.trim().isEmpty()) {
-            enchantmentUsageCount.merge(enchantment, 1L, Long::sum);
+            lock.writeLock().lock();
+            try {
+                enchantmentUsageCount.merge(enchantment, 1L, Long::sum);
+                pendingEnchantmentUsage.merge(enchantment, 1L, Long::sum);
+            } finally {
+                lock.writeLock().unlock();
+            }
             updateLastSeen();
         }
     }
 
+    /**
+     * Restore an enchantment usage count (for loading from storage)
+     */
+    public void restoreEnchantmentUsage(String enchantment, long count) {
+        if (enchantment != null && count > 0) {
+            enchantmentUsageCount.put(enchantment, count);
+        }
+    }
+
     public long getLastSeen() {
         return lastSeen;
     }
@@ -271,6 +383,7 @@ public class PlayerData {
 
     public void setMilestoneData(MilestoneData milestoneData) {
         if (milestoneData != null) {
+            milestoneData.markFullRewrite();
             this.milestoneData = milestoneData;
             updateLastSeen();
         }
@@ -281,8 +394,17 @@ public class PlayerData {
      */
     public void addMilestoneBlocksBroken(Material material, long amount) {
         if (material != null && amount > 0 && milestoneData != null) {
-            milestoneData.addBlocksBroken(material, amount);
-            updateLastSeen();
+            // Under the lock so the journal record and the pending count are captured together
+            lock.writeLock().lock();
+            try {
+                milestoneData.addBlocksBroken(material, amount);
+                if (journal != null) {
+                    journal.recordMilestone(playerId, material, amount);
+                }
+                updateLastSeen();
+            } finally {
+                lock.writeLock().unlock();
+            }
         }
     }
 
@@ -308,14 +430,203 @@ public class PlayerData {
 
     /**
      * Claim milestone
+     * @return false if it was already claimed
      */
-    public void claimMilestone(Material material, int milestoneNumber) {
-        if (material != null && milestoneData != null) {
-            milestoneData.claimMilestone(material, milestoneNumber);
+    public boolean claimMilestone(Material material, int milestoneNumber) {
+        if (material != null && milestoneData != null && milestoneData.claimMilestone(material, milestoneNumber)) {
             updateLastSeen();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take the changes made since the last flush and reset the tracking state.
+     * Storage providers that write deltas call this inside their save and hand the
+     * result back to {@link #restoreChanges(Changes)} if the write fails.
+     */
+    public Changes captureChanges() {
+        lock.writeLock().lock();
+        try {
+            // Overwritten counters are written as absolute values, otherwise as increments
+            Changes changes = new Changes(
+                    countersOverwritten,
+                    countersOverwritten ? totalBlocksBroken : pendingBlocksBroken,
+                    countersOverwritten ? totalXpEarned : pendingXpEarned,
+                    countersOverwritten ? totalEssenceEarned : pendingEssenceEarned,
+                    countersOverwritten ? totalMeteorsSpawned : pendingMeteorsSpawned,
+                    countersOverwritten ? totalAirstrikes : pendingAirstrikes,
+                    new HashMap<>(pendingToolUsage),
+                    new HashMap<>(pendingEnchantmentUsage),
+                    new HashMap<>(),
+                    milestoneData != null ? milestoneData.captureChanges() : MilestoneData.Changes.EMPTY
+            );
+            markJournalPosition();
+
+            long currentTime = System.currentTimeMillis();
+            for (String enchantment : dirtyCooldowns) {
+                Long cooldownEnd = enchantmentCooldowns.get(enchantment);
+                if (cooldownEnd != null && cooldownEnd > currentTime) {
+                    changes.cooldowns.put(enchantment, cooldownEnd);
+                }
+            }
+
+            clearPendingChanges();
+            return changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merge changes from a failed flush back so the next flush writes them again
+     */
+    public void restoreChanges(Changes changes) {
+        if (changes == null) return;
+
+        lock.writeLock().lock();
+        try {
+            if (changes.countersOverwritten) {
+                // Current values are written in full on the next flush
+                countersOverwritten = true;
+            } else {
+                pendingBlocksBroken += changes.blocksBroken;
+                pendingXpEarned += changes.xpEarned;
+                pendingEssenceEarned += changes.essenceEarned;
+                pendingMeteorsSpawned += changes.meteorsSpawned;
+                pendingAirstrikes += changes.airstrikes;
+            }
+            changes.toolUsage.forEach((key, value) -> pendingToolUsage.merge(key, value, Integer::sum));
+            changes.enchantmentUsage.forEach((key, value) -> pendingEnchantmentUsage.merge(key, value, Long::sum));
+            dirtyCooldowns.addAll(changes.cooldowns.keySet());
+
+            if (milestoneData != null) {
+                milestoneData.restoreChanges(changes.milestoneChanges);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add the increments of changes captured from another copy of this player, e.g. when data reloaded
+     * from storage replaces a session that was played on meanwhile, or a detached copy is saved while the
+     * session is cached. Absolute values are skipped, this copy holds the newer state; claimed milestone
+     * levels are added to the ones claimed here.
+     * @return True if anything was added and has to be saved
+     */
+    public boolean addIncrements(Changes changes) {
+        if (changes == null) return false;
+
+        boolean added = false;
+        if (!changes.countersOverwritten) {
+            addBlocksBroken(changes.blocksBroken);
+            addXpEarned(changes.xpEarned);
+            addEssenceEarned(changes.essenceEarned);
+            for (int i = 0; i < changes.meteorsSpawned; i++) {
+                addMeteorSpawned();
+            }
+            for (int i = 0; i < changes.airstrikes; i++) {
+                addAirstrike();
+            }
+            added = changes.blocksBroken > 0 || changes.xpEarned > 0 || changes.essenceEarned > 0
+                    || changes.meteorsSpawned > 0 || changes.airstrikes > 0;
+        }
+
+        if (!changes.toolUsage.isEmpty() || !changes.enchantmentUsage.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                changes.toolUsage.forEach((toolType, count) -> {
+                    toolUsageCount.merge(toolType, count, Integer::sum);
+                    pendingToolUsage.merge(toolType, count, Integer::sum);
+                });
+                changes.enchantmentUsage.forEach((enchantment, count) -> {
+                    enchantmentUsageCount.merge(enchantment, count, Long::sum);
+                    pendingEnchantmentUsage.merge(enchantment, count, Long::sum);
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+            updateFavoriteToolType();
+            added = true;
+        }
+
+        MilestoneData.Changes milestoneChanges = changes.milestoneChanges;
+        if (!milestoneChanges.isFullRewrite()) {
+            for (Map.Entry<Material, Long> entry : milestoneChanges.getBlockDeltas().entrySet()) {
+                addMilestoneBlocksBroken(entry.getKey(), entry.getValue());
+                added = true;
+            }
+        }
+        for (Map.Entry<Material, Long> entry : milestoneChanges.getClaims().entrySet()) {
+            for (long bits = entry.getValue(); bits != 0; bits &= bits - 1) {
+                added |= claimMilestone(entry.getKey(), Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Mark the current state as persisted (after loading or a full rewrite)
+     */
+    public void clearChanges() {
+        lock.writeLock().lock();
+        try {
+            clearPendingChanges();
+            markJournalPosition();
+            if (milestoneData != null) {
+                milestoneData.clearChanges();
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Record increments of this player in the journal from now on (null to stop)
+     */
+    public void attachJournal(CounterJournal journal) {
+        lock.writeLock().lock();
+        try {
+            this.journal = journal;
+            markJournalPosition();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Journal position of the last captured or cleared changes; every journaled increment of
+     *         this player up to it is part of that capture
+     */
+    public long getJournalPosition() {
+        lock.readLock().lock();
+        try {
+            return journalPosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markJournalPosition() {
+        CounterJournal current = journal;
+        if (current != null) {
+            journalPosition = current.getPosition();
+        }
+    }
+
+    private void clearPendingChanges() {
+        countersOverwritten = false;
+        pendingBlocksBroken = 0;
+        pendingXpEarned = 0.0;
+        pendingEssenceEarned = 0.0;
+        pendingMeteorsSpawned = 0;
+        pendingAirstrikes = 0;
+        pendingToolUsage.clear();
+        pendingEnchantmentUsage.clear();
+        dirtyCooldowns.clear();
+    }
+
     /**
      * Thread-safe favorite tool type calculation
      */
@@ -382,6 +693,90 @@ public class PlayerData {
                 entry.getKey() == null || entry.getKey().trim().isEmpty() || entry.getValue() <= 0);
     }
 
+    /**
+     * Changes made to a PlayerData since the last flush
+     */
+    public static class Changes {
+        private final boolean countersOverwritten;
+        private final long blocksBroken;
+        private final double xpEarned;
+        private final double essenceEarned;
+        private final int meteorsSpawned;
+        private final int airstrikes;
+        private final Map<String, Integer> toolUsage;
+        private final Map<String, Long> enchantmentUsage;
+        private final Map<String, Long> cooldowns;
+        private final MilestoneData.Changes milestoneChanges;
+
+        private Changes(boolean countersOverwritten, long blocksBroken, double xpEarned, double essenceEarned,
+                        int meteorsSpawned, int airstrikes, Map<String, Integer> toolUsage,
+                        Map<String, Long> enchantmentUsage, Map<String, Long> cooldowns,
+                        MilestoneData.Changes milestoneChanges) {
+            this.countersOverwritten = countersOverwritten;
+            this.blocksBroken = blocksBroken;
+            this.xpEarned = xpEarned;
+            this.essenceEarned = essenceEarned;
+            this.meteorsSpawned = meteorsSpawned;
+            this.airstrikes = airstrikes;
+            this.toolUsage = toolUsage;
+            this.enchantmentUsage = enchantmentUsage;
+            this.cooldowns = cooldowns;
+            this.milestoneChanges = milestoneChanges;
+        }
+
+        /**
+         * True if a counter was set to an absolute value; the counter getters then hold absolute values instead of increments
+         */
+        public boolean isCountersOverwritten() {
+            return countersOverwritten;
+        }
+
+        public long getBlocksBroken() {
+            return blocksBroken;
+        }
+
+        public double getXpEarned() {
+            return xpEarned;
+        }
+
+        public double getEssenceEarned() {
+            return essenceEarned;
+        }
+
+        public int getMeteorsSpawned() {
+            return meteorsSpawned;
+        }
+
+        public int getAirstrikes() {
+            return airstrikes;
+        }
+
+        /**
+         * Tool usage increments since the last flush
+         */
+        public Map<String, Integer> getToolUsage() {
+            return toolUsage;
+        }
+
+        /**
+         * Enchantment usage increments since the last flush
+         */
+        public Map<String, Long> getEnchantmentUsage() {
+            return enchantmentUsage;
+        }
+
+        /**
+         * Active cooldowns that were set since the last flush
+         */
+        public Map<String, Long> getCooldowns() {
+            return cooldowns;
+        }
+
+        public MilestoneData.Changes getMilestoneChanges() {
+            return milestoneChanges;
+        }
+    }
+
     @Override
     public String toString() {
         return "PlayerData{" +
@@ -0,0 +1,224 @@
+package com.ghasttools.data;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.data.storage.StorageProvider;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Copies every player from one storage provider into another.
+ *
+ * Player ids are streamed from the source in batches. Each batch is loaded with one bulk load (falling
+ * back to parallel single loads on a bounded pool) while the previous batch is written to the target in
+ * one {@link StorageProvider#importPlayers} call.
+ * Ids of written batches are appended to a progress file, so an interrupted migration resumes where it stopped.
+ */
+public class StorageMigrator {
+
+    private final GhastToolsPlugin plugin;
+    private final StorageProvider source;
+    private final StorageProvider target;
+    private final File progressFile;
+    private final int threads;
+    private final Consumer<String> progress;
+
+    private ExecutorService loadPool;
+    private BufferedWriter progressLog;
+    private CompletableFuture<List<PlayerData>> pendingBatch;
+    private int migrated;
+    private final AtomicInteger failed = new AtomicInteger();
+
+    // Configuration constants to avoid magic numbers
+    private static final int BATCH_SIZE = 500;
+    private static final int PROGRESS_INTERVAL = 5000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    public StorageMigrator(GhastToolsPlugin plugin, StorageProvider source, String sourceType,
+                           StorageProvider target, String targetType, int threads, Consumer<String> progress) {
+        this.plugin = plugin;
+        this.source = source;
+        this.target = target;
+        this.progressFile = new File(new File(plugin.getDataFolder(), "migration"), sourceType + "-to-" + targetType + ".progress");
+        this.threads = threads;
+        this.progress = progress;
+    }
+
+    /**
+     * Run the migration on the calling thread
+     * @return Number of players migrated in this run
+     */
+    public int migrate() throws Exception {
+        long startTime = System.currentTimeMillis();
+
+        Set<UUID> completed = readProgress();
+        if (!completed.isEmpty()) {
+            report("Resuming migration, " + completed.size() + " players were already migrated");
+        }
+
+        loadPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "GhastTools-Migration");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (BufferedWriter log = Files.newBufferedWriter(progressFile.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            progressLog = log;
+
+            List<UUID> batch = new ArrayList<>(BATCH_SIZE);
+            source.forEachPlayerId(playerId -> {
+                if (completed.contains(playerId)) {
+                    return;
+                }
+
+                batch.add(playerId);
+                if (batch.size() >= BATCH_SIZE) {
+                    submitBatch(new ArrayList<>(batch));
+                    batch.clear();
+                }
+            });
+
+            if (!batch.isEmpty()) {
+                submitBatch(batch);
+            }
+            writePendingBatch();
+
+        } finally {
+            loadPool.shutdown();
+            if (!loadPool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                loadPool.shutdownNow();
+            }
+        }
+
+        long seconds = Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+        report("Migration finished: " + migrated + " players in " + seconds + "s"
+                + (failed.get() > 0 ? " (" + failed.get() + " could not be loaded, run again to retry them)" : ""));
+
+        if (failed.get() == 0) {
+            Files.deleteIfExists(progressFile.toPath());
+        }
+        return migrated;
+    }
+
+    /**
+     * Start loading a batch, then write the previous one while it loads
+     */
+    private void submitBatch(List<UUID> playerIds) throws Exception {
+        CompletableFuture<List<PlayerData>> next = CompletableFuture.supplyAsync(() -> loadBatch(playerIds), loadPool)
+                .thenCompose(batch -> batch != null ? CompletableFuture.completedFuture(batch) : loadEach(playerIds));
+
+        writePendingBatch();
+        pendingBatch = next;
+    }
+
+    /**
+     * Load the batch with the source's bulk load
+     * @return The players, or null if the bulk load failed and players should be loaded one by one
+     */
+    private List<PlayerData> loadBatch(List<UUID> playerIds) {
+        try {
+            return new ArrayList<>(source.loadPlayerData(playerIds).values());
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to load a batch of " + playerIds.size()
+                    + " players for migration, loading them one by one", e);
+            return null;
+        }
+    }
+
+    /**
+     * Load players in parallel one by one, skipping the ones that fail
+     */
+    private CompletableFuture<List<PlayerData>> loadEach(List<UUID> playerIds) {
+        List<CompletableFuture<PlayerData>> loads = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            loads.add(CompletableFuture.supplyAsync(() -> load(playerId), loadPool));
+        }
+
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+                .thenApply(v -> loads.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList());
+    }
+
+    private PlayerData load(UUID playerId) {
+        try {
+            return source.loadPlayerData(playerId);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to load player " + playerId + " for migration", e);
+            failed.incrementAndGet();
+            return null;
+        }
+    }
+
+    private void writePendingBatch() throws Exception {
+        if (pendingBatch == null) {
+            return;
+        }
+
+        List<PlayerData> players = pendingBatch.join();
+        pendingBatch = null;
+
+        if (!players.isEmpty()) {
+            target.importPlayers(players);
+
+            for (PlayerData data : players) {
+                progressLog.write(data.getPlayerId().toString());
+                progressLog.newLine();
+            }
+            progressLog.flush();
+        }
+
+        int before = migrated;
+        migrated += players.size();
+
+        if (migrated / PROGRESS_INTERVAL > before / PROGRESS_INTERVAL) {
+            report("Migrated " + migrated + " players...");
+        }
+    }
+
+    private Set<UUID> readProgress() throws IOException {
+        Set<UUID> completed = new HashSet<>();
+        File folder = progressFile.getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        if (!progressFile.exists()) {
+            return completed;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(progressFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    completed.add(UUID.fromString(line.trim()));
+                } catch (IllegalArgumentException e) {
+                    // Partially written last line of an interrupted run
+                }
+            }
+        }
+        return completed;
+    }
+
+    private void report(String message) {
+        plugin.getLogger().info(message);
+        progress.accept(message);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.data.PlayerData;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Loads the rows of many players with one query per table and chunk of ids, using
+ * {@code player_id IN (...)} filters instead of one query per player and table.
+ */
+final class BulkLoad {
+
+    // Configuration constants to avoid magic numbers
+    // Ids per IN list, well below the bound parameter limits of SQLite and the server databases
+    static final int CHUNK_SIZE = 500;
+
+    private BulkLoad() {
+    }
+
+    /**
+     * Default data for every requested player, in request order without duplicates
+     */
+    static Map<UUID, PlayerData> newPlayers(Collection<UUID> playerIds) {
+        Map<UUID, PlayerData> players = new LinkedHashMap<>();
+        for (UUID playerId : playerIds) {
+            players.computeIfAbsent(playerId, PlayerData::new);
+        }
+        return players;
+    }
+
+    static List<List<UUID>> chunks(Collection<UUID> playerIds) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        List<UUID> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (UUID playerId : playerIds) {
+            chunk.add(playerId);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Run a query for a chunk of players and pass each row with the data of its player to the consumer.
+     * The query selects a player_id column and has one %s where the id placeholders go; extra
+     * parameters are bound after the ids.
+     */
+    static void forEachRow(Connection conn, String sql, List<UUID> chunk, Map<UUID, PlayerData> players,
+                           RowConsumer consumer, long... extraParameters) throws SQLException {
+        StringJoiner placeholders = new StringJoiner(", ");
+        for (int i = 0; i < chunk.size(); i++) {
+            placeholders.add("?");
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(String.format(sql, placeholders))) {
+            int index = 1;
+            for (UUID playerId : chunk) {
+                stmt.setBytes(index++, SQLiteStorage.uuidToBytes(playerId));
+            }
+            for (long parameter : extraParameters) {
+                stmt.setLong(index++, parameter);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    PlayerData data = players.get(SQLiteStorage.bytesToUuid(rs.getBytes("player_id")));
+                    if (data != null) {
+                        consumer.accept(data, rs);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives one row together with the data of the player it belongs to
+     */
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(PlayerData data, ResultSet rs) throws SQLException;
+    }
+}
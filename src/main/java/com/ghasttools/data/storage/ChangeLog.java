@@ -0,0 +1,123 @@
+package com.ghasttools.data.storage;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shared log of player changes for storage that several servers use at once.
+ *
+ * Entries carry a sequence number that grows with every append. Servers read the entries of other
+ * servers to drop or refresh their cached copy of a player, and use ACQUIRED/RELEASED entries to hand
+ * a player's session from one server to the next.
+ */
+public interface ChangeLog {
+
+    enum Kind {
+        /** The player's stored data was written */
+        CHANGED(1),
+        /** A server started a session for the player */
+        ACQUIRED(2),
+        /** A server flushed and closed its session for the player */
+        RELEASED(3);
+
+        private final int code;
+
+        Kind(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public static Kind fromCode(int code) {
+            for (Kind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return False if the log is switched off and reads and writes should not be attempted
+     */
+    boolean isChangeLogEnabled();
+
+    /**
+     * Id of this server in the log
+     */
+    String getNodeId();
+
+    /**
+     * Append an entry for this server
+     * @return Sequence number of the entry
+     */
+    long append(UUID playerId, Kind kind) throws Exception;
+
+    /**
+     * @return Highest sequence number in the log, 0 if it is empty
+     */
+    long getLatestSequence() throws Exception;
+
+    /**
+     * @return Entries of other servers after the given sequence, in sequence order
+     */
+    List<Entry> readSince(long afterSequence, int limit) throws Exception;
+
+    /**
+     * @return Latest ACQUIRED or RELEASED entry of the player before the given sequence, null if there is none
+     */
+    Entry findLastOwnership(UUID playerId, long beforeSequence) throws Exception;
+
+    /**
+     * @return True if the server released the player after the given sequence
+     */
+    boolean isReleased(UUID playerId, String nodeId, long afterSequence) throws Exception;
+
+    /**
+     * Delete entries created before the given time
+     * @return Number of entries deleted
+     */
+    int prune(long createdBefore) throws Exception;
+
+    /**
+     * One entry of the log
+     */
+    final class Entry {
+        private final long sequence;
+        private final UUID playerId;
+        private final String nodeId;
+        private final Kind kind;
+        private final long createdAt;
+
+        public Entry(long sequence, UUID playerId, String nodeId, Kind kind, long createdAt) {
+            this.sequence = sequence;
+            this.playerId = playerId;
+            this.nodeId = nodeId;
+            this.kind = kind;
+            this.createdAt = createdAt;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
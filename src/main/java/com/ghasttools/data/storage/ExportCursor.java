@@ -0,0 +1,62 @@
+package com.ghasttools.data.storage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Forward-only cursor over rows ordered by a binary player id (first column).
+ * SQLite exports open one cursor per table and merge them like a join. Server databases only get
+ * one open cursor per connection, MariaDB buffers a streaming result once another statement runs.
+ */
+final class ExportCursor implements AutoCloseable {
+
+    private final Statement stmt;
+    private final ResultSet rs;
+    private byte[] currentId;
+
+    // Configuration constants to avoid magic numbers
+    private static final int FETCH_SIZE = 1000;
+
+    ExportCursor(Connection conn, String sql) throws SQLException {
+        this.stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // Stream rows instead of buffering the whole table (drivers that cannot do this ignore the hint)
+        stmt.setFetchSize(FETCH_SIZE);
+        this.rs = stmt.executeQuery(sql);
+        next();
+    }
+
+    boolean hasRow() {
+        return currentId != null;
+    }
+
+    byte[] getId() {
+        return currentId;
+    }
+
+    ResultSet row() {
+        return rs;
+    }
+
+    void next() throws SQLException {
+        currentId = rs.next() ? rs.getBytes(1) : null;
+    }
+
+    /**
+     * Skip rows of players before the given one (orphans), true if the cursor is on a row of this player
+     */
+    boolean seek(byte[] id) throws SQLException {
+        while (currentId != null && Arrays.compareUnsigned(currentId, id) < 0) {
+            next();
+        }
+        return currentId != null && Arrays.equals(currentId, id);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        rs.close();
+        stmt.close();
+    }
+}
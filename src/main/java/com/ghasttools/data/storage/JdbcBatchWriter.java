@@ -0,0 +1,193 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.data.PlayerData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Group-commit writer for JDBC storage saves.
+ * Queued saves are collected by a single writer thread for up to the configured latency
+ * (or until the batch is full) and written in one transaction. Each caller's future
+ * completes once the transaction holding its save has committed.
+ */
+public class JdbcBatchWriter {
+
+    /**
+     * Writes a batch of saves in a single transaction
+     */
+    public interface BatchHandler {
+        void writeBatch(List<QueuedSave> saves) throws Exception;
+    }
+
+    private final GhastToolsPlugin plugin;
+    private final String name;
+    private final BatchHandler handler;
+    private final int maxBatchSize;
+    private final long maxLatencyMs;
+    private final BlockingQueue<QueuedSave> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Statistics for monitoring
+    private volatile long batchesWritten;
+    private volatile long savesWritten;
+
+    // Configuration constants to avoid magic numbers
+    private static final long IDLE_POLL_MS = 250;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+    /**
+     * @param name Name used for the writer thread and in log messages, e.g. "SQLite"
+     */
+    public JdbcBatchWriter(GhastToolsPlugin plugin, String name, BatchHandler handler, int maxBatchSize, long maxLatencyMs) {
+        this.plugin = plugin;
+        this.name = name;
+        this.handler = handler;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    /**
+     * Start the writer thread
+     */
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::run, "GhastTools-" + name + "-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue a save; the returned future completes when its batch commits
+     */
+    public CompletableFuture<Void> submit(UUID playerId, PlayerData data) {
+        QueuedSave save = new QueuedSave(playerId, data);
+        if (!running) {
+            save.future.completeExceptionally(new IllegalStateException(name + " writer is not running"));
+            return save.future;
+        }
+
+        queue.add(save);
+        return save.future;
+    }
+
+    private void run() {
+        List<QueuedSave> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedSave first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // Group everything that arrives within the latency window
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    QueuedSave next = remaining > 0 && running
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+
+            } catch (InterruptedException e) {
+                // Shutdown requested, drain whatever is left
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<QueuedSave> batch) {
+        try {
+            handler.writeBatch(batch);
+            batchesWritten++;
+            savesWritten += batch.size();
+
+            for (QueuedSave save : batch) {
+                save.future.complete(null);
+            }
+        } catch (Throwable e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write batch of " + batch.size() + " player saves", e);
+            for (QueuedSave save : batch) {
+                save.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting saves, write everything still queued and stop the writer thread
+     */
+    public void shutdown() {
+        running = false;
+
+        if (writerThread != null) {
+            try {
+                writerThread.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (writerThread.isAlive()) {
+                plugin.getLogger().warning(name + " writer did not finish within timeout period");
+            }
+        }
+
+        // Anything left at this point can no longer be written
+        QueuedSave save;
+        while ((save = queue.poll()) != null) {
+            save.future.completeExceptionally(new IllegalStateException(name + " writer was shut down"));
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    public long getSavesWritten() {
+        return savesWritten;
+    }
+
+    /**
+     * A save waiting in the queue
+     */
+    public static class QueuedSave {
+        private final UUID playerId;
+        private final PlayerData data;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private QueuedSave(UUID playerId, PlayerData data) {
+            this.playerId = playerId;
+            this.data = data;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public PlayerData getData() {
+            return data;
+        }
+    }
+}
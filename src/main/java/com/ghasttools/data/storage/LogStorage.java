@@ -0,0 +1,529 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.data.PlayerData;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, log-structured player storage.
+ *
+ * Every save appends the full player record to the active memory-mapped segment and points the in-memory
+ * UUID index at it, and loads copy the record straight out of the mapping. Sealed segments whose records are
+ * mostly superseded are compacted in the background by copying their live records forward.
+ *
+ * Record layout: length (int, -1 for a tombstone), CRC32 of the rest, UUID (two longs), lastSeen (long),
+ * then the player as UTF-8 JSON in the export format. The length is written last, so a zero length marks
+ * the end of the log and a torn record fails its checksum.
+ */
+public class LogStorage implements StorageProvider {
+
+    private final GhastToolsPlugin plugin;
+
+    // Guards the index, the segment map and all appends; loads only need the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, RecordLocation> index = new HashMap<>();
+    private final Map<UUID, RecordLocation> tombstones = new HashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+
+    private File dataFolder;
+    private int segmentSize;
+    private Segment activeSegment;
+    private ScheduledExecutorService compactor;
+
+    // Configuration constants to avoid magic numbers
+    private static final int SEGMENT_MAGIC = 0x47544C47; // "GTLG"
+    private static final int SEGMENT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 32;
+    private static final int CHECKSUM_OFFSET = 8;
+    private static final int TOMBSTONE_LENGTH = -1;
+    private static final int DEFAULT_SEGMENT_SIZE_MB = 64;
+    private static final int MAX_SEGMENT_SIZE_MB = 1024;
+    private static final long COMPACTION_INTERVAL_SECONDS = 60;
+    private static final double COMPACTION_LIVE_RATIO = 0.5;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_EXTENSION = ".log";
+
+    public LogStorage(GhastToolsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void initialize() throws Exception {
+        dataFolder = new File(plugin.getDataFolder(), "playerlog");
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        int segmentSizeMb = plugin.getConfigManager().getMainConfig().getInt("storage.log.segment_size_mb", DEFAULT_SEGMENT_SIZE_MB);
+        segmentSize = Math.max(1, Math.min(MAX_SEGMENT_SIZE_MB, segmentSizeMb)) * 1024 * 1024;
+
+        long startTime = System.currentTimeMillis();
+        recover();
+        plugin.getLogger().info("Loaded log storage: " + index.size() + " players in " + segments.size()
+                + " segments (" + (System.currentTimeMillis() - startTime) + "ms)");
+
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "GhastTools-Log-Compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::runCompaction, COMPACTION_INTERVAL_SECONDS,
+                COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Map every segment and replay it into the index, oldest first
+     */
+    private void recover() throws IOException {
+        File[] files = dataFolder.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+                    segments.put(id, openSegment(id, false));
+                } catch (NumberFormatException e) {
+                    plugin.getLogger().warning("Skipping log segment with invalid name: " + name);
+                }
+            }
+        }
+
+        for (Segment segment : segments.values()) {
+            replaySegment(segment);
+        }
+
+        if (segments.isEmpty()) {
+            activeSegment = openSegment(1, true);
+            segments.put(activeSegment.id, activeSegment);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+    }
+
+    private Segment openSegment(int id, boolean create) throws IOException {
+        File file = new File(dataFolder, String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_EXTENSION));
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+
+        Segment segment = new Segment(id, file, channel, buffer);
+        if (create) {
+            buffer.putInt(0, SEGMENT_MAGIC);
+            buffer.putInt(4, SEGMENT_VERSION);
+            buffer.force(0, SEGMENT_HEADER_SIZE);
+        } else if (buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(4) != SEGMENT_VERSION) {
+            channel.close();
+            throw new IOException("Invalid log segment header in " + file.getName());
+        }
+        return segment;
+    }
+
+    private void replaySegment(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = SEGMENT_HEADER_SIZE;
+        boolean torn = false;
+
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+
+            if (length < TOMBSTONE_LENGTH || (long) position + RECORD_HEADER_SIZE + Math.max(length, 0) > buffer.capacity()
+                    || buffer.getInt(position + 4) != checksum(buffer, position, length)) {
+                torn = true;
+                break;
+            }
+
+            UUID playerId = new UUID(buffer.getLong(position + 8), buffer.getLong(position + 16));
+            RecordLocation location = new RecordLocation(segment, position, length, buffer.getLong(position + 24));
+            if (length == TOMBSTONE_LENGTH) {
+                applyTombstone(playerId, location);
+            } else {
+                applyRecord(playerId, location);
+            }
+            position += location.size();
+        }
+
+        segment.writePosition = position;
+
+        if (torn) {
+            plugin.getLogger().warning("Log segment " + segment.file.getName() + " ends with an incomplete record at offset "
+                    + position + ", discarding the rest of the segment");
+            // Clear the tail so stale bytes can never be read as records after new appends
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + CHECKSUM_OFFSET, RECORD_HEADER_SIZE - CHECKSUM_OFFSET + Math.max(length, 0)));
+        return (int) crc.getValue();
+    }
+
+    private void applyRecord(UUID playerId, RecordLocation location) {
+        RecordLocation previous = index.put(playerId, location);
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.size();
+        }
+
+        RecordLocation tombstone = tombstones.remove(playerId);
+        if (tombstone != null) {
+            tombstone.segment.liveBytes -= tombstone.size();
+        }
+
+        location.segment.liveBytes += location.size();
+    }
+
+    private void applyTombstone(UUID playerId, RecordLocation location) {
+        RecordLocation previous = index.remove(playerId);
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.size();
+        }
+
+        RecordLocation tombstone = tombstones.put(playerId, location);
+        if (tombstone != null) {
+            tombstone.segment.liveBytes -= tombstone.size();
+        }
+
+        location.segment.liveBytes += location.size();
+    }
+
+    /**
+     * Append a record to the active segment; the caller must hold the write lock
+     */
+    private void append(UUID playerId, long lastSeen, byte[] payload, boolean tombstone) throws IOException {
+        int length = tombstone ? TOMBSTONE_LENGTH : payload.length;
+        int recordSize = RECORD_HEADER_SIZE + Math.max(length, 0);
+        if (recordSize > segmentSize - SEGMENT_HEADER_SIZE) {
+            throw new IOException("Player record for " + playerId + " is too large for a log segment (" + recordSize + " bytes)");
+        }
+
+        if (activeSegment.writePosition + recordSize > activeSegment.buffer.capacity()) {
+            rollSegment();
+        }
+
+        Segment segment = activeSegment;
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.writePosition;
+
+        buffer.putLong(position + 8, playerId.getMostSignificantBits());
+        buffer.putLong(position + 16, playerId.getLeastSignificantBits());
+        buffer.putLong(position + 24, lastSeen);
+        if (!tombstone) {
+            buffer.put(position + RECORD_HEADER_SIZE, payload);
+        }
+        buffer.putInt(position + 4, checksum(buffer, position, length));
+        buffer.putInt(position, length);
+        buffer.force(position, recordSize);
+
+        segment.writePosition += recordSize;
+
+        RecordLocation location = new RecordLocation(segment, position, length, lastSeen);
+        if (tombstone) {
+            applyTombstone(playerId, location);
+        } else {
+            applyRecord(playerId, location);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        activeSegment.buffer.force();
+
+        Segment next = openSegment(segments.lastKey() + 1, true);
+        segments.put(next.id, next);
+        activeSegment = next;
+    }
+
+    @Override
+    public void savePlayerData(UUID playerId, PlayerData data) throws Exception {
+        // Every record holds the whole player, so pending changes are covered by this save
+        data.clearChanges();
+        byte[] payload = PlayerDataExport.toJson(data).toString().getBytes(StandardCharsets.UTF_8);
+
+        lock.writeLock().lock();
+        try {
+            append(playerId, data.getLastSeen(), payload, false);
+        } catch (IOException e) {
+            throw new Exception("Failed to save player data for " + playerId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public PlayerData loadPlayerData(UUID playerId) throws Exception {
+        byte[] payload;
+
+        lock.readLock().lock();
+        try {
+            RecordLocation location = index.get(playerId);
+            if (location == null) {
+                return new PlayerData(playerId); // Return default data
+            }
+
+            payload = new byte[location.length];
+            location.segment.buffer.get(location.offset + RECORD_HEADER_SIZE, payload);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            PlayerData data = PlayerDataExport.fromJson(JsonParser.parseString(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject());
+            data.clearChanges();
+            return data;
+        } catch (RuntimeException e) {
+            throw new Exception("Failed to load player data for " + playerId, e);
+        }
+    }
+
+    @Override
+    public void forEachPlayerId(PlayerIdConsumer consumer) throws Exception {
+        List<UUID> playerIds;
+        lock.readLock().lock();
+        try {
+            playerIds = new ArrayList<>(index.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (UUID playerId : playerIds) {
+            consumer.accept(playerId);
+        }
+    }
+
+    @Override
+    public int cleanupOldData(int daysOffline) throws Exception {
+        long cutoffTime = System.currentTimeMillis() - (daysOffline * 24L * 60L * 60L * 1000L);
+        int cleaned = 0;
+
+        lock.writeLock().lock();
+        try {
+            List<UUID> expired = new ArrayList<>();
+            for (Map.Entry<UUID, RecordLocation> entry : index.entrySet()) {
+                if (entry.getValue().lastSeen < cutoffTime) {
+                    expired.add(entry.getKey());
+                }
+            }
+
+            for (UUID playerId : expired) {
+                append(playerId, 0L, null, true);
+                cleaned++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return cleaned;
+    }
+
+    /**
+     * Compact sealed segments whose live records fall below the threshold
+     */
+    void runCompaction() {
+        List<Segment> candidates = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment != activeSegment && segment.liveBytes < segment.writePosition * COMPACTION_LIVE_RATIO) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (Segment segment : candidates) {
+            try {
+                compactSegment(segment);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to compact log segment " + segment.file.getName(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copy the live records of a sealed segment to the active segment, then delete it
+     */
+    private void compactSegment(Segment segment) throws IOException {
+        long startTime = System.currentTimeMillis();
+        MappedByteBuffer buffer = segment.buffer;
+        int position = SEGMENT_HEADER_SIZE;
+        int moved = 0;
+
+        // The lock is taken per record so saves are never blocked for a whole segment
+        while (position < segment.writePosition) {
+            lock.writeLock().lock();
+            try {
+                int length = buffer.getInt(position);
+                UUID playerId = new UUID(buffer.getLong(position + 8), buffer.getLong(position + 16));
+                RecordLocation current = length == TOMBSTONE_LENGTH ? tombstones.get(playerId) : index.get(playerId);
+
+                if (current != null && current.segment == segment && current.offset == position) {
+                    if (length == TOMBSTONE_LENGTH) {
+                        if (segments.firstKey() == segment.id) {
+                            // No older segment can hold a record the tombstone has to hide
+                            tombstones.remove(playerId);
+                            segment.liveBytes -= current.size();
+                        } else {
+                            append(playerId, 0L, null, true);
+                            moved++;
+                        }
+                    } else {
+                        byte[] payload = new byte[length];
+                        buffer.get(position + RECORD_HEADER_SIZE, payload);
+                        append(playerId, current.lastSeen, payload, false);
+                        moved++;
+                    }
+                }
+
+                position += RECORD_HEADER_SIZE + Math.max(length, 0);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            segments.remove(segment.id);
+            segment.channel.close();
+            Files.deleteIfExists(segment.file.toPath());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        plugin.getLogger().info("Compacted log segment " + segment.file.getName() + ": moved " + moved
+                + " records in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    @Override
+    public boolean exportData(String fileName) throws Exception {
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+
+        try (PlayerDataExport.Writer writer = new PlayerDataExport.Writer(file)) {
+            forEachPlayerId(playerId -> writer.write(loadPlayerData(playerId)));
+
+            writer.complete();
+            plugin.getLogger().info("Exported " + writer.getCount() + " players to " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return true;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to export data", e);
+        }
+    }
+
+    @Override
+    public boolean importData(String fileName) throws Exception {
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+        int imported = 0;
+
+        try (PlayerDataExport.Reader reader = new PlayerDataExport.Reader(file)) {
+            PlayerData data;
+            while ((data = reader.next()) != null) {
+                savePlayerData(data.getPlayerId(), data);
+                imported++;
+            }
+
+            plugin.getLogger().info("Imported " + imported + " players from " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return true;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to import data after " + imported + " players", e);
+        }
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        if (compactor != null) {
+            compactor.shutdown();
+            if (!compactor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                compactor.shutdownNow();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (activeSegment != null) {
+                activeSegment.buffer.force();
+            }
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+            index.clear();
+            tombstones.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A mapped segment file; positions and live bytes are guarded by the storage lock
+     */
+    private static final class Segment {
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long liveBytes;
+
+        private Segment(int id, File file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Where the latest record of a player lives
+     */
+    private static final class RecordLocation {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+        private final long lastSeen;
+
+        private RecordLocation(Segment segment, int offset, int length, long lastSeen) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.lastSeen = lastSeen;
+        }
+
+        private int size() {
+            return RECORD_HEADER_SIZE + Math.max(length, 0);
+        }
+    }
+}
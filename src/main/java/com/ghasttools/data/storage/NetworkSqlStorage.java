@@ -0,0 +1,1177 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.data.PlayerData;
+import com.ghasttools.milestones.MilestoneData;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Shared MySQL/MariaDB/PostgreSQL storage, so every server behind a proxy sees the same player data.
+ *
+ * Saves only write what changed since the last flush: counters are incremented in place with the
+ * dialect's upsert, so servers writing the same player never overwrite each other's progress.
+ * Saves are grouped into transactions by a {@link JdbcBatchWriter}. Every write also appends to a
+ * shared change log in the same transaction, which the other servers poll to refresh their caches.
+ */
+public class NetworkSqlStorage implements StorageProvider, ChangeLog {
+
+    private final GhastToolsPlugin plugin;
+    private final SqlDialect dialect;
+    private HikariDataSource dataSource;
+    private JdbcBatchWriter batchWriter;
+
+    // Table names (with the configured prefix)
+    private final String playersTable;
+    private final String cooldownsTable;
+    private final String toolUsageTable;
+    private final String enchantUsageTable;
+    private final String milestoneBlocksTable;
+    private final String milestoneClaimsTable;
+    private final String changeLogTable;
+    private final String[] childTables;
+
+    // Change log settings
+    private final boolean changeLogEnabled;
+    private final String nodeId;
+
+    // Statements built once for the dialect
+    private final String incrementPlayerSql;
+    private final String replacePlayerSql;
+    private final String upsertCooldownSql;
+    private final String incrementToolUsageSql;
+    private final String incrementEnchantUsageSql;
+    private final String incrementMilestoneBlocksSql;
+    private final String replaceMilestoneBlocksSql;
+    private final String replaceMilestoneClaimSql;
+
+    // Configuration constants to avoid magic numbers
+    private static final String DEFAULT_TABLE_PREFIX = "ghasttools_";
+    private static final String DEFAULT_HOST = "localhost";
+    private static final String DEFAULT_DATABASE = "ghasttools";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int DEFAULT_MINIMUM_IDLE = 2;
+    private static final int NAME_LENGTH = 64;
+    private static final int CONNECTION_TIMEOUT_MS = 30000;
+    private static final int IDLE_TIMEOUT_MS = 600000; // 10 minutes
+    private static final int MAX_LIFETIME_MS = 1800000; // 30 minutes, below the usual server wait_timeout
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int DEFAULT_BATCH_MAX_SIZE = 256;
+    private static final int DEFAULT_BATCH_MAX_LATENCY_MS = 50;
+    private static final int IMPORT_BATCH_SIZE = 500;
+    private static final int NODE_ID_LENGTH = 8;
+
+    private static final String[] PLAYER_KEY = {"player_id"};
+    private static final String[] PLAYER_COLUMNS = {
+            "total_blocks_broken", "total_xp_earned", "total_essence_earned", "last_enchant_used",
+            "total_meteors_spawned", "total_airstrikes", "favorite_tool_type", "last_seen", "updated_at"
+    };
+    private static final Set<String> PLAYER_COUNTERS = Set.of(
+            "total_blocks_broken", "total_xp_earned", "total_essence_earned", "total_meteors_spawned", "total_airstrikes");
+
+    public NetworkSqlStorage(GhastToolsPlugin plugin, SqlDialect dialect) {
+        this.plugin = plugin;
+        this.dialect = dialect;
+
+        FileConfiguration mainConfig = plugin.getConfigManager().getMainConfig();
+        String prefix = mainConfig.getString("storage.network.table_prefix", DEFAULT_TABLE_PREFIX);
+        if (!prefix.matches("[A-Za-z0-9_]*")) {
+            plugin.getLogger().warning("Invalid storage.network.table_prefix: " + prefix
+                    + ". Using default: " + DEFAULT_TABLE_PREFIX);
+            prefix = DEFAULT_TABLE_PREFIX;
+        }
+
+        this.playersTable = prefix + "players";
+        this.cooldownsTable = prefix + "cooldowns";
+        this.toolUsageTable = prefix + "tool_usage";
+        this.enchantUsageTable = prefix + "enchantment_usage";
+        this.milestoneBlocksTable = prefix + "milestone_blocks";
+        this.milestoneClaimsTable = prefix + "milestone_claims";
+        this.changeLogTable = prefix + "change_log";
+        this.childTables = new String[]{
+                cooldownsTable, toolUsageTable, enchantUsageTable, milestoneBlocksTable, milestoneClaimsTable
+        };
+
+        this.incrementPlayerSql = dialect.upsert(playersTable, PLAYER_KEY, PLAYER_COLUMNS, PLAYER_COUNTERS);
+        this.replacePlayerSql = dialect.upsert(playersTable, PLAYER_KEY, PLAYER_COLUMNS, Set.of());
+        this.upsertCooldownSql = dialect.upsert(cooldownsTable,
+                new String[]{"player_id", "enchantment"}, new String[]{"cooldown_end"}, Set.of());
+        this.incrementToolUsageSql = dialect.upsert(toolUsageTable,
+                new String[]{"player_id", "tool_type"}, new String[]{"usage_count"}, Set.of("usage_count"));
+        this.incrementEnchantUsageSql = dialect.upsert(enchantUsageTable,
+                new String[]{"player_id", "enchantment"}, new String[]{"usage_count"}, Set.of("usage_count"));
+        this.incrementMilestoneBlocksSql = dialect.upsert(milestoneBlocksTable,
+                new String[]{"player_id", "material"}, new String[]{"blocks_broken"}, Set.of("blocks_broken"));
+        this.replaceMilestoneBlocksSql = dialect.upsert(milestoneBlocksTable,
+                new String[]{"player_id", "material"}, new String[]{"blocks_broken"}, Set.of());
+        this.replaceMilestoneClaimSql = dialect.upsert(milestoneClaimsTable,
+                new String[]{"player_id", "material"}, new String[]{"claimed_mask"}, Set.of());
+
+        this.changeLogEnabled = mainConfig.getBoolean("storage.network.sync.enabled", true);
+        String configuredNodeId = mainConfig.getString("storage.network.sync.node_id", "");
+        this.nodeId = configuredNodeId == null || configuredNodeId.isEmpty()
+                ? UUID.randomUUID().toString().substring(0, NODE_ID_LENGTH)
+                : configuredNodeId;
+    }
+
+    @Override
+    public void initialize() throws Exception {
+        FileConfiguration mainConfig = plugin.getConfigManager().getMainConfig();
+        dataSource = new HikariDataSource(createPoolConfig(mainConfig));
+
+        createTables();
+
+        startBatchWriter();
+
+        plugin.getLogger().info(dialect.name() + " storage initialized successfully (pool "
+                + dataSource.getMaximumPoolSize() + " connections)");
+    }
+
+    /**
+     * Pool settings; storage.network.jdbc_url replaces the generated URL (e.g. an embedded H2 in
+     * MODE=MySQL for testing) and skips the driver tuning defaults
+     */
+    private HikariConfig createPoolConfig(FileConfiguration mainConfig) {
+        HikariConfig config = new HikariConfig();
+
+        String jdbcUrl = mainConfig.getString("storage.network.jdbc_url", "");
+        boolean customUrl = jdbcUrl != null && !jdbcUrl.isEmpty();
+        if (!customUrl) {
+            jdbcUrl = dialect.getJdbcUrl(
+                    mainConfig.getString("storage.network.host", DEFAULT_HOST),
+                    mainConfig.getInt("storage.network.port", dialect.getDefaultPort()),
+                    mainConfig.getString("storage.network.database", DEFAULT_DATABASE));
+
+            // Batched statements are sent as one round trip instead of one per row
+            if (dialect == SqlDialect.MYSQL) {
+                config.addDataSourceProperty("useBulkStmts", "true");
+                config.addDataSourceProperty("cachePrepStmts", "true");
+                config.addDataSourceProperty("prepStmtCacheSize", "250");
+            } else {
+                config.addDataSourceProperty("reWriteBatchedInserts", "true");
+            }
+        }
+
+        // The bundled drivers are relocated, so they are not found through DriverManager
+        if (jdbcUrl.startsWith(dialect.getUrlPrefix())) {
+            config.setDriverClassName(dialect.getDriverClassName());
+        }
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(mainConfig.getString("storage.network.username", ""));
+        config.setPassword(mainConfig.getString("storage.network.password", ""));
+        config.setPoolName("GhastTools-" + dialect.name());
+
+        // Extra driver properties, e.g. useSSL or sslmode
+        ConfigurationSection properties = mainConfig.getConfigurationSection("storage.network.properties");
+        if (properties != null) {
+            for (String key : properties.getKeys(false)) {
+                config.addDataSourceProperty(key, properties.getString(key));
+            }
+        }
+
+        int poolSize = mainConfig.getInt("storage.network.pool_size", DEFAULT_POOL_SIZE);
+        if (poolSize <= 0) {
+            plugin.getLogger().warning("Invalid storage.network.pool_size: " + poolSize
+                    + ". Using default: " + DEFAULT_POOL_SIZE);
+            poolSize = DEFAULT_POOL_SIZE;
+        }
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(Math.min(poolSize, mainConfig.getInt("storage.network.minimum_idle", DEFAULT_MINIMUM_IDLE)));
+
+        config.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
+        config.setIdleTimeout(IDLE_TIMEOUT_MS);
+        config.setMaxLifetime(MAX_LIFETIME_MS);
+        config.setAutoCommit(true);
+
+        return config;
+    }
+
+    /**
+     * Start the group-commit writer that batches player saves into shared transactions
+     */
+    private void startBatchWriter() {
+        FileConfiguration mainConfig = plugin.getConfigManager().getMainConfig();
+
+        int maxBatchSize = mainConfig.getInt("storage.batch_max_size", DEFAULT_BATCH_MAX_SIZE);
+        if (maxBatchSize <= 0) {
+            plugin.getLogger().warning("Invalid storage.batch_max_size: " + maxBatchSize
+                    + ". Using default: " + DEFAULT_BATCH_MAX_SIZE);
+            maxBatchSize = DEFAULT_BATCH_MAX_SIZE;
+        }
+
+        int maxLatencyMs = mainConfig.getInt("storage.batch_max_latency_ms", DEFAULT_BATCH_MAX_LATENCY_MS);
+        if (maxLatencyMs < 0) {
+            plugin.getLogger().warning("Invalid storage.batch_max_latency_ms: " + maxLatencyMs
+                    + ". Using default: " + DEFAULT_BATCH_MAX_LATENCY_MS);
+            maxLatencyMs = DEFAULT_BATCH_MAX_LATENCY_MS;
+        }
+
+        batchWriter = new JdbcBatchWriter(plugin, dialect.name(), this::writeBatch, maxBatchSize, maxLatencyMs);
+        batchWriter.start();
+    }
+
+    /**
+     * Create the tables: 16-byte binary player ids and plain names, one claim bitmask per material
+     */
+    private void createTables() throws SQLException {
+        String binaryId = dialect.getBinaryIdType();
+        String doubleType = dialect.getDoubleType();
+        String name = "VARCHAR(" + NAME_LENGTH + ")";
+
+        String createPlayersTable = "CREATE TABLE IF NOT EXISTS " + playersTable + " ("
+                + "player_id " + binaryId + " NOT NULL PRIMARY KEY, "
+                + "total_blocks_broken BIGINT NOT NULL DEFAULT 0, "
+                + "total_xp_earned " + doubleType + " NOT NULL DEFAULT 0, "
+                + "total_essence_earned " + doubleType + " NOT NULL DEFAULT 0, "
+                + "last_enchant_used " + name + " DEFAULT '', "
+                + "total_meteors_spawned INT NOT NULL DEFAULT 0, "
+                + "total_airstrikes INT NOT NULL DEFAULT 0, "
+                + "favorite_tool_type " + name + " DEFAULT '', "
+                + "last_seen BIGINT NOT NULL DEFAULT 0, "
+                + "updated_at BIGINT NOT NULL DEFAULT 0"
+                + dialect.inlineIndex("idx_" + playersTable + "_last_seen", "last_seen")
+                + ")";
+
+        String createChangeLogTable = "CREATE TABLE IF NOT EXISTS " + changeLogTable + " ("
+                + "seq " + dialect.getSequenceType() + ", "
+                + "player_id " + binaryId + " NOT NULL, "
+                + "node_id " + name + " NOT NULL, "
+                + "kind SMALLINT NOT NULL, "
+                + "created_at BIGINT NOT NULL"
+                + dialect.inlineIndex("idx_" + changeLogTable + "_player", "player_id, seq")
+                + dialect.inlineIndex("idx_" + changeLogTable + "_created", "created_at")
+                + ")";
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(createPlayersTable);
+                stmt.execute(createChildTable(cooldownsTable, "enchantment", "cooldown_end BIGINT NOT NULL"));
+                stmt.execute(createChildTable(toolUsageTable, "tool_type", "usage_count INT NOT NULL DEFAULT 0"));
+                stmt.execute(createChildTable(enchantUsageTable, "enchantment", "usage_count BIGINT NOT NULL DEFAULT 0"));
+                stmt.execute(createChildTable(milestoneBlocksTable, "material", "blocks_broken BIGINT NOT NULL DEFAULT 0"));
+                stmt.execute(createChildTable(milestoneClaimsTable, "material", "claimed_mask BIGINT NOT NULL DEFAULT 0"));
+
+                stmt.execute(createChangeLogTable);
+
+                String[][] indexes = {
+                        {playersTable, "idx_" + playersTable + "_last_seen", "last_seen"},
+                        {changeLogTable, "idx_" + changeLogTable + "_player", "player_id, seq"},
+                        {changeLogTable, "idx_" + changeLogTable + "_created", "created_at"}
+                };
+                for (String[] index : indexes) {
+                    String createIndex = dialect.createIndex(index[0], index[1], index[2]);
+                    if (createIndex != null) {
+                        stmt.execute(createIndex);
+                    }
+                }
+            }
+
+            conn.commit();
+            plugin.getLogger().info("Database tables created/verified successfully");
+
+        } catch (SQLException e) {
+            rollback(conn);
+            throw new SQLException("Failed to create database tables", e);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    private String createChildTable(String table, String nameColumn, String valueColumn) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "player_id " + dialect.getBinaryIdType() + " NOT NULL, "
+                + nameColumn + " VARCHAR(" + NAME_LENGTH + ") NOT NULL, "
+                + valueColumn + ", "
+                + "PRIMARY KEY (player_id, " + nameColumn + "))";
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (dataSource == null || dataSource.isClosed()) {
+            throw new SQLException("DataSource is not available");
+        }
+
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Proper connection cleanup
+     */
+    private void closeConnection(Connection conn) {
+        if (conn != null) {
+            try {
+                if (!conn.isClosed()) {
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Error closing database connection", e);
+            }
+        }
+    }
+
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                plugin.getLogger().log(Level.WARNING, "Failed to rollback transaction", rollbackEx);
+            }
+        }
+    }
+
+    @Override
+    public void savePlayerData(UUID playerId, PlayerData data) throws Exception {
+        try {
+            queuePlayerSave(playerId, data).get();
+        } catch (ExecutionException e) {
+            throw new Exception("Failed to save player data for " + playerId, e.getCause());
+        }
+    }
+
+    /**
+     * Queue the save for the group-commit writer
+     */
+    @Override
+    public CompletableFuture<Void> queuePlayerSave(UUID playerId, PlayerData data) {
+        if (batchWriter == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException(dialect.name() + " storage is not initialized"));
+        }
+        return batchWriter.submit(playerId, data);
+    }
+
+    /**
+     * Write a batch of queued saves in one transaction.
+     * Only what changed since the last flush of each player is written.
+     */
+    private void writeBatch(List<JdbcBatchWriter.QueuedSave> batch) throws Exception {
+        // Every server locks rows in the same order, so concurrent batches cannot deadlock on each other
+        List<JdbcBatchWriter.QueuedSave> saves = new ArrayList<>(batch);
+        saves.sort(Comparator.comparing(JdbcBatchWriter.QueuedSave::getPlayerId));
+
+        List<PlayerData.Changes> changes = new ArrayList<>(saves.size());
+        for (JdbcBatchWriter.QueuedSave save : saves) {
+            changes.add(save.getData().captureChanges());
+        }
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            savePlayerRows(conn, saves, changes);
+            saveCooldowns(conn, saves, changes);
+            saveCounters(conn, incrementToolUsageSql, saves, changes, PlayerData.Changes::getToolUsage);
+            saveCounters(conn, incrementEnchantUsageSql, saves, changes, PlayerData.Changes::getEnchantmentUsage);
+            saveMilestoneData(conn, saves, changes);
+
+            List<UUID> playerIds = new ArrayList<>(saves.size());
+            for (JdbcBatchWriter.QueuedSave save : saves) {
+                playerIds.add(save.getPlayerId());
+            }
+            logChanges(conn, playerIds);
+
+            conn.commit();
+
+        } catch (Exception e) {
+            rollback(conn);
+
+            // Nothing was written, keep the changes for the next flush
+            for (int i = 0; i < saves.size(); i++) {
+                saves.get(i).getData().restoreChanges(changes.get(i));
+            }
+            throw new Exception("Failed to save batch of " + saves.size() + " players", e);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    /**
+     * Write the main player rows, incrementing counters in place unless they were set to absolute values
+     */
+    private void savePlayerRows(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                                List<PlayerData.Changes> changes) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (PreparedStatement incrementStmt = conn.prepareStatement(incrementPlayerSql);
+             PreparedStatement replaceStmt = conn.prepareStatement(replacePlayerSql)) {
+            for (int i = 0; i < saves.size(); i++) {
+                PlayerData data = saves.get(i).getData();
+                PlayerData.Changes change = changes.get(i);
+                PreparedStatement stmt = change.isCountersOverwritten() ? replaceStmt : incrementStmt;
+
+                stmt.setBytes(1, SQLiteStorage.uuidToBytes(saves.get(i).getPlayerId()));
+                stmt.setLong(2, change.getBlocksBroken());
+                stmt.setDouble(3, change.getXpEarned());
+                stmt.setDouble(4, change.getEssenceEarned());
+                stmt.setString(5, data.getLastEnchantUsed());
+                stmt.setInt(6, change.getMeteorsSpawned());
+                stmt.setInt(7, change.getAirstrikes());
+                stmt.setString(8, data.getFavoriteToolType());
+                stmt.setLong(9, data.getLastSeen());
+                stmt.setLong(10, now);
+                stmt.addBatch();
+            }
+            incrementStmt.executeBatch();
+            replaceStmt.executeBatch();
+        }
+    }
+
+    /**
+     * Write cooldowns that were set since the last flush
+     */
+    private void saveCooldowns(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                               List<PlayerData.Changes> changes) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(upsertCooldownSql)) {
+            for (int i = 0; i < saves.size(); i++) {
+                byte[] id = SQLiteStorage.uuidToBytes(saves.get(i).getPlayerId());
+                for (Map.Entry<String, Long> entry : changes.get(i).getCooldowns().entrySet()) {
+                    addNameRow(stmt, id, entry.getKey(), entry.getValue());
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Batch increments of named usage counters
+     */
+    private void saveCounters(Connection conn, String sql, List<JdbcBatchWriter.QueuedSave> saves,
+                              List<PlayerData.Changes> changes,
+                              Function<PlayerData.Changes, Map<String, ? extends Number>> counters) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < saves.size(); i++) {
+                byte[] id = SQLiteStorage.uuidToBytes(saves.get(i).getPlayerId());
+                for (Map.Entry<String, ? extends Number> entry : counters.apply(changes.get(i)).entrySet()) {
+                    addNameRow(stmt, id, entry.getKey(), entry.getValue().longValue());
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Save milestone changes: block counts are incremented unless they were set, claim masks are replaced
+     */
+    private void saveMilestoneData(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                                   List<PlayerData.Changes> changes) throws SQLException {
+        String deleteMilestoneBlocks = "DELETE FROM " + milestoneBlocksTable + " WHERE player_id = ?";
+        String deleteMilestoneClaims = "DELETE FROM " + milestoneClaimsTable + " WHERE player_id = ?";
+        String deleteMilestoneBlock = "DELETE FROM " + milestoneBlocksTable + " WHERE player_id = ? AND material = ?";
+        String deleteMilestoneClaim = "DELETE FROM " + milestoneClaimsTable + " WHERE player_id = ? AND material = ?";
+
+        // Full rewrites clear the player's rows before anything is inserted
+        try (PreparedStatement blocksStmt = conn.prepareStatement(deleteMilestoneBlocks);
+             PreparedStatement claimsStmt = conn.prepareStatement(deleteMilestoneClaims)) {
+            for (int i = 0; i < saves.size(); i++) {
+                if (changes.get(i).getMilestoneChanges().isFullRewrite()) {
+                    byte[] id = SQLiteStorage.uuidToBytes(saves.get(i).getPlayerId());
+                    blocksStmt.setBytes(1, id);
+                    blocksStmt.addBatch();
+                    claimsStmt.setBytes(1, id);
+                    claimsStmt.addBatch();
+                }
+            }
+            blocksStmt.executeBatch();
+            claimsStmt.executeBatch();
+        }
+
+        try (PreparedStatement incrementStmt = conn.prepareStatement(incrementMilestoneBlocksSql);
+             PreparedStatement replaceStmt = conn.prepareStatement(replaceMilestoneBlocksSql);
+             PreparedStatement deleteStmt = conn.prepareStatement(deleteMilestoneBlock);
+             PreparedStatement replaceClaimStmt = conn.prepareStatement(replaceMilestoneClaimSql);
+             PreparedStatement deleteClaimStmt = conn.prepareStatement(deleteMilestoneClaim)) {
+
+            for (int i = 0; i < saves.size(); i++) {
+                MilestoneData.Changes milestoneChanges = changes.get(i).getMilestoneChanges();
+                if (milestoneChanges.isEmpty()) {
+                    continue;
+                }
+
+                byte[] id = SQLiteStorage.uuidToBytes(saves.get(i).getPlayerId());
+                Map<Material, Long> overwrittenBlocks = milestoneChanges.getOverwrittenBlocks();
+
+                for (Map.Entry<Material, Long> entry : milestoneChanges.getBlockDeltas().entrySet()) {
+                    if (entry.getValue() > 0 && !overwrittenBlocks.containsKey(entry.getKey())) {
+                        addNameRow(incrementStmt, id, entry.getKey().name(), entry.getValue());
+                    }
+                }
+
+                for (Map.Entry<Material, Long> entry : overwrittenBlocks.entrySet()) {
+                    if (entry.getValue() > 0) {
+                        addNameRow(replaceStmt, id, entry.getKey().name(), entry.getValue());
+                    } else if (!milestoneChanges.isFullRewrite()) {
+                        deleteStmt.setBytes(1, id);
+                        deleteStmt.setString(2, entry.getKey().name());
+                        deleteStmt.addBatch();
+                    }
+                }
+
+                for (Map.Entry<Material, Long> entry : milestoneChanges.getClaims().entrySet()) {
+                    if (entry.getValue() != 0) {
+                        addNameRow(replaceClaimStmt, id, entry.getKey().name(), entry.getValue());
+                    } else if (!milestoneChanges.isFullRewrite()) {
+                        deleteClaimStmt.setBytes(1, id);
+                        deleteClaimStmt.setString(2, entry.getKey().name());
+                        deleteClaimStmt.addBatch();
+                    }
+                }
+            }
+
+            incrementStmt.executeBatch();
+            replaceStmt.executeBatch();
+            deleteStmt.executeBatch();
+            replaceClaimStmt.executeBatch();
+            deleteClaimStmt.executeBatch();
+        }
+    }
+
+    private void addNameRow(PreparedStatement stmt, byte[] id, String name, long value) throws SQLException {
+        stmt.setBytes(1, id);
+        stmt.setString(2, name);
+        stmt.setLong(3, value);
+        stmt.addBatch();
+    }
+
+    @Override
+    public PlayerData loadPlayerData(UUID playerId) throws Exception {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            PlayerData data = new PlayerData(playerId);
+            byte[] id = SQLiteStorage.uuidToBytes(playerId);
+
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM " + playersTable + " WHERE player_id = ?")) {
+                stmt.setBytes(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        readPlayerRow(rs, data);
+                    }
+                }
+            }
+
+            String selectCooldowns = "SELECT enchantment, cooldown_end FROM " + cooldownsTable
+                    + " WHERE player_id = ? AND cooldown_end > ?";
+            try (PreparedStatement stmt = conn.prepareStatement(selectCooldowns)) {
+                stmt.setBytes(1, id);
+                stmt.setLong(2, System.currentTimeMillis());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        data.restoreCooldown(rs.getString(1), rs.getLong(2));
+                    }
+                }
+            }
+
+            forEachRow(conn, "SELECT tool_type, usage_count FROM " + toolUsageTable, id, rs -> {
+                data.restoreToolUsage(rs.getString(1), rs.getInt(2));
+            });
+            forEachRow(conn, "SELECT enchantment, usage_count FROM " + enchantUsageTable, id, rs -> {
+                data.restoreEnchantmentUsage(rs.getString(1), rs.getLong(2));
+            });
+            forEachRow(conn, "SELECT material, blocks_broken FROM " + milestoneBlocksTable, id, rs -> {
+                Material material = Material.getMaterial(rs.getString(1));
+                if (material != null) {
+                    data.getMilestoneData().setBlocksBroken(material, rs.getLong(2));
+                } else {
+                    plugin.getLogger().warning("Invalid material in milestone data: " + rs.getString(1));
+                }
+            });
+            forEachRow(conn, "SELECT material, claimed_mask FROM " + milestoneClaimsTable, id, rs -> {
+                Material material = Material.getMaterial(rs.getString(1));
+                if (material != null) {
+                    data.getMilestoneData().setClaimMask(material, rs.getLong(2));
+                } else {
+                    plugin.getLogger().warning("Invalid material in milestone data: " + rs.getString(1));
+                }
+            });
+
+            // Loaded state matches the database
+            data.clearChanges();
+            return data;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to load player data for " + playerId, e);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    /**
+     * Load many players with one query per table and chunk of ids
+     */
+    @Override
+    public Map<UUID, PlayerData> loadPlayerData(Collection<UUID> playerIds) throws Exception {
+        Map<UUID, PlayerData> players = BulkLoad.newPlayers(playerIds);
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            long now = System.currentTimeMillis();
+
+            for (List<UUID> chunk : BulkLoad.chunks(players.keySet())) {
+                BulkLoad.forEachRow(conn, "SELECT * FROM " + playersTable + " WHERE player_id IN (%s)", chunk, players,
+                        (data, rs) -> readPlayerRow(rs, data));
+                readChildRows(conn, chunk, players, now);
+            }
+
+            // Loaded state matches the database
+            for (PlayerData data : players.values()) {
+                data.clearChanges();
+            }
+            return players;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to load data for " + players.size() + " players", e);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    /**
+     * Read the rows of all child tables for a chunk of players
+     */
+    private void readChildRows(Connection conn, List<UUID> chunk, Map<UUID, PlayerData> players, long now) throws SQLException {
+        BulkLoad.forEachRow(conn, "SELECT player_id, enchantment, cooldown_end FROM " + cooldownsTable
+                        + " WHERE player_id IN (%s) AND cooldown_end > ?", chunk, players,
+                (data, rs) -> data.restoreCooldown(rs.getString(2), rs.getLong(3)), now);
+        BulkLoad.forEachRow(conn, "SELECT player_id, tool_type, usage_count FROM " + toolUsageTable
+                        + " WHERE player_id IN (%s)", chunk, players,
+                (data, rs) -> data.restoreToolUsage(rs.getString(2), rs.getInt(3)));
+        BulkLoad.forEachRow(conn, "SELECT player_id, enchantment, usage_count FROM " + enchantUsageTable
+                        + " WHERE player_id IN (%s)", chunk, players,
+                (data, rs) -> data.restoreEnchantmentUsage(rs.getString(2), rs.getLong(3)));
+        BulkLoad.forEachRow(conn, "SELECT player_id, material, blocks_broken FROM " + milestoneBlocksTable
+                        + " WHERE player_id IN (%s)", chunk, players, (data, rs) -> {
+                    Material material = Material.getMaterial(rs.getString(2));
+                    if (material != null) {
+                        data.getMilestoneData().setBlocksBroken(material, rs.getLong(3));
+                    }
+                });
+        BulkLoad.forEachRow(conn, "SELECT player_id, material, claimed_mask FROM " + milestoneClaimsTable
+                        + " WHERE player_id IN (%s)", chunk, players, (data, rs) -> {
+                    Material material = Material.getMaterial(rs.getString(2));
+                    if (material != null) {
+                        data.getMilestoneData().setClaimMask(material, rs.getLong(3));
+                    }
+                });
+    }
+
+    /**
+     * Run a query filtered to one player and pass each row to the consumer
+     */
+    private void forEachRow(Connection conn, String sql, byte[] id, RowConsumer consumer) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql + " WHERE player_id = ?")) {
+            stmt.setBytes(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs);
+                }
+            }
+        }
+    }
+
+    private void readPlayerRow(ResultSet rs, PlayerData data) throws SQLException {
+        data.setTotalBlocksBroken(rs.getLong("total_blocks_broken"));
+        data.setTotalXpEarned(rs.getDouble("total_xp_earned"));
+        data.setTotalEssenceEarned(rs.getDouble("total_essence_earned"));
+        data.setLastEnchantUsed(rs.getString("last_enchant_used"));
+        data.setTotalMeteorsSpawned(rs.getInt("total_meteors_spawned"));
+        data.setTotalAirstrikes(rs.getInt("total_airstrikes"));
+        data.setFavoriteToolType(rs.getString("favorite_tool_type"));
+        data.setLastSeen(rs.getLong("last_seen"));
+    }
+
+    @Override
+    public void forEachPlayerId(PlayerIdConsumer consumer) throws Exception {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            // PostgreSQL only streams results inside a transaction
+            conn.setAutoCommit(false);
+
+            try (ExportCursor players = new ExportCursor(conn, "SELECT player_id FROM " + playersTable)) {
+                for (; players.hasRow(); players.next()) {
+                    consumer.accept(SQLiteStorage.bytesToUuid(players.getId()));
+                }
+            }
+            conn.commit();
+
+        } catch (Exception e) {
+            rollback(conn);
+            throw e;
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public int cleanupOldData(int daysOffline) throws Exception {
+        if (daysOffline <= 0) {
+            return 0; // Safety check
+        }
+
+        long cutoffTime = System.currentTimeMillis() - (daysOffline * 24L * 60L * 60L * 1000L);
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            for (String table : childTables) {
+                String deleteChildren = "DELETE FROM " + table
+                        + " WHERE player_id IN (SELECT player_id FROM " + playersTable + " WHERE last_seen < ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(deleteChildren)) {
+                    stmt.setLong(1, cutoffTime);
+                    stmt.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + playersTable + " WHERE last_seen < ?")) {
+                stmt.setLong(1, cutoffTime);
+                int deleted = stmt.executeUpdate();
+                conn.commit();
+
+                plugin.getLogger().info("Cleaned up " + deleted + " old player records");
+                return deleted;
+            }
+
+        } catch (Exception e) {
+            rollback(conn);
+            throw new Exception("Failed to cleanup old data", e);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public boolean exportData(String fileName) throws Exception {
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+
+        Connection conn = null;
+        try (PlayerDataExport.Writer writer = new PlayerDataExport.Writer(file)) {
+            conn = getConnection();
+            // All pages read from one snapshot, players saved during the export are either fully in it or not at all
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            long now = System.currentTimeMillis();
+
+            // Keyset pages in player id order, every result is read completely before the next query:
+            // MariaDB buffers an open streaming result as soon as another statement runs on the connection
+            byte[] lastId = null;
+            while (true) {
+                Map<UUID, PlayerData> page = readExportPage(conn, lastId);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<UUID> chunk = new ArrayList<>(page.keySet());
+                readChildRows(conn, chunk, page, now);
+                for (PlayerData data : page.values()) {
+                    writer.write(data);
+                }
+                lastId = SQLiteStorage.uuidToBytes(chunk.get(chunk.size() - 1));
+            }
+            conn.commit();
+
+            writer.complete();
+            plugin.getLogger().info("Exported " + writer.getCount() + " players to " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return true;
+
+        } catch (Exception e) {
+            rollback(conn);
+            throw new Exception("Failed to export data", e);
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    /**
+     * Player rows following the given id (null for the first page), in id order
+     */
+    private Map<UUID, PlayerData> readExportPage(Connection conn, byte[] lastId) throws SQLException {
+        String sql = "SELECT * FROM " + playersTable + (lastId != null ? " WHERE player_id > ?" : "")
+                + " ORDER BY player_id LIMIT " + BulkLoad.CHUNK_SIZE;
+
+        Map<UUID, PlayerData> page = new LinkedHashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (lastId != null) {
+                stmt.setBytes(1, lastId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    PlayerData data = new PlayerData(SQLiteStorage.bytesToUuid(rs.getBytes("player_id")));
+                    readPlayerRow(rs, data);
+                    page.put(data.getPlayerId(), data);
+                }
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public boolean importData(String fileName) throws Exception {
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+        int imported = 0;
+
+        try (PlayerDataExport.Reader reader = new PlayerDataExport.Reader(file)) {
+            List<PlayerData> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            PlayerData data;
+            while ((data = reader.next()) != null) {
+                batch.add(data);
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    importPlayers(batch);
+                    imported += batch.size();
+                    batch.clear();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                importPlayers(batch);
+                imported += batch.size();
+            }
+
+            plugin.getLogger().info("Imported " + imported + " players from " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return true;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to import data after " + imported + " players", e);
+        }
+    }
+
+    /**
+     * Replace the stored data of a batch of imported players in one transaction
+     */
+    @Override
+    public void importPlayers(List<PlayerData> batch) throws SQLException {
+        String insertCooldown = SqlDialect.insert(cooldownsTable, new String[]{"player_id", "enchantment"}, new String[]{"cooldown_end"});
+        String insertToolUsage = SqlDialect.insert(toolUsageTable, new String[]{"player_id", "tool_type"}, new String[]{"usage_count"});
+        String insertEnchantUsage = SqlDialect.insert(enchantUsageTable, new String[]{"player_id", "enchantment"}, new String[]{"usage_count"});
+        String insertMilestoneBlocks = SqlDialect.insert(milestoneBlocksTable, new String[]{"player_id", "material"}, new String[]{"blocks_broken"});
+        String insertMilestoneClaim = SqlDialect.insert(milestoneClaimsTable, new String[]{"player_id", "material"}, new String[]{"claimed_mask"});
+        long now = System.currentTimeMillis();
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            // Imported players replace whatever is stored for them
+            for (String table : childTables) {
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + table + " WHERE player_id = ?")) {
+                    for (PlayerData data : batch) {
+                        stmt.setBytes(1, SQLiteStorage.uuidToBytes(data.getPlayerId()));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            try (PreparedStatement playerStmt = conn.prepareStatement(replacePlayerSql);
+                 PreparedStatement cooldownStmt = conn.prepareStatement(insertCooldown);
+                 PreparedStatement toolStmt = conn.prepareStatement(insertToolUsage);
+                 PreparedStatement enchantStmt = conn.prepareStatement(insertEnchantUsage);
+                 PreparedStatement blocksStmt = conn.prepareStatement(insertMilestoneBlocks);
+                 PreparedStatement claimStmt = conn.prepareStatement(insertMilestoneClaim)) {
+
+                for (PlayerData data : batch) {
+                    byte[] id = SQLiteStorage.uuidToBytes(data.getPlayerId());
+
+                    playerStmt.setBytes(1, id);
+                    playerStmt.setLong(2, data.getTotalBlocksBroken());
+                    playerStmt.setDouble(3, data.getTotalXpEarned());
+                    playerStmt.setDouble(4, data.getTotalEssenceEarned());
+                    playerStmt.setString(5, data.getLastEnchantUsed());
+                    playerStmt.setInt(6, data.getTotalMeteorsSpawned());
+                    playerStmt.setInt(7, data.getTotalAirstrikes());
+                    playerStmt.setString(8, data.getFavoriteToolType());
+                    playerStmt.setLong(9, data.getLastSeen());
+                    playerStmt.setLong(10, now);
+                    playerStmt.addBatch();
+
+                    for (Map.Entry<String, Long> entry : data.getEnchantmentCooldowns().entrySet()) {
+                        addNameRow(cooldownStmt, id, entry.getKey(), entry.getValue());
+                    }
+                    for (Map.Entry<String, Integer> entry : data.getToolUsageCount().entrySet()) {
+                        addNameRow(toolStmt, id, entry.getKey(), entry.getValue());
+                    }
+                    for (Map.Entry<String, Long> entry : data.getEnchantmentUsageCount().entrySet()) {
+                        addNameRow(enchantStmt, id, entry.getKey(), entry.getValue());
+                    }
+                    for (Map.Entry<Material, Long> entry : data.getMilestoneData().getAllBlocksBroken().entrySet()) {
+                        addNameRow(blocksStmt, id, entry.getKey().name(), entry.getValue());
+                    }
+                    for (Map.Entry<Material, Long> entry : data.getMilestoneData().getAllClaimMasks().entrySet()) {
+                        addNameRow(claimStmt, id, entry.getKey().name(), entry.getValue());
+                    }
+                }
+
+                playerStmt.executeBatch();
+                cooldownStmt.executeBatch();
+                toolStmt.executeBatch();
+                enchantStmt.executeBatch();
+                blocksStmt.executeBatch();
+                claimStmt.executeBatch();
+            }
+
+            List<UUID> playerIds = new ArrayList<>(batch.size());
+            for (PlayerData data : batch) {
+                playerIds.add(data.getPlayerId());
+            }
+            logChanges(conn, playerIds);
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            rollback(conn);
+            throw e;
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    /**
+     * Append CHANGED entries for written players inside the write transaction
+     */
+    private void logChanges(Connection conn, List<UUID> playerIds) throws SQLException {
+        if (!changeLogEnabled || playerIds.isEmpty()) {
+            return;
+        }
+
+        String insertEntry = "INSERT INTO " + changeLogTable + " (player_id, node_id, kind, created_at) VALUES (?, ?, ?, ?)";
+        long now = System.currentTimeMillis();
+        try (PreparedStatement stmt = conn.prepareStatement(insertEntry)) {
+            for (UUID playerId : playerIds) {
+                stmt.setBytes(1, SQLiteStorage.uuidToBytes(playerId));
+                stmt.setString(2, nodeId);
+                stmt.setInt(3, Kind.CHANGED.getCode());
+                stmt.setLong(4, now);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    @Override
+    public boolean isChangeLogEnabled() {
+        return changeLogEnabled;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public long append(UUID playerId, Kind kind) throws Exception {
+        String insertEntry = "INSERT INTO " + changeLogTable + " (player_id, node_id, kind, created_at) VALUES (?, ?, ?, ?)";
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(insertEntry, new String[]{"seq"})) {
+                stmt.setBytes(1, SQLiteStorage.uuidToBytes(playerId));
+                stmt.setString(2, nodeId);
+                stmt.setInt(3, kind.getCode());
+                stmt.setLong(4, System.currentTimeMillis());
+                stmt.executeUpdate();
+
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("No sequence number returned for change log entry");
+                    }
+                    return keys.getLong(1);
+                }
+            }
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public long getLatestSequence() throws Exception {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(seq) FROM " + changeLogTable)) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<Entry> readSince(long afterSequence, int limit) throws Exception {
+        String selectEntries = "SELECT seq, player_id, node_id, kind, created_at FROM " + changeLogTable
+                + " WHERE seq > ? AND node_id <> ? ORDER BY seq LIMIT " + limit;
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            List<Entry> entries = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(selectEntries)) {
+                stmt.setLong(1, afterSequence);
+                stmt.setString(2, nodeId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Entry entry = readEntry(rs);
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+            }
+            return entries;
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public Entry findLastOwnership(UUID playerId, long beforeSequence) throws Exception {
+        String selectOwnership = "SELECT seq, player_id, node_id, kind, created_at FROM " + changeLogTable
+                + " WHERE player_id = ? AND seq < ? AND kind IN (?, ?) ORDER BY seq DESC LIMIT 1";
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(selectOwnership)) {
+                stmt.setBytes(1, SQLiteStorage.uuidToBytes(playerId));
+                stmt.setLong(2, beforeSequence);
+                stmt.setInt(3, Kind.ACQUIRED.getCode());
+                stmt.setInt(4, Kind.RELEASED.getCode());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? readEntry(rs) : null;
+                }
+            }
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public boolean isReleased(UUID playerId, String ownerNodeId, long afterSequence) throws Exception {
+        String selectRelease = "SELECT 1 FROM " + changeLogTable
+                + " WHERE player_id = ? AND node_id = ? AND kind = ? AND seq > ? LIMIT 1";
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(selectRelease)) {
+                stmt.setBytes(1, SQLiteStorage.uuidToBytes(playerId));
+                stmt.setString(2, ownerNodeId);
+                stmt.setInt(3, Kind.RELEASED.getCode());
+                stmt.setLong(4, afterSequence);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    @Override
+    public int prune(long createdBefore) throws Exception {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + changeLogTable + " WHERE created_at < ?")) {
+                stmt.setLong(1, createdBefore);
+                return stmt.executeUpdate();
+            }
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
+    private Entry readEntry(ResultSet rs) throws SQLException {
+        Kind kind = Kind.fromCode(rs.getInt("kind"));
+        if (kind == null) {
+            return null;
+        }
+        return new Entry(rs.getLong("seq"), SQLiteStorage.bytesToUuid(rs.getBytes("player_id")),
+                rs.getString("node_id"), kind, rs.getLong("created_at"));
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        plugin.getLogger().info("Shutting down " + dialect.name() + " storage...");
+
+        // Write queued saves while the pool is still open
+        if (batchWriter != null) {
+            batchWriter.shutdown();
+            batchWriter = null;
+        }
+
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+
+            long startTime = System.currentTimeMillis();
+            while (!dataSource.isClosed() &&
+                    (System.currentTimeMillis() - startTime) < TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS)) {
+                Thread.sleep(100);
+            }
+
+            if (!dataSource.isClosed()) {
+                plugin.getLogger().warning("DataSource " + dataSource.getPoolName() + " did not close within timeout period");
+            }
+        }
+
+        plugin.getLogger().info(dialect.name() + " storage shutdown completed");
+    }
+
+    /**
+     * Get connection pool statistics for monitoring
+     */
+    public Map<String, Object> getPoolStats() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            return Map.of(
+                    "active", dataSource.getHikariPoolMXBean().getActiveConnections(),
+                    "idle", dataSource.getHikariPoolMXBean().getIdleConnections(),
+                    "total", dataSource.getHikariPoolMXBean().getTotalConnections(),
+                    "waiting", dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(),
+                    "queuedSaves", batchWriter != null ? batchWriter.getQueueSize() : 0,
+                    "batchesWritten", batchWriter != null ? batchWriter.getBatchesWritten() : 0L
+            );
+        }
+        return Map.of();
+    }
+
+    /**
+     * Receives the rows of one player from a child table
+     */
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(ResultSet rs) throws SQLException;
+    }
+}
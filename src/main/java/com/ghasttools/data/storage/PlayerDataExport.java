@@ -0,0 +1,294 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.data.PlayerData;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.bukkit.Material;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming player data export format shared by all storage providers.
+ *
+ * Files are NDJSON: a header line with the format name and version, then one JSON object per player.
+ * Files ending in ".gz" are gzip compressed. Records are written and read one at a time, so memory
+ * use does not depend on the number of players.
+ */
+public final class PlayerDataExport {
+
+    public static final String FORMAT = "ghasttools-players";
+    public static final int VERSION = 1;
+    public static final String EXPORT_FOLDER = "exports";
+
+    private static final Gson GSON = new Gson();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private PlayerDataExport() {
+    }
+
+    /**
+     * Resolve an export file name inside the plugin's export folder (directories in the name are ignored)
+     */
+    public static File resolveFile(GhastToolsPlugin plugin, String fileName) {
+        File folder = new File(plugin.getDataFolder(), EXPORT_FOLDER);
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        return new File(folder, new File(fileName).getName());
+    }
+
+    private static boolean isGzip(File file) {
+        return file.getName().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * Convert a player to its export record
+     */
+    public static JsonObject toJson(PlayerData data) {
+        JsonObject json = new JsonObject();
+        json.addProperty("uuid", data.getPlayerId().toString());
+        json.addProperty("totalBlocksBroken", data.getTotalBlocksBroken());
+        json.addProperty("totalXpEarned", data.getTotalXpEarned());
+        json.addProperty("totalEssenceEarned", data.getTotalEssenceEarned());
+        json.addProperty("lastEnchantUsed", data.getLastEnchantUsed());
+        json.addProperty("totalMeteorsSpawned", data.getTotalMeteorsSpawned());
+        json.addProperty("totalAirstrikes", data.getTotalAirstrikes());
+        json.addProperty("favoriteToolType", data.getFavoriteToolType());
+        json.addProperty("lastSeen", data.getLastSeen());
+
+        JsonObject cooldowns = new JsonObject();
+        data.getEnchantmentCooldowns().forEach(cooldowns::addProperty);
+        json.add("cooldowns", cooldowns);
+
+        JsonObject toolUsage = new JsonObject();
+        data.getToolUsageCount().forEach(toolUsage::addProperty);
+        json.add("toolUsage", toolUsage);
+
+        JsonObject enchantmentUsage = new JsonObject();
+        data.getEnchantmentUsageCount().forEach(enchantmentUsage::addProperty);
+        json.add("enchantmentUsage", enchantmentUsage);
+
+        JsonObject milestoneBlocks = new JsonObject();
+        data.getMilestoneData().forEachBlocksBroken((material, count) -> milestoneBlocks.addProperty(material.name(), count));
+        json.add("milestoneBlocks", milestoneBlocks);
+
+        JsonArray milestoneClaims = new JsonArray();
+        for (Map.Entry<String, Boolean> entry : data.getMilestoneData().getAllClaimedMilestones().entrySet()) {
+            if (entry.getValue()) {
+                milestoneClaims.add(entry.getKey());
+            }
+        }
+        json.add("milestoneClaims", milestoneClaims);
+
+        return json;
+    }
+
+    /**
+     * Convert an export record back to a player
+     */
+    public static PlayerData fromJson(JsonObject json) {
+        PlayerData data = new PlayerData(UUID.fromString(json.get("uuid").getAsString()));
+
+        data.setTotalBlocksBroken(getLong(json, "totalBlocksBroken"));
+        data.setTotalXpEarned(getDouble(json, "totalXpEarned"));
+        data.setTotalEssenceEarned(getDouble(json, "totalEssenceEarned"));
+        data.setLastEnchantUsed(getString(json, "lastEnchantUsed"));
+        data.setTotalMeteorsSpawned((int) getLong(json, "totalMeteorsSpawned"));
+        data.setTotalAirstrikes((int) getLong(json, "totalAirstrikes"));
+        data.setFavoriteToolType(getString(json, "favoriteToolType"));
+
+        for (Map.Entry<String, JsonElement> entry : getObject(json, "cooldowns").entrySet()) {
+            data.restoreCooldown(entry.getKey(), entry.getValue().getAsLong());
+        }
+        for (Map.Entry<String, JsonElement> entry : getObject(json, "toolUsage").entrySet()) {
+            data.restoreToolUsage(entry.getKey(), entry.getValue().getAsInt());
+        }
+        for (Map.Entry<String, JsonElement> entry : getObject(json, "enchantmentUsage").entrySet()) {
+            data.restoreEnchantmentUsage(entry.getKey(), entry.getValue().getAsLong());
+        }
+
+        for (Map.Entry<String, JsonElement> entry : getObject(json, "milestoneBlocks").entrySet()) {
+            Material material = Material.getMaterial(entry.getKey());
+            if (material != null) {
+                data.getMilestoneData().setBlocksBroken(material, entry.getValue().getAsLong());
+            }
+        }
+        if (json.has("milestoneClaims")) {
+            for (JsonElement claim : json.getAsJsonArray("milestoneClaims")) {
+                data.getMilestoneData().setMilestoneClaimed(claim.getAsString(), true);
+            }
+        }
+
+        // Setters above touch lastSeen, so it is restored last
+        data.setLastSeen(getLong(json, "lastSeen"));
+        return data;
+    }
+
+    private static long getLong(JsonObject json, String key) {
+        return json.has(key) ? json.get(key).getAsLong() : 0L;
+    }
+
+    private static double getDouble(JsonObject json, String key) {
+        return json.has(key) ? json.get(key).getAsDouble() : 0.0;
+    }
+
+    private static String getString(JsonObject json, String key) {
+        return json.has(key) && !json.get(key).isJsonNull() ? json.get(key).getAsString() : "";
+    }
+
+    private static JsonObject getObject(JsonObject json, String key) {
+        return json.has(key) ? json.getAsJsonObject(key) : new JsonObject();
+    }
+
+    /**
+     * Writes players one line at a time to a temporary file that replaces the target on close
+     */
+    public static class Writer implements Closeable {
+        private final File target;
+        private final File tempFile;
+        private final BufferedWriter out;
+        private int count;
+        private boolean completed;
+
+        public Writer(File target) throws IOException {
+            this.target = target;
+            this.tempFile = new File(target.getParentFile(), target.getName() + ".tmp");
+
+            OutputStream stream = new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE);
+            if (isGzip(target)) {
+                stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+            }
+            this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            JsonObject header = new JsonObject();
+            header.addProperty("format", FORMAT);
+            header.addProperty("version", VERSION);
+            header.addProperty("exportedAt", System.currentTimeMillis());
+            writeLine(header);
+        }
+
+        public void write(PlayerData data) throws IOException {
+            writeLine(toJson(data));
+            count++;
+        }
+
+        private void writeLine(JsonObject json) throws IOException {
+            out.write(GSON.toJson(json));
+            out.newLine();
+        }
+
+        /**
+         * Mark the export as complete; only complete exports replace the target file
+         */
+        public void complete() {
+            completed = true;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+
+            if (completed) {
+                Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * Reads players one line at a time
+     */
+    public static class Reader implements Closeable {
+        private final BufferedReader in;
+        private int lineNumber;
+
+        public Reader(File file) throws IOException {
+            if (!file.exists()) {
+                throw new IOException("Export file not found: " + file.getName());
+            }
+
+            InputStream stream = new FileInputStream(file);
+            if (isGzip(file)) {
+                stream = new GZIPInputStream(stream, BUFFER_SIZE);
+            }
+            this.in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            String headerLine = readLine();
+            try {
+                JsonObject header = headerLine != null ? JsonParser.parseString(headerLine).getAsJsonObject() : null;
+                if (header == null || !FORMAT.equals(getString(header, "format"))) {
+                    throw new IOException("Not a GhastTools export: " + file.getName());
+                }
+                if (getLong(header, "version") > VERSION) {
+                    throw new IOException("Export version " + getLong(header, "version") + " is newer than supported version " + VERSION);
+                }
+            } catch (JsonParseException | IllegalStateException e) {
+                in.close();
+                throw new IOException("Invalid export header in " + file.getName(), e);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return The next player, or null at the end of the file
+         */
+        public PlayerData next() throws IOException {
+            String line;
+            while ((line = readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    return fromJson(JsonParser.parseString(line).getAsJsonObject());
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid player record on line " + lineNumber, e);
+                }
+            }
+            return null;
+        }
+
+        private String readLine() throws IOException {
+            String line = in.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ghasttools.data.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns names (materials, enchantments, tool types) as small integer ids in a dictionary table.
+ * Ids are cached after the first lookup; the cache must be invalidated when a transaction that
+ * created new ids is rolled back.
+ */
+public class SQLiteDictionary {
+
+    private final String table;
+    private final String insertSql;
+    private final String selectSql;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    public SQLiteDictionary(String table) {
+        this.table = table;
+        this.insertSql = "INSERT OR IGNORE INTO " + table + " (name) VALUES (?)";
+        this.selectSql = "SELECT id FROM " + table + " WHERE name = ?";
+    }
+
+    /**
+     * Table definition for this dictionary
+     */
+    public String getCreateTableSql() {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)";
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Get the id for a name, creating the dictionary entry if needed.
+     * Must be called on the write connection.
+     */
+    public int getId(Connection conn, String name) throws SQLException {
+        Integer cached = ids.get(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Failed to intern '" + name + "' in " + table);
+                }
+                int id = rs.getInt(1);
+                ids.put(name, id);
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Drop cached ids (after a rollback they may no longer exist)
+     */
+    public void invalidate() {
+        ids.clear();
+    }
+}
@@ -0,0 +1,378 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.milestones.MilestoneData;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Online migration from the legacy text-keyed schema (v1) to the compact schema (v2).
+ *
+ * Players are copied in small chunks on a background thread, each chunk in its own transaction on
+ * the single write connection, so saves keep flowing in between. A player's legacy rows are deleted
+ * in the same transaction they are copied in, which makes the migration resumable after a restart.
+ * Players that are loaded or saved before their chunk is reached are migrated on demand first.
+ */
+public class SQLiteSchemaMigration {
+
+    private static final String[] LEGACY_TABLES = {
+            "enchantment_cooldowns", "tool_usage", "enchantment_usage",
+            "milestone_blocks_broken", "milestone_claims", "player_data"
+    };
+
+    private final GhastToolsPlugin plugin;
+    private final SQLiteStorage storage;
+    private final SQLiteDictionary materials;
+
+    private volatile boolean pending;
+    private volatile boolean running;
+    private Thread migrationThread;
+
+    // Configuration constants to avoid magic numbers
+    private static final int CHUNK_SIZE = 200;
+    private static final long CHUNK_PAUSE_MS = 50;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+    public SQLiteSchemaMigration(GhastToolsPlugin plugin, SQLiteStorage storage, SQLiteDictionary materials) {
+        this.plugin = plugin;
+        this.storage = storage;
+        this.materials = materials;
+    }
+
+    /**
+     * Check whether legacy tables are present and mark the migration as pending
+     */
+    public boolean detectLegacySchema(Connection conn) throws SQLException {
+        String selectLegacyTable = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'player_data'";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(selectLegacyTable)) {
+            pending = rs.next();
+        }
+        return pending;
+    }
+
+    /**
+     * True while legacy rows may still exist
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * Start copying players in the background
+     */
+    public void start() {
+        if (!pending) {
+            return;
+        }
+
+        running = true;
+        migrationThread = new Thread(this::run, "GhastTools-SQLite-Migration");
+        migrationThread.setDaemon(true);
+        migrationThread.start();
+    }
+
+    private void run() {
+        plugin.getLogger().info("Migrating SQLite data to the compact schema in the background...");
+        long startTime = System.currentTimeMillis();
+        int migrated = 0;
+
+        while (running && pending) {
+            Connection conn = null;
+            try {
+                conn = storage.getWriteConnection();
+                conn.setAutoCommit(false);
+
+                List<String> playerIds = new ArrayList<>(CHUNK_SIZE);
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT player_id FROM player_data LIMIT ?")) {
+                    stmt.setInt(1, CHUNK_SIZE);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            playerIds.add(rs.getString(1));
+                        }
+                    }
+                }
+
+                if (playerIds.isEmpty()) {
+                    dropLegacyTables(conn);
+                    // Flip the flag while still holding the only write connection, so no writer sees the dropped tables
+                    pending = false;
+                    try {
+                        conn.commit();
+                    } catch (SQLException e) {
+                        pending = true;
+                        throw e;
+                    }
+                    break;
+                }
+
+                for (String playerId : playerIds) {
+                    migratePlayer(conn, playerId);
+                }
+                conn.commit();
+
+                migrated += playerIds.size();
+                if (migrated % (CHUNK_SIZE * 10) == 0) {
+                    plugin.getLogger().info("Migrated " + migrated + " players to the compact schema...");
+                }
+
+            } catch (Exception e) {
+                rollback(conn);
+                plugin.getLogger().log(Level.WARNING, "Schema migration chunk failed, retrying later", e);
+                sleep(CHUNK_PAUSE_MS * 20);
+            } finally {
+                storage.closeConnection(conn);
+            }
+
+            // Let queued saves through between chunks
+            sleep(CHUNK_PAUSE_MS);
+        }
+
+        if (!pending) {
+            plugin.getLogger().info("Schema migration completed: " + migrated + " players in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+            vacuum();
+        }
+    }
+
+    /**
+     * Migrate a single player right away (before loading them)
+     */
+    public void migratePlayerNow(UUID playerId) throws SQLException {
+        if (!pending) {
+            return;
+        }
+
+        Connection conn = null;
+        try {
+            conn = storage.getWriteConnection();
+            conn.setAutoCommit(false);
+
+            if (pending) {
+                migratePlayer(conn, playerId.toString());
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            rollback(conn);
+            throw e;
+        } finally {
+            storage.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Copy one player's legacy rows into the v2 tables and delete them from the legacy tables.
+     * Runs inside the caller's transaction; does nothing if the player was already migrated.
+     */
+    public void migratePlayer(Connection conn, String legacyId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM player_data WHERE player_id = ?")) {
+            stmt.setString(1, legacyId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+            }
+        }
+
+        UUID playerId;
+        try {
+            playerId = UUID.fromString(legacyId);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Dropping legacy player data with invalid id: " + legacyId);
+            deleteLegacyPlayer(conn, legacyId);
+            return;
+        }
+
+        byte[] id = SQLiteStorage.uuidToBytes(playerId);
+
+        String copyPlayerData = """
+                    INSERT OR IGNORE INTO players
+                    (player_id, total_blocks_broken, total_xp_earned, total_essence_earned,
+                     last_enchant_used, total_meteors_spawned, total_airstrikes,
+                     favorite_tool_type, last_seen, created_at, updated_at)
+                    SELECT ?, total_blocks_broken, total_xp_earned, total_essence_earned,
+                           last_enchant_used, total_meteors_spawned, total_airstrikes,
+                           favorite_tool_type, last_seen, created_at, updated_at
+                    FROM player_data WHERE player_id = ?
+                """;
+        copyRows(conn, copyPlayerData, id, legacyId);
+
+        // Intern names first, then copy rows with their dictionary ids
+        internNames(conn, "enchantments", "enchantment", "enchantment_cooldowns", legacyId);
+        copyRows(conn, """
+                    INSERT OR IGNORE INTO player_cooldowns (player_id, enchantment_id, cooldown_end)
+                    SELECT ?, e.id, c.cooldown_end FROM enchantment_cooldowns c
+                    JOIN enchantments e ON e.name = c.enchantment
+                    WHERE c.player_id = ?
+                """, id, legacyId);
+
+        internNames(conn, "tool_types", "tool_type", "tool_usage", legacyId);
+        copyRows(conn, """
+                    INSERT OR IGNORE INTO player_tool_usage (player_id, tool_type_id, usage_count)
+                    SELECT ?, t.id, u.usage_count FROM tool_usage u
+                    JOIN tool_types t ON t.name = u.tool_type
+                    WHERE u.player_id = ?
+                """, id, legacyId);
+
+        internNames(conn, "enchantments", "enchantment", "enchantment_usage", legacyId);
+        copyRows(conn, """
+                    INSERT OR IGNORE INTO player_enchantment_usage (player_id, enchantment_id, usage_count)
+                    SELECT ?, e.id, u.usage_count FROM enchantment_usage u
+                    JOIN enchantments e ON e.name = u.enchantment
+                    WHERE u.player_id = ?
+                """, id, legacyId);
+
+        internNames(conn, "materials", "material", "milestone_blocks_broken", legacyId);
+        copyRows(conn, """
+                    INSERT OR IGNORE INTO player_milestone_blocks (player_id, material_id, blocks_broken)
+                    SELECT ?, m.id, b.blocks_broken FROM milestone_blocks_broken b
+                    JOIN materials m ON m.name = b.material
+                    WHERE b.player_id = ? AND b.blocks_broken > 0
+                """, id, legacyId);
+
+        migrateClaims(conn, id, legacyId);
+
+        deleteLegacyPlayer(conn, legacyId);
+    }
+
+    /**
+     * Milestone keys (MATERIAL_LEVEL) are folded into one claim bitmask per material
+     */
+    private void migrateClaims(Connection conn, byte[] id, String legacyId) throws SQLException {
+        String selectClaims = "SELECT milestone_key FROM milestone_claims WHERE player_id = ? AND claimed";
+        String upsertClaims = """
+                    INSERT INTO player_milestone_claim_masks (player_id, material_id, claimed_mask) VALUES (?, ?, ?)
+                    ON CONFLICT(player_id, material_id) DO UPDATE SET claimed_mask = claimed_mask | excluded.claimed_mask
+                """;
+
+        Map<String, Long> masks = new HashMap<>();
+        try (PreparedStatement selectStmt = conn.prepareStatement(selectClaims)) {
+            selectStmt.setString(1, legacyId);
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                while (rs.next()) {
+                    String milestoneKey = rs.getString("milestone_key");
+                    int separator = milestoneKey.lastIndexOf('_');
+                    int level = separator > 0 ? SQLiteStorage.parseMilestoneLevel(milestoneKey.substring(separator + 1)) : -1;
+                    if (level < 0 || level > MilestoneData.MAX_CLAIM_LEVEL) {
+                        plugin.getLogger().warning("Skipping invalid milestone key during migration: " + milestoneKey);
+                        continue;
+                    }
+
+                    masks.merge(milestoneKey.substring(0, separator), 1L << level, (a, b) -> a | b);
+                }
+            }
+        }
+
+        try (PreparedStatement upsertStmt = conn.prepareStatement(upsertClaims)) {
+            for (Map.Entry<String, Long> entry : masks.entrySet()) {
+                upsertStmt.setBytes(1, id);
+                upsertStmt.setInt(2, materials.getId(conn, entry.getKey()));
+                upsertStmt.setLong(3, entry.getValue());
+                upsertStmt.addBatch();
+            }
+            upsertStmt.executeBatch();
+        }
+    }
+
+    private void internNames(Connection conn, String dictionary, String column, String legacyTable, String legacyId) throws SQLException {
+        String sql = "INSERT OR IGNORE INTO " + dictionary + " (name) SELECT DISTINCT " + column
+                + " FROM " + legacyTable + " WHERE player_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, legacyId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void copyRows(Connection conn, String sql, byte[] id, String legacyId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setBytes(1, id);
+            stmt.setString(2, legacyId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void deleteLegacyPlayer(Connection conn, String legacyId) throws SQLException {
+        for (String table : LEGACY_TABLES) {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + table + " WHERE player_id = ?")) {
+                stmt.setString(1, legacyId);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Remaining legacy rows are orphans (no player_data row) and are dropped with their tables
+     */
+    private void dropLegacyTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : LEGACY_TABLES) {
+                stmt.execute("DROP TABLE IF EXISTS " + table);
+            }
+            stmt.execute("PRAGMA user_version = " + SQLiteStorage.SCHEMA_VERSION);
+        }
+    }
+
+    /**
+     * Give the pages of the dropped tables back to the file system
+     */
+    private void vacuum() {
+        Connection conn = null;
+        try {
+            conn = storage.getWriteConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("VACUUM");
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to vacuum database after schema migration", e);
+        } finally {
+            storage.closeConnection(conn);
+        }
+    }
+
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                plugin.getLogger().log(Level.WARNING, "Failed to rollback transaction", rollbackEx);
+            }
+        }
+        // Dictionary ids created in the rolled back transaction are gone
+        materials.invalidate();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            running = false;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop after the current chunk; the migration resumes on the next start
+     */
+    public void shutdown() {
+        running = false;
+
+        if (migrationThread != null) {
+            try {
+                migrationThread.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -6,11 +6,18 @@ import com.ghasttools.milestones.MilestoneData;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
@@ -20,17 +27,36 @@ import java.util.logging.Level;
 public class SQLiteStorage implements StorageProvider {
 
     private final GhastToolsPlugin plugin;
-    private HikariDataSource dataSource;
+    private HikariDataSource writeDataSource;
+    private HikariDataSource readDataSource;
+    private JdbcBatchWriter batchWriter;
+
+    // Dictionary tables for interned names
+    private final SQLiteDictionary materials = new SQLiteDictionary("materials");
+    private final SQLiteDictionary enchantments = new SQLiteDictionary("enchantments");
+    private final SQLiteDictionary toolTypes = new SQLiteDictionary("tool_types");
+    private final SQLiteSchemaMigration migration;
+
+    static final int SCHEMA_VERSION = 2;
 
     // Configuration constants to avoid magic numbers
-    private static final int CONNECTION_POOL_SIZE = 10;
+    private static final int DEFAULT_READ_POOL_SIZE = 4;
+    private static final int SQLITE_OPEN_READONLY = 0x00000001;
+    private static final String DEFAULT_SYNCHRONOUS = "NORMAL";
+    private static final long DEFAULT_CACHE_SIZE_KB = 16384; // 16 MB page cache per connection
+    private static final long DEFAULT_MMAP_SIZE_MB = 256;
+    private static final int BUSY_TIMEOUT_MS = 5000;
     private static final int CONNECTION_TIMEOUT_MS = 30000;
     private static final int IDLE_TIMEOUT_MS = 600000; // 10 minutes
     private static final int MAX_LIFETIME_MS = 1800000; // 30 minutes
     private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int DEFAULT_BATCH_MAX_SIZE = 256;
+    private static final int DEFAULT_BATCH_MAX_LATENCY_MS = 50;
+    private static final int IMPORT_BATCH_SIZE = 500;
 
     public SQLiteStorage(GhastToolsPlugin plugin) {
         this.plugin = plugin;
+        this.migration = new SQLiteSchemaMigration(plugin, this, materials);
     }
 
     @Override
@@ -41,124 +67,175 @@ public class SQLiteStorage implements StorageProvider {
         }
 
         File databaseFile = new File(dataFolder, "ghasttools.db");
+        String jdbcUrl = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        FileConfiguration mainConfig = plugin.getConfigManager().getMainConfig();
+
+        // Single write connection: SQLite allows one writer at a time, so a larger pool only adds SQLITE_BUSY contention
+        HikariConfig writeConfig = createPoolConfig(jdbcUrl, mainConfig, "GhastTools-SQLite-Write");
+        writeConfig.setMaximumPoolSize(1);
+        writeConfig.setMinimumIdle(1);
+        writeConfig.addDataSourceProperty("journal_mode", "WAL");
+        writeDataSource = new HikariDataSource(writeConfig);
+
+        // Create tables with proper error handling (also switches the file to WAL before readers open it)
+        createTables();
+
+        // Read-only pool: in WAL mode readers never block behind the writer
+        int readPoolSize = mainConfig.getInt("storage.connection_pool_size", DEFAULT_READ_POOL_SIZE);
+        if (readPoolSize <= 0) {
+            plugin.getLogger().warning("Invalid storage.connection_pool_size: " + readPoolSize
+                    + ". Using default: " + DEFAULT_READ_POOL_SIZE);
+            readPoolSize = DEFAULT_READ_POOL_SIZE;
+        }
+
+        HikariConfig readConfig = createPoolConfig(jdbcUrl, mainConfig, "GhastTools-SQLite-Read");
+        readConfig.setMaximumPoolSize(readPoolSize);
+        readConfig.addDataSourceProperty("open_mode", String.valueOf(SQLITE_OPEN_READONLY));
+        readConfig.setReadOnly(true);
+        readDataSource = new HikariDataSource(readConfig);
 
-        // Enhanced HikariCP configuration for better connection management
+        startBatchWriter();
+
+        // Copy legacy rows into the compact schema without blocking startup
+        migration.start();
+
+        plugin.getLogger().info("SQLite storage initialized successfully");
+    }
+
+    /**
+     * Pool settings shared by the write and read pools, with SQLite pragmas applied by the driver on connect
+     */
+    private HikariConfig createPoolConfig(String jdbcUrl, FileConfiguration mainConfig, String poolName) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl("jdbc:sqlite:" + databaseFile.getAbsolutePath());
-        config.setMaximumPoolSize(CONNECTION_POOL_SIZE);
+        config.setJdbcUrl(jdbcUrl);
+        config.setPoolName(poolName);
         config.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
         config.setIdleTimeout(IDLE_TIMEOUT_MS);
         config.setMaxLifetime(MAX_LIFETIME_MS);
         config.setConnectionTestQuery("SELECT 1");
         config.setAutoCommit(true);
 
-        // SQLite specific optimizations
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "250");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // SQLite pragmas (NORMAL is durable in WAL mode except for the last commits on power loss)
+        config.addDataSourceProperty("synchronous", mainConfig.getString("storage.sqlite.synchronous", DEFAULT_SYNCHRONOUS));
+        config.addDataSourceProperty("cache_size", String.valueOf(-mainConfig.getLong("storage.sqlite.cache_size_kb", DEFAULT_CACHE_SIZE_KB)));
+        config.addDataSourceProperty("mmap_size", String.valueOf(mainConfig.getLong("storage.sqlite.mmap_size_mb", DEFAULT_MMAP_SIZE_MB) * 1024L * 1024L));
+        config.addDataSourceProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT_MS));
 
-        dataSource = new HikariDataSource(config);
+        return config;
+    }
 
-        // Create tables with proper error handling
-        createTables();
+    /**
+     * Start the group-commit writer that batches player saves into shared transactions
+     */
+    private void startBatchWriter() {
+        FileConfiguration mainConfig = plugin.getConfigManager().getMainConfig();
+
+        int maxBatchSize = mainConfig.getInt("storage.batch_max_size", DEFAULT_BATCH_MAX_SIZE);
+        if (maxBatchSize <= 0) {
+            plugin.getLogger().warning("Invalid storage.batch_max_size: " + maxBatchSize
+                    + ". Using default: " + DEFAULT_BATCH_MAX_SIZE);
+            maxBatchSize = DEFAULT_BATCH_MAX_SIZE;
+        }
 
-        plugin.getLogger().info("SQLite storage initialized successfully");
+        int maxLatencyMs = mainConfig.getInt("storage.batch_max_latency_ms", DEFAULT_BATCH_MAX_LATENCY_MS);
+        if (maxLatencyMs < 0) {
+            plugin.getLogger().warning("Invalid storage.batch_max_latency_ms: " + maxLatencyMs
+                    + ". Using default: " + DEFAULT_BATCH_MAX_LATENCY_MS);
+            maxLatencyMs = DEFAULT_BATCH_MAX_LATENCY_MS;
+        }
+
+        batchWriter = new JdbcBatchWriter(plugin, "SQLite", this::writeBatch, maxBatchSize, maxLatencyMs);
+        batchWriter.start();
     }
 
     /**
-     * Enhanced table creation with milestone tables
+     * Create the compact schema: 16-byte BLOB player ids, dictionary ids for names and one claim
+     * bitmask per material. Legacy (v1) tables are migrated in the background.
      */
     private void createTables() throws SQLException {
         Connection conn = null;
         try {
-            conn = getConnection();
+            conn = getWriteConnection();
             conn.setAutoCommit(false);
 
             // Player data table
-            String createPlayerDataTable = """
-                        CREATE TABLE IF NOT EXISTS player_data (
-                            player_id TEXT PRIMARY KEY,
-                            total_blocks_broken INTEGER DEFAULT 0,
-                            total_xp_earned REAL DEFAULT 0.0,
-                            total_essence_earned REAL DEFAULT 0.0,
+            String createPlayersTable = """
+                        CREATE TABLE IF NOT EXISTS players (
+                            player_id BLOB PRIMARY KEY,
+                            total_blocks_broken INTEGER NOT NULL DEFAULT 0,
+                            total_xp_earned REAL NOT NULL DEFAULT 0.0,
+                            total_essence_earned REAL NOT NULL DEFAULT 0.0,
                             last_enchant_used TEXT DEFAULT '',
-                            total_meteors_spawned INTEGER DEFAULT 0,
-                            total_airstrikes INTEGER DEFAULT 0,
+                            total_meteors_spawned INTEGER NOT NULL DEFAULT 0,
+                            total_airstrikes INTEGER NOT NULL DEFAULT 0,
                             favorite_tool_type TEXT DEFAULT '',
-                            last_seen INTEGER DEFAULT 0,
+                            last_seen INTEGER NOT NULL DEFAULT 0,
                             created_at INTEGER DEFAULT (strftime('%s', 'now')),
                             updated_at INTEGER DEFAULT (strftime('%s', 'now'))
-                        )
+                        ) WITHOUT ROWID
                     """;
 
             // Enchantment cooldowns table
             String createCooldownsTable = """
-                        CREATE TABLE IF NOT EXISTS enchantment_cooldowns (
-                            player_id TEXT NOT NULL,
-                            enchantment TEXT NOT NULL,
+                        CREATE TABLE IF NOT EXISTS player_cooldowns (
+                            player_id BLOB NOT NULL,
+                            enchantment_id INTEGER NOT NULL,
                             cooldown_end INTEGER NOT NULL,
-                            PRIMARY KEY (player_id, enchantment),
-                            FOREIGN KEY (player_id) REFERENCES player_data(player_id) ON DELETE CASCADE
-                        )
+                            PRIMARY KEY (player_id, enchantment_id)
+                        ) WITHOUT ROWID
                     """;
 
             // Tool usage table
             String createToolUsageTable = """
-                        CREATE TABLE IF NOT EXISTS tool_usage (
-                            player_id TEXT NOT NULL,
-                            tool_type TEXT NOT NULL,
-                            usage_count INTEGER DEFAULT 0,
-                            PRIMARY KEY (player_id, tool_type),
-                            FOREIGN KEY (player_id) REFERENCES player_data(player_id) ON DELETE CASCADE
-                        )
+                        CREATE TABLE IF NOT EXISTS player_tool_usage (
+                            player_id BLOB NOT NULL,
+                            tool_type_id INTEGER NOT NULL,
+                            usage_count INTEGER NOT NULL DEFAULT 0,
+                            PRIMARY KEY (player_id, tool_type_id)
+                        ) WITHOUT ROWID
                     """;
 
             // Enchantment usage table
             String createEnchantUsageTable = """
-                        CREATE TABLE IF NOT EXISTS enchantment_usage (
-                            player_id TEXT NOT NULL,
-                            enchantment TEXT NOT NULL,
-                            usage_count INTEGER DEFAULT 0,
-                            PRIMARY KEY (player_id, enchantment),
-                            FOREIGN KEY (player_id) REFERENCES player_data(player_id) ON DELETE CASCADE
-                        )
+                        CREATE TABLE IF NOT EXISTS player_enchantment_usage (
+                            player_id BLOB NOT NULL,
+                            enchantment_id INTEGER NOT NULL,
+                            usage_count INTEGER NOT NULL DEFAULT 0,
+                            PRIMARY KEY (player_id, enchantment_id)
+                        ) WITHOUT ROWID
                     """;
 
             // Milestone blocks broken table
             String createMilestoneBlocksTable = """
-                        CREATE TABLE IF NOT EXISTS milestone_blocks_broken (
-                            player_id TEXT NOT NULL,
-                            material TEXT NOT NULL,
-                            blocks_broken INTEGER DEFAULT 0,
-                            PRIMARY KEY (player_id, material),
-                            FOREIGN KEY (player_id) REFERENCES player_data(player_id) ON DELETE CASCADE
-                        )
+                        CREATE TABLE IF NOT EXISTS player_milestone_blocks (
+                            player_id BLOB NOT NULL,
+                            material_id INTEGER NOT NULL,
+                            blocks_broken INTEGER NOT NULL DEFAULT 0,
+                            PRIMARY KEY (player_id, material_id)
+                        ) WITHOUT ROWID
                     """;
 
-            // Milestone claims table
+            // Milestone claims table (one bitmask per material, bit n = level n claimed)
             String createMilestoneClaimsTable = """
-                        CREATE TABLE IF NOT EXISTS milestone_claims (
-                            player_id TEXT NOT NULL,
-                            milestone_key TEXT NOT NULL,
-                            claimed BOOLEAN DEFAULT FALSE,
-                            claimed_at INTEGER DEFAULT (strftime('%s', 'now')),
-                            PRIMARY KEY (player_id, milestone_key),
-                            FOREIGN KEY (player_id) REFERENCES player_data(player_id) ON DELETE CASCADE
-                        )
+                        CREATE TABLE IF NOT EXISTS player_milestone_claim_masks (
+                            player_id BLOB NOT NULL,
+                            material_id INTEGER NOT NULL,
+                            claimed_mask INTEGER NOT NULL DEFAULT 0,
+                            PRIMARY KEY (player_id, material_id)
+                        ) WITHOUT ROWID
                     """;
 
-            // Create indexes for better performance
+            // Per-player lookups use the primary keys, only these need secondary indexes
             String createIndexes = """
-                        CREATE INDEX IF NOT EXISTS idx_player_data_last_seen ON player_data(last_seen);
-                        CREATE INDEX IF NOT EXISTS idx_cooldowns_end ON enchantment_cooldowns(cooldown_end);
-                        CREATE INDEX IF NOT EXISTS idx_tool_usage_player ON tool_usage(player_id);
-                        CREATE INDEX IF NOT EXISTS idx_enchant_usage_player ON enchantment_usage(player_id);
-                        CREATE INDEX IF NOT EXISTS idx_milestone_blocks_player ON milestone_blocks_broken(player_id);
-                        CREATE INDEX IF NOT EXISTS idx_milestone_claims_player ON milestone_claims(player_id);
+                        CREATE INDEX IF NOT EXISTS idx_players_last_seen ON players(last_seen);
+                        CREATE INDEX IF NOT EXISTS idx_player_cooldowns_end ON player_cooldowns(cooldown_end);
                     """;
 
             try (Statement stmt = conn.createStatement()) {
-                stmt.execute(createPlayerDataTable);
+                stmt.execute(materials.getCreateTableSql());
+                stmt.execute(enchantments.getCreateTableSql());
+                stmt.execute(toolTypes.getCreateTableSql());
+                stmt.execute(createPlayersTable);
                 stmt.execute(createCooldownsTable);
                 stmt.execute(createToolUsageTable);
                 stmt.execute(createEnchantUsageTable);
@@ -173,8 +250,14 @@ public class SQLiteStorage implements StorageProvider {
                 }
             }
 
+            if (!migration.detectLegacySchema(conn)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+                }
+            }
+
             conn.commit();
-            plugin.getLogger().info("Database tables created/verified successfully with milestone support");
+            plugin.getLogger().info("Database tables created/verified successfully (schema v" + SCHEMA_VERSION + ")");
 
         } catch (SQLException e) {
             if (conn != null) {
@@ -191,20 +274,31 @@ public class SQLiteStorage implements StorageProvider {
     }
 
     /**
-     * Enhanced connection management with proper error handling
+     * Get the single write connection
      */
-    private Connection getConnection() throws SQLException {
-        if (dataSource == null || dataSource.isClosed()) {
+    Connection getWriteConnection() throws SQLException {
+        if (writeDataSource == null || writeDataSource.isClosed()) {
             throw new SQLException("DataSource is not available");
         }
 
-        return dataSource.getConnection();
+        return writeDataSource.getConnection();
+    }
+
+    /**
+     * Get a read-only connection, falling back to the writer while the read pool is not up yet
+     */
+    private Connection getReadConnection() throws SQLException {
+        if (readDataSource == null || readDataSource.isClosed()) {
+            return getWriteConnection();
+        }
+
+        return readDataSource.getConnection();
     }
 
     /**
      * Proper connection cleanup
      */
-    private void closeConnection(Connection conn) {
+    void closeConnection(Connection conn) {
         if (conn != null) {
             try {
                 if (!conn.isClosed()) {
@@ -218,45 +312,56 @@ public class SQLiteStorage implements StorageProvider {
 
     @Override
     public void savePlayerData(UUID playerId, PlayerData data) throws Exception {
-        if (plugin.isShuttingDown()) {
-            plugin.getLogger().fine("Plugin shutting down, skipping data save for " + playerId);
-            return;
+        try {
+            queuePlayerSave(playerId, data).get();
+        } catch (ExecutionException e) {
+            throw new Exception("Failed to save player data for " + playerId, e.getCause());
+        }
+    }
+
+    /**
+     * Queue the save for the group-commit writer
+     */
+    @Override
+    public CompletableFuture<Void> queuePlayerSave(UUID playerId, PlayerData data) {
+        if (batchWriter == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("SQLite storage is not initialized"));
+        }
+        return batchWriter.submit(playerId, data);
+    }
+
+    /**
+     * Write a batch of queued saves in one transaction.
+     * Only what changed since the last flush of each player is written.
+     */
+    private void writeBatch(List<JdbcBatchWriter.QueuedSave> saves) throws Exception {
+        List<PlayerData.Changes> changes = new ArrayList<>(saves.size());
+        for (JdbcBatchWriter.QueuedSave save : saves) {
+            changes.add(save.getData().captureChanges());
         }
 
         Connection conn = null;
         try {
-            conn = getConnection();
+            conn = getWriteConnection();
             conn.setAutoCommit(false);
 
-            // Save main player data with updated timestamp
-            String upsertPlayerData = """
-                        INSERT OR REPLACE INTO player_data 
-                        (player_id, total_blocks_broken, total_xp_earned, total_essence_earned, 
-                         last_enchant_used, total_meteors_spawned, total_airstrikes, 
-                         favorite_tool_type, last_seen, updated_at) 
-                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, strftime('%s', 'now'))
-                    """;
-
-            try (PreparedStatement stmt = conn.prepareStatement(upsertPlayerData)) {
-                stmt.setString(1, playerId.toString());
-                stmt.setLong(2, data.getTotalBlocksBroken());
-                stmt.setDouble(3, data.getTotalXpEarned());
-                stmt.setDouble(4, data.getTotalEssenceEarned());
-                stmt.setString(5, data.getLastEnchantUsed());
-                stmt.setInt(6, data.getTotalMeteorsSpawned());
-                stmt.setInt(7, data.getTotalAirstrikes());
-                stmt.setString(8, data.getFavoriteToolType());
-                stmt.setLong(9, data.getLastSeen());
-                stmt.executeUpdate();
+            // Players still in the legacy tables are moved over before their deltas are applied
+            if (migration.isPending()) {
+                for (JdbcBatchWriter.QueuedSave save : saves) {
+                    migration.migratePlayer(conn, save.getPlayerId().toString());
+                }
             }
 
+            // Save main player data
+            savePlayerRows(conn, saves, changes);
+
             // Save related data
-            saveCooldowns(conn, playerId, data.getEnchantmentCooldowns());
-            saveToolUsage(conn, playerId, data.getToolUsageCount());
-            saveEnchantmentUsage(conn, playerId, data.getEnchantmentUsageCount());
+            saveCooldowns(conn, saves, changes);
+            saveToolUsage(conn, saves, changes);
+            saveEnchantmentUsage(conn, saves, changes);
 
             // Save milestone data
-            saveMilestoneData(conn, playerId, data.getMilestoneData());
+            saveMilestoneData(conn, saves, changes);
 
             conn.commit();
 
@@ -268,7 +373,13 @@ public class SQLiteStorage implements StorageProvider {
                     plugin.getLogger().log(Level.WARNING, "Failed to rollback transaction", rollbackEx);
                 }
             }
-            throw new Exception("Failed to save player data for " + playerId, e);
+            invalidateDictionaries();
+
+            // Nothing was written, keep the changes for the next flush
+            for (int i = 0; i < saves.size(); i++) {
+                saves.get(i).getData().restoreChanges(changes.get(i));
+            }
+            throw new Exception("Failed to save batch of " + saves.size() + " players", e);
         } finally {
             closeConnection(conn);
         }
@@ -276,36 +387,38 @@ public class SQLiteStorage implements StorageProvider {
 
     @Override
     public PlayerData loadPlayerData(UUID playerId) throws Exception {
+        // Players still in the legacy tables are moved over first
+        if (migration.isPending()) {
+            migration.migratePlayerNow(playerId);
+        }
+
         Connection conn = null;
         try {
-            conn = getConnection();
+            conn = getReadConnection();
             PlayerData data = new PlayerData(playerId);
+            byte[] id = uuidToBytes(playerId);
 
             // Load main player data
-            String selectPlayerData = "SELECT * FROM player_data WHERE player_id = ?";
+            String selectPlayerData = "SELECT * FROM players WHERE player_id = ?";
             try (PreparedStatement stmt = conn.prepareStatement(selectPlayerData)) {
-                stmt.setString(1, playerId.toString());
+                stmt.setBytes(1, id);
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
-                        data.setTotalBlocksBroken(rs.getLong("total_blocks_broken"));
-                        data.setTotalXpEarned(rs.getDouble("total_xp_earned"));
-                        data.setTotalEssenceEarned(rs.getDouble("total_essence_earned"));
-                        data.setLastEnchantUsed(rs.getString("last_enchant_used"));
-                        data.setTotalMeteorsSpawned(rs.getInt("total_meteors_spawned"));
-                        data.setTotalAirstrikes(rs.getInt("total_airstrikes"));
-                        data.setFavoriteToolType(rs.getString("favorite_tool_type"));
-                        data.setLastSeen(rs.getLong("last_seen"));
+                        readPlayerRow(rs, data);
                     }
                 }
             }
 
             // Load related data
-            loadCooldowns(conn, playerId, data.getEnchantmentCooldowns());
-            loadToolUsage(conn, playerId, data.getToolUsageCount());
-            loadEnchantmentUsage(conn, playerId, data.getEnchantmentUsageCount());
+            loadCooldowns(conn, id, data);
+            loadToolUsage(conn, id, data);
+            loadEnchantmentUsage(conn, id, data);
 
             // Load milestone data
-            loadMilestoneData(conn, playerId, data.getMilestoneData());
+            loadMilestoneData(conn, id, data.getMilestoneData());
+
+            // Loaded state matches the database
+            data.clearChanges();
 
             return data;
 
@@ -317,74 +430,264 @@ public class SQLiteStorage implements StorageProvider {
     }
 
     /**
-     * Save milestone data to database
+     * Load many players with one query per table and chunk of ids
      */
-    private void saveMilestoneData(Connection conn, UUID playerId, MilestoneData milestoneData) throws SQLException {
-        if (milestoneData == null) {
-            return;
+    @Override
+    public Map<UUID, PlayerData> loadPlayerData(Collection<UUID> playerIds) throws Exception {
+        Map<UUID, PlayerData> players = BulkLoad.newPlayers(playerIds);
+
+        if (migration.isPending()) {
+            for (UUID playerId : players.keySet()) {
+                migration.migratePlayerNow(playerId);
+            }
         }
 
-        // Save blocks broken data
-        String deleteMilestoneBlocks = "DELETE FROM milestone_blocks_broken WHERE player_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(deleteMilestoneBlocks)) {
-            stmt.setString(1, playerId.toString());
-            stmt.executeUpdate();
+        Connection conn = null;
+        try {
+            conn = getReadConnection();
+            long now = System.currentTimeMillis();
+
+            for (List<UUID> chunk : BulkLoad.chunks(players.keySet())) {
+                BulkLoad.forEachRow(conn, "SELECT * FROM players WHERE player_id IN (%s)", chunk, players,
+                        (data, rs) -> readPlayerRow(rs, data));
+                BulkLoad.forEachRow(conn, """
+                        SELECT c.player_id, e.name AS enchantment, c.cooldown_end FROM player_cooldowns c
+                        JOIN enchantments e ON e.id = c.enchantment_id
+                        WHERE c.player_id IN (%s) AND c.cooldown_end > ?
+                        """, chunk, players,
+                        (data, rs) -> data.restoreCooldown(rs.getString("enchantment"), rs.getLong("cooldown_end")), now);
+                BulkLoad.forEachRow(conn, """
+                        SELECT u.player_id, t.name AS tool_type, u.usage_count FROM player_tool_usage u
+                        JOIN tool_types t ON t.id = u.tool_type_id
+                        WHERE u.player_id IN (%s)
+                        """, chunk, players,
+                        (data, rs) -> data.restoreToolUsage(rs.getString("tool_type"), rs.getInt("usage_count")));
+                BulkLoad.forEachRow(conn, """
+                        SELECT u.player_id, e.name AS enchantment, u.usage_count FROM player_enchantment_usage u
+                        JOIN enchantments e ON e.id = u.enchantment_id
+                        WHERE u.player_id IN (%s)
+                        """, chunk, players,
+                        (data, rs) -> data.restoreEnchantmentUsage(rs.getString("enchantment"), rs.getLong("usage_count")));
+                BulkLoad.forEachRow(conn, """
+                        SELECT b.player_id, m.name AS material, b.blocks_broken FROM player_milestone_blocks b
+                        JOIN materials m ON m.id = b.material_id
+                        WHERE b.player_id IN (%s)
+                        """, chunk, players, (data, rs) -> {
+                            Material material = Material.getMaterial(rs.getString("material"));
+                            if (material != null) {
+                                data.getMilestoneData().setBlocksBroken(material, rs.getLong("blocks_broken"));
+                            }
+                        });
+                BulkLoad.forEachRow(conn, """
+                        SELECT c.player_id, m.name AS material, c.claimed_mask FROM player_milestone_claim_masks c
+                        JOIN materials m ON m.id = c.material_id
+                        WHERE c.player_id IN (%s)
+                        """, chunk, players, (data, rs) -> {
+                            Material material = Material.getMaterial(rs.getString("material"));
+                            if (material != null) {
+                                data.getMilestoneData().setClaimMask(material, rs.getLong("claimed_mask"));
+                            }
+                        });
+            }
+
+            // Loaded state matches the database
+            for (PlayerData data : players.values()) {
+                data.clearChanges();
+            }
+            return players;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to load data for " + players.size() + " players", e);
+        } finally {
+            closeConnection(conn);
         }
+    }
 
-        Map<Material, Long> blocksData = milestoneData.getAllBlocksBroken();
+    private void readPlayerRow(ResultSet rs, PlayerData data) throws SQLException {
+        data.setTotalBlocksBroken(rs.getLong("total_blocks_broken"));
+        data.setTotalXpEarned(rs.getDouble("total_xp_earned"));
+        data.setTotalEssenceEarned(rs.getDouble("total_essence_earned"));
+        data.setLastEnchantUsed(rs.getString("last_enchant_used"));
+        data.setTotalMeteorsSpawned(rs.getInt("total_meteors_spawned"));
+        data.setTotalAirstrikes(rs.getInt("total_airstrikes"));
+        data.setFavoriteToolType(rs.getString("favorite_tool_type"));
+        data.setLastSeen(rs.getLong("last_seen"));
+    }
 
-        if (!blocksData.isEmpty()) {
-            String insertMilestoneBlocks = "INSERT INTO milestone_blocks_broken (player_id, material, blocks_broken) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertMilestoneBlocks)) {
-                for (Map.Entry<Material, Long> entry : blocksData.entrySet()) {
-                    if (entry.getValue() > 0) { // Only save non-zero values
-                        stmt.setString(1, playerId.toString());
-                        stmt.setString(2, entry.getKey().name());
-                        stmt.setLong(3, entry.getValue());
-                        stmt.addBatch();
-                    }
-                }
-                stmt.executeBatch();
+    /**
+     * Write the main player rows, incrementing counters in place unless they were set to absolute values
+     */
+    private void savePlayerRows(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                                List<PlayerData.Changes> changes) throws SQLException {
+        String incrementPlayerData = """
+                    INSERT INTO players
+                    (player_id, total_blocks_broken, total_xp_earned, total_essence_earned,
+                     last_enchant_used, total_meteors_spawned, total_airstrikes,
+                     favorite_tool_type, last_seen, updated_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, strftime('%s', 'now'))
+                    ON CONFLICT(player_id) DO UPDATE SET
+                        total_blocks_broken = total_blocks_broken + excluded.total_blocks_broken,
+                        total_xp_earned = total_xp_earned + excluded.total_xp_earned,
+                        total_essence_earned = total_essence_earned + excluded.total_essence_earned,
+                        last_enchant_used = excluded.last_enchant_used,
+                        total_meteors_spawned = total_meteors_spawned + excluded.total_meteors_spawned,
+                        total_airstrikes = total_airstrikes + excluded.total_airstrikes,
+                        favorite_tool_type = excluded.favorite_tool_type,
+                        last_seen = excluded.last_seen,
+                        updated_at = excluded.updated_at
+                """;
+
+        String replacePlayerData = """
+                    INSERT INTO players
+                    (player_id, total_blocks_broken, total_xp_earned, total_essence_earned,
+                     last_enchant_used, total_meteors_spawned, total_airstrikes,
+                     favorite_tool_type, last_seen, updated_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, strftime('%s', 'now'))
+                    ON CONFLICT(player_id) DO UPDATE SET
+                        total_blocks_broken = excluded.total_blocks_broken,
+                        total_xp_earned = excluded.total_xp_earned,
+                        total_essence_earned = excluded.total_essence_earned,
+                        last_enchant_used = excluded.last_enchant_used,
+                        total_meteors_spawned = excluded.total_meteors_spawned,
+                        total_airstrikes = excluded.total_airstrikes,
+                        favorite_tool_type = excluded.favorite_tool_type,
+                        last_seen = excluded.last_seen,
+                        updated_at = excluded.updated_at
+                """;
+
+        try (PreparedStatement incrementStmt = conn.prepareStatement(incrementPlayerData);
+             PreparedStatement replaceStmt = conn.prepareStatement(replacePlayerData)) {
+            for (int i = 0; i < saves.size(); i++) {
+                PlayerData data = saves.get(i).getData();
+                PlayerData.Changes change = changes.get(i);
+                PreparedStatement stmt = change.isCountersOverwritten() ? replaceStmt : incrementStmt;
+
+                stmt.setBytes(1, uuidToBytes(saves.get(i).getPlayerId()));
+                stmt.setLong(2, change.getBlocksBroken());
+                stmt.setDouble(3, change.getXpEarned());
+                stmt.setDouble(4, change.getEssenceEarned());
+                stmt.setString(5, data.getLastEnchantUsed());
+                stmt.setInt(6, change.getMeteorsSpawned());
+                stmt.setInt(7, change.getAirstrikes());
+                stmt.setString(8, data.getFavoriteToolType());
+                stmt.setLong(9, data.getLastSeen());
+                stmt.addBatch();
             }
+            incrementStmt.executeBatch();
+            replaceStmt.executeBatch();
         }
+    }
 
-        // Save milestone claims data
-        String deleteMilestoneClaims = "DELETE FROM milestone_claims WHERE player_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(deleteMilestoneClaims)) {
-            stmt.setString(1, playerId.toString());
-            stmt.executeUpdate();
+    /**
+     * Save milestone changes to database
+     */
+    private void saveMilestoneData(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                                   List<PlayerData.Changes> changes) throws SQLException {
+        String deleteMilestoneBlocks = "DELETE FROM player_milestone_blocks WHERE player_id = ?";
+        String deleteMilestoneClaims = "DELETE FROM player_milestone_claim_masks WHERE player_id = ?";
+        String incrementMilestoneBlocks = """
+                    INSERT INTO player_milestone_blocks (player_id, material_id, blocks_broken) VALUES (?, ?, ?)
+                    ON CONFLICT(player_id, material_id) DO UPDATE SET blocks_broken = blocks_broken + excluded.blocks_broken
+                """;
+        String replaceMilestoneBlocks = "INSERT OR REPLACE INTO player_milestone_blocks (player_id, material_id, blocks_broken) VALUES (?, ?, ?)";
+        String deleteMilestoneBlock = "DELETE FROM player_milestone_blocks WHERE player_id = ? AND material_id = ?";
+        String replaceMilestoneClaims = "INSERT OR REPLACE INTO player_milestone_claim_masks (player_id, material_id, claimed_mask) VALUES (?, ?, ?)";
+        String deleteMilestoneClaim = "DELETE FROM player_milestone_claim_masks WHERE player_id = ? AND material_id = ?";
+
+        // Full rewrites clear the player's rows before anything is inserted
+        try (PreparedStatement blocksStmt = conn.prepareStatement(deleteMilestoneBlocks);
+             PreparedStatement claimsStmt = conn.prepareStatement(deleteMilestoneClaims)) {
+            for (int i = 0; i < saves.size(); i++) {
+                if (changes.get(i).getMilestoneChanges().isFullRewrite()) {
+                    byte[] id = uuidToBytes(saves.get(i).getPlayerId());
+                    blocksStmt.setBytes(1, id);
+                    blocksStmt.addBatch();
+                    claimsStmt.setBytes(1, id);
+                    claimsStmt.addBatch();
+                }
+            }
+            blocksStmt.executeBatch();
+            claimsStmt.executeBatch();
         }
 
-        Map<String, Boolean> claimsData = milestoneData.getAllClaimedMilestones();
+        try (PreparedStatement incrementStmt = conn.prepareStatement(incrementMilestoneBlocks);
+             PreparedStatement replaceStmt = conn.prepareStatement(replaceMilestoneBlocks);
+             PreparedStatement deleteStmt = conn.prepareStatement(deleteMilestoneBlock);
+             PreparedStatement replaceClaimStmt = conn.prepareStatement(replaceMilestoneClaims);
+             PreparedStatement deleteClaimStmt = conn.prepareStatement(deleteMilestoneClaim)) {
 
-        if (!claimsData.isEmpty()) {
-            String insertMilestoneClaims = "INSERT INTO milestone_claims (player_id, milestone_key, claimed) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertMilestoneClaims)) {
-                for (Map.Entry<String, Boolean> entry : claimsData.entrySet()) {
-                    if (entry.getValue()) { // Only save claimed milestones
-                        stmt.setString(1, playerId.toString());
-                        stmt.setString(2, entry.getKey());
-                        stmt.setBoolean(3, entry.getValue());
-                        stmt.addBatch();
+            for (int i = 0; i < saves.size(); i++) {
+                MilestoneData.Changes milestoneChanges = changes.get(i).getMilestoneChanges();
+                if (milestoneChanges.isEmpty()) {
+                    continue;
+                }
+
+                byte[] id = uuidToBytes(saves.get(i).getPlayerId());
+                Map<Material, Long> overwrittenBlocks = milestoneChanges.getOverwrittenBlocks();
+
+                // Increment counters for materials that were only added to
+                for (Map.Entry<Material, Long> entry : milestoneChanges.getBlockDeltas().entrySet()) {
+                    if (entry.getValue() > 0 && !overwrittenBlocks.containsKey(entry.getKey())) {
+                        incrementStmt.setBytes(1, id);
+                        incrementStmt.setInt(2, materials.getId(conn, entry.getKey().name()));
+                        incrementStmt.setLong(3, entry.getValue());
+                        incrementStmt.addBatch();
+                    }
+                }
+
+                // Write absolute counts for materials that were set or reset
+                for (Map.Entry<Material, Long> entry : overwrittenBlocks.entrySet()) {
+                    if (entry.getValue() > 0) { // Only save non-zero values
+                        replaceStmt.setBytes(1, id);
+                        replaceStmt.setInt(2, materials.getId(conn, entry.getKey().name()));
+                        replaceStmt.setLong(3, entry.getValue());
+                        replaceStmt.addBatch();
+                    } else if (!milestoneChanges.isFullRewrite()) {
+                        deleteStmt.setBytes(1, id);
+                        deleteStmt.setInt(2, materials.getId(conn, entry.getKey().name()));
+                        deleteStmt.addBatch();
+                    }
+                }
+
+                // Save changed claim bitmasks, one row per material
+                for (Map.Entry<Material, Long> entry : milestoneChanges.getClaims().entrySet()) {
+                    if (entry.getValue() != 0) {
+                        replaceClaimStmt.setBytes(1, id);
+                        replaceClaimStmt.setInt(2, materials.getId(conn, entry.getKey().name()));
+                        replaceClaimStmt.setLong(3, entry.getValue());
+                        replaceClaimStmt.addBatch();
+                    } else if (!milestoneChanges.isFullRewrite()) {
+                        deleteClaimStmt.setBytes(1, id);
+                        deleteClaimStmt.setInt(2, materials.getId(conn, entry.getKey().name()));
+                        deleteClaimStmt.addBatch();
                     }
                 }
-                stmt.executeBatch();
             }
+
+            incrementStmt.executeBatch();
+            replaceStmt.executeBatch();
+            deleteStmt.executeBatch();
+            replaceClaimStmt.executeBatch();
+            deleteClaimStmt.executeBatch();
         }
     }
 
     /**
      * Load milestone data from database
      */
-    private void loadMilestoneData(Connection conn, UUID playerId, MilestoneData milestoneData) throws SQLException {
+    private void loadMilestoneData(Connection conn, byte[] id, MilestoneData milestoneData) throws SQLException {
         if (milestoneData == null) {
             return;
         }
 
         // Load blocks broken data
-        String selectMilestoneBlocks = "SELECT material, blocks_broken FROM milestone_blocks_broken WHERE player_id = ?";
+        String selectMilestoneBlocks = """
+                    SELECT m.name AS material, b.blocks_broken FROM player_milestone_blocks b
+                    JOIN materials m ON m.id = b.material_id
+                    WHERE b.player_id = ?
+                """;
         try (PreparedStatement stmt = conn.prepareStatement(selectMilestoneBlocks)) {
-            stmt.setString(1, playerId.toString());
+            stmt.setBytes(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     try {
@@ -398,121 +701,175 @@ public class SQLiteStorage implements StorageProvider {
             }
         }
 
-        // Load milestone claims data
-        String selectMilestoneClaims = "SELECT milestone_key, claimed FROM milestone_claims WHERE player_id = ?";
+        // Load milestone claim bitmasks
+        String selectMilestoneClaims = """
+                    SELECT m.name AS material, c.claimed_mask FROM player_milestone_claim_masks c
+                    JOIN materials m ON m.id = c.material_id
+                    WHERE c.player_id = ?
+                """;
         try (PreparedStatement stmt = conn.prepareStatement(selectMilestoneClaims)) {
-            stmt.setString(1, playerId.toString());
+            stmt.setBytes(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    String milestoneKey = rs.getString("milestone_key");
-                    boolean claimed = rs.getBoolean("claimed");
-                    milestoneData.setMilestoneClaimed(milestoneKey, claimed);
+                    Material material = Material.getMaterial(rs.getString("material"));
+                    if (material != null) {
+                        milestoneData.setClaimMask(material, rs.getLong("claimed_mask"));
+                    } else {
+                        plugin.getLogger().warning("Invalid material in milestone data: " + rs.getString("material"));
+                    }
                 }
             }
         }
     }
 
     /**
-     * Enhanced cooldown management with batch operations
+     * Write cooldowns that were set since the last flush
      */
-    private void saveCooldowns(Connection conn, UUID playerId, Map<String, Long> cooldowns) throws SQLException {
-        // Clear existing cooldowns
-        String deleteCooldowns = "DELETE FROM enchantment_cooldowns WHERE player_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(deleteCooldowns)) {
-            stmt.setString(1, playerId.toString());
-            stmt.executeUpdate();
-        }
-
-        // Insert current active cooldowns only
-        if (!cooldowns.isEmpty()) {
-            String insertCooldown = "INSERT INTO enchantment_cooldowns (player_id, enchantment, cooldown_end) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertCooldown)) {
-                long currentTime = System.currentTimeMillis();
-
-                for (Map.Entry<String, Long> entry : cooldowns.entrySet()) {
-                    if (entry.getValue() > currentTime) { // Only save active cooldowns
-                        stmt.setString(1, playerId.toString());
-                        stmt.setString(2, entry.getKey());
-                        stmt.setLong(3, entry.getValue());
-                        stmt.addBatch();
-                    }
+    private void saveCooldowns(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                               List<PlayerData.Changes> changes) throws SQLException {
+        String upsertCooldown = "INSERT OR REPLACE INTO player_cooldowns (player_id, enchantment_id, cooldown_end) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(upsertCooldown)) {
+            for (int i = 0; i < saves.size(); i++) {
+                byte[] id = uuidToBytes(saves.get(i).getPlayerId());
+                for (Map.Entry<String, Long> entry : changes.get(i).getCooldowns().entrySet()) {
+                    stmt.setBytes(1, id);
+                    stmt.setInt(2, enchantments.getId(conn, entry.getKey()));
+                    stmt.setLong(3, entry.getValue());
+                    stmt.addBatch();
                 }
-
-                stmt.executeBatch();
             }
+            stmt.executeBatch();
         }
     }
 
-    private void loadCooldowns(Connection conn, UUID playerId, Map<String, Long> cooldowns) throws SQLException {
-        String selectCooldowns = "SELECT enchantment, cooldown_end FROM enchantment_cooldowns WHERE player_id = ? AND cooldown_end > ?";
+    private void loadCooldowns(Connection conn, byte[] id, PlayerData data) throws SQLException {
+        String selectCooldowns = """
+                    SELECT e.name AS enchantment, c.cooldown_end FROM player_cooldowns c
+                    JOIN enchantments e ON e.id = c.enchantment_id
+                    WHERE c.player_id = ? AND c.cooldown_end > ?
+                """;
         try (PreparedStatement stmt = conn.prepareStatement(selectCooldowns)) {
-            stmt.setString(1, playerId.toString());
+            stmt.setBytes(1, id);
             stmt.setLong(2, System.currentTimeMillis());
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    cooldowns.put(rs.getString("enchantment"), rs.getLong("cooldown_end"));
+                    data.restoreCooldown(rs.getString("enchantment"), rs.getLong("cooldown_end"));
                 }
             }
         }
     }
 
     /**
-     * Batch operations for better performance
+     * Batch increments of tool usage counters
      */
-    private void saveToolUsage(Connection conn, UUID playerId, Map<String, Integer> toolUsage) throws SQLException {
-        if (toolUsage.isEmpty()) return;
-
-        String upsertToolUsage = "INSERT OR REPLACE INTO tool_usage (player_id, tool_type, usage_count) VALUES (?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(upsertToolUsage)) {
-            for (Map.Entry<String, Integer> entry : toolUsage.entrySet()) {
-                stmt.setString(1, playerId.toString());
-                stmt.setString(2, entry.getKey());
-                stmt.setInt(3, entry.getValue());
-                stmt.addBatch();
+    private void saveToolUsage(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                               List<PlayerData.Changes> changes) throws SQLException {
+        String incrementToolUsage = """
+                    INSERT INTO player_tool_usage (player_id, tool_type_id, usage_count) VALUES (?, ?, ?)
+                    ON CONFLICT(player_id, tool_type_id) DO UPDATE SET usage_count = usage_count + excluded.usage_count
+                """;
+        try (PreparedStatement stmt = conn.prepareStatement(incrementToolUsage)) {
+            for (int i = 0; i < saves.size(); i++) {
+                byte[] id = uuidToBytes(saves.get(i).getPlayerId());
+                for (Map.Entry<String, Integer> entry : changes.get(i).getToolUsage().entrySet()) {
+                    stmt.setBytes(1, id);
+                    stmt.setInt(2, toolTypes.getId(conn, entry.getKey()));
+                    stmt.setInt(3, entry.getValue());
+                    stmt.addBatch();
+                }
             }
             stmt.executeBatch();
         }
     }
 
-    private void loadToolUsage(Connection conn, UUID playerId, Map<String, Integer> toolUsage) throws SQLException {
-        String selectToolUsage = "SELECT tool_type, usage_count FROM tool_usage WHERE player_id = ?";
+    private void loadToolUsage(Connection conn, byte[] id, PlayerData data) throws SQLException {
+        String selectToolUsage = """
+                    SELECT t.name AS tool_type, u.usage_count FROM player_tool_usage u
+                    JOIN tool_types t ON t.id = u.tool_type_id
+                    WHERE u.player_id = ?
+                """;
         try (PreparedStatement stmt = conn.prepareStatement(selectToolUsage)) {
-            stmt.setString(1, playerId.toString());
+            stmt.setBytes(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    toolUsage.put(rs.getString("tool_type"), rs.getInt("usage_count"));
+                    data.restoreToolUsage(rs.getString("tool_type"), rs.getInt("usage_count"));
                 }
             }
         }
     }
 
-    private void saveEnchantmentUsage(Connection conn, UUID playerId, Map<String, Long> enchantUsage) throws SQLException {
-        if (enchantUsage.isEmpty()) return;
-
-        String upsertEnchantUsage = "INSERT OR REPLACE INTO enchantment_usage (player_id, enchantment, usage_count) VALUES (?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(upsertEnchantUsage)) {
-            for (Map.Entry<String, Long> entry : enchantUsage.entrySet()) {
-                stmt.setString(1, playerId.toString());
-                stmt.setString(2, entry.getKey());
-                stmt.setLong(3, entry.getValue());
-                stmt.addBatch();
+    private void saveEnchantmentUsage(Connection conn, List<JdbcBatchWriter.QueuedSave> saves,
+                                      List<PlayerData.Changes> changes) throws SQLException {
+        String incrementEnchantUsage = """
+                    INSERT INTO player_enchantment_usage (player_id, enchantment_id, usage_count) VALUES (?, ?, ?)
+                    ON CONFLICT(player_id, enchantment_id) DO UPDATE SET usage_count = usage_count + excluded.usage_count
+                """;
+        try (PreparedStatement stmt = conn.prepareStatement(incrementEnchantUsage)) {
+            for (int i = 0; i < saves.size(); i++) {
+                byte[] id = uuidToBytes(saves.get(i).getPlayerId());
+                for (Map.Entry<String, Long> entry : changes.get(i).getEnchantmentUsage().entrySet()) {
+                    stmt.setBytes(1, id);
+                    stmt.setInt(2, enchantments.getId(conn, entry.getKey()));
+                    stmt.setLong(3, entry.getValue());
+                    stmt.addBatch();
+                }
             }
             stmt.executeBatch();
         }
     }
 
-    private void loadEnchantmentUsage(Connection conn, UUID playerId, Map<String, Long> enchantUsage) throws SQLException {
-        String selectEnchantUsage = "SELECT enchantment, usage_count FROM enchantment_usage WHERE player_id = ?";
+    private void loadEnchantmentUsage(Connection conn, byte[] id, PlayerData data) throws SQLException {
+        String selectEnchantUsage = """
+                    SELECT e.name AS enchantment, u.usage_count FROM player_enchantment_usage u
+                    JOIN enchantments e ON e.id = u.enchantment_id
+                    WHERE u.player_id = ?
+                """;
         try (PreparedStatement stmt = conn.prepareStatement(selectEnchantUsage)) {
-            stmt.setString(1, playerId.toString());
+            stmt.setBytes(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    enchantUsage.put(rs.getString("enchantment"), rs.getLong("usage_count"));
+                    data.restoreEnchantmentUsage(rs.getString("enchantment"), rs.getLong("usage_count"));
                 }
             }
         }
     }
 
+    @Override
+    public void forEachPlayerId(PlayerIdConsumer consumer) throws Exception {
+        Connection conn = null;
+        try {
+            conn = getReadConnection();
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT player_id FROM players")) {
+                while (rs.next()) {
+                    consumer.accept(bytesToUuid(rs.getBytes(1)));
+                }
+            }
+
+            // Players not reached by the schema migration yet (loading them migrates them)
+            if (migration.isPending()) {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT player_id FROM player_data")) {
+                    while (rs.next()) {
+                        UUID playerId;
+                        try {
+                            playerId = UUID.fromString(rs.getString(1));
+                        } catch (IllegalArgumentException e) {
+                            plugin.getLogger().warning("Skipping legacy player data with invalid id: " + rs.getString(1));
+                            continue;
+                        }
+
+                        consumer.accept(playerId);
+                    }
+                }
+            }
+
+        } finally {
+            closeConnection(conn);
+        }
+    }
+
     @Override
     public int cleanupOldData(int daysOffline) throws Exception {
         if (daysOffline <= 0) {
@@ -523,19 +880,41 @@ public class SQLiteStorage implements StorageProvider {
 
         Connection conn = null;
         try {
-            conn = getConnection();
+            conn = getWriteConnection();
+            conn.setAutoCommit(false);
 
-            // Use CASCADE to properly clean up related data
-            String deleteOldData = "DELETE FROM player_data WHERE last_seen < ?";
+            // Foreign keys are not enforced, so related rows are removed explicitly
+            String[] childTables = {
+                    "player_cooldowns", "player_tool_usage", "player_enchantment_usage",
+                    "player_milestone_blocks", "player_milestone_claim_masks"
+            };
+            for (String table : childTables) {
+                String deleteChildren = "DELETE FROM " + table
+                        + " WHERE player_id IN (SELECT player_id FROM players WHERE last_seen < ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(deleteChildren)) {
+                    stmt.setLong(1, cutoffTime);
+                    stmt.executeUpdate();
+                }
+            }
+
+            String deleteOldData = "DELETE FROM players WHERE last_seen < ?";
             try (PreparedStatement stmt = conn.prepareStatement(deleteOldData)) {
                 stmt.setLong(1, cutoffTime);
                 int deleted = stmt.executeUpdate();
+                conn.commit();
 
                 plugin.getLogger().info("Cleaned up " + deleted + " old player records");
                 return deleted;
             }
 
         } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to rollback transaction", rollbackEx);
+                }
+            }
             throw new Exception("Failed to cleanup old data", e);
         } finally {
             closeConnection(conn);
@@ -544,14 +923,86 @@ public class SQLiteStorage implements StorageProvider {
 
     @Override
     public boolean exportData(String fileName) throws Exception {
-        // Implementation for data export with proper error handling
+        if (migration.isPending()) {
+            plugin.getLogger().warning("Data export is unavailable until the schema migration has finished");
+            return false;
+        }
+
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+
         Connection conn = null;
-        try {
-            conn = getConnection();
+        try (PlayerDataExport.Writer writer = new PlayerDataExport.Writer(file)) {
+            conn = getReadConnection();
+
+            // One forward-only cursor per table, all in player id order, merged like a join
+            try (ExportCursor players = new ExportCursor(conn, "SELECT * FROM players ORDER BY player_id");
+                 ExportCursor cooldowns = new ExportCursor(conn, """
+                         SELECT c.player_id, e.name, c.cooldown_end FROM player_cooldowns c
+                         JOIN enchantments e ON e.id = c.enchantment_id ORDER BY c.player_id
+                         """);
+                 ExportCursor toolUsage = new ExportCursor(conn, """
+                         SELECT u.player_id, t.name, u.usage_count FROM player_tool_usage u
+                         JOIN tool_types t ON t.id = u.tool_type_id ORDER BY u.player_id
+                         """);
+                 ExportCursor enchantUsage = new ExportCursor(conn, """
+                         SELECT u.player_id, e.name, u.usage_count FROM player_enchantment_usage u
+                         JOIN enchantments e ON e.id = u.enchantment_id ORDER BY u.player_id
+                         """);
+                 ExportCursor milestoneBlocks = new ExportCursor(conn, """
+                         SELECT b.player_id, m.name, b.blocks_broken FROM player_milestone_blocks b
+                         JOIN materials m ON m.id = b.material_id ORDER BY b.player_id
+                         """);
+                 ExportCursor milestoneClaims = new ExportCursor(conn, """
+                         SELECT c.player_id, m.name, c.claimed_mask FROM player_milestone_claim_masks c
+                         JOIN materials m ON m.id = c.material_id ORDER BY c.player_id
+                         """)) {
+
+                while (players.hasRow()) {
+                    byte[] id = players.getId();
+                    ResultSet rs = players.row();
+
+                    PlayerData data = new PlayerData(bytesToUuid(id));
+                    data.setTotalBlocksBroken(rs.getLong("total_blocks_broken"));
+                    data.setTotalXpEarned(rs.getDouble("total_xp_earned"));
+                    data.setTotalEssenceEarned(rs.getDouble("total_essence_earned"));
+                    data.setLastEnchantUsed(rs.getString("last_enchant_used"));
+                    data.setTotalMeteorsSpawned(rs.getInt("total_meteors_spawned"));
+                    data.setTotalAirstrikes(rs.getInt("total_airstrikes"));
+                    data.setFavoriteToolType(rs.getString("favorite_tool_type"));
+                    long lastSeen = rs.getLong("last_seen");
+
+                    for (; cooldowns.seek(id); cooldowns.next()) {
+                        data.restoreCooldown(cooldowns.row().getString(2), cooldowns.row().getLong(3));
+                    }
+                    for (; toolUsage.seek(id); toolUsage.next()) {
+                        data.restoreToolUsage(toolUsage.row().getString(2), toolUsage.row().getInt(3));
+                    }
+                    for (; enchantUsage.seek(id); enchantUsage.next()) {
+                        data.restoreEnchantmentUsage(enchantUsage.row().getString(2), enchantUsage.row().getLong(3));
+                    }
+                    for (; milestoneBlocks.seek(id); milestoneBlocks.next()) {
+                        Material material = Material.getMaterial(milestoneBlocks.row().getString(2));
+                        if (material != null) {
+                            data.getMilestoneData().setBlocksBroken(material, milestoneBlocks.row().getLong(3));
+                        }
+                    }
+                    for (; milestoneClaims.seek(id); milestoneClaims.next()) {
+                        Material material = Material.getMaterial(milestoneClaims.row().getString(2));
+                        if (material != null) {
+                            data.getMilestoneData().setClaimMask(material, milestoneClaims.row().getLong(3));
+                        }
+                    }
+
+                    data.setLastSeen(lastSeen);
+                    writer.write(data);
+                    players.next();
+                }
+            }
 
-            // This would involve exporting all data to JSON/CSV format
-            // For now, return true as placeholder
-            plugin.getLogger().info("Data export functionality not yet implemented");
+            writer.complete();
+            plugin.getLogger().info("Exported " + writer.getCount() + " players to " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
             return true;
 
         } catch (Exception e) {
@@ -563,64 +1014,249 @@ public class SQLiteStorage implements StorageProvider {
 
     @Override
     public boolean importData(String fileName) throws Exception {
-        // Implementation for data import with proper error handling
-        Connection conn = null;
-        try {
-            conn = getConnection();
+        if (migration.isPending()) {
+            plugin.getLogger().warning("Data import is unavailable until the schema migration has finished");
+            return false;
+        }
+
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+        int imported = 0;
+
+        try (PlayerDataExport.Reader reader = new PlayerDataExport.Reader(file)) {
+            List<PlayerData> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            PlayerData data;
+            while ((data = reader.next()) != null) {
+                batch.add(data);
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    importPlayers(batch);
+                    imported += batch.size();
+                    batch.clear();
+                }
+            }
 
-            // This would involve importing data from JSON/CSV format
-            // For now, return true as placeholder
-            plugin.getLogger().info("Data import functionality not yet implemented");
+            if (!batch.isEmpty()) {
+                importPlayers(batch);
+                imported += batch.size();
+            }
+
+            plugin.getLogger().info("Imported " + imported + " players from " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
             return true;
 
         } catch (Exception e) {
-            throw new Exception("Failed to import data", e);
+            throw new Exception("Failed to import data after " + imported + " players", e);
+        }
+    }
+
+    /**
+     * Replace the stored data of a batch of imported players in one transaction
+     */
+    @Override
+    public void importPlayers(List<PlayerData> batch) throws SQLException {
+        String[] childTables = {
+                "player_cooldowns", "player_tool_usage", "player_enchantment_usage",
+                "player_milestone_blocks", "player_milestone_claim_masks"
+        };
+        String replacePlayerData = """
+                    INSERT OR REPLACE INTO players
+                    (player_id, total_blocks_broken, total_xp_earned, total_essence_earned,
+                     last_enchant_used, total_meteors_spawned, total_airstrikes,
+                     favorite_tool_type, last_seen, updated_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, strftime('%s', 'now'))
+                """;
+        String insertCooldown = "INSERT INTO player_cooldowns (player_id, enchantment_id, cooldown_end) VALUES (?, ?, ?)";
+        String insertToolUsage = "INSERT INTO player_tool_usage (player_id, tool_type_id, usage_count) VALUES (?, ?, ?)";
+        String insertEnchantUsage = "INSERT INTO player_enchantment_usage (player_id, enchantment_id, usage_count) VALUES (?, ?, ?)";
+        String insertMilestoneBlocks = "INSERT INTO player_milestone_blocks (player_id, material_id, blocks_broken) VALUES (?, ?, ?)";
+        String insertMilestoneClaim = "INSERT INTO player_milestone_claim_masks (player_id, material_id, claimed_mask) VALUES (?, ?, ?)";
+
+        Connection conn = null;
+        try {
+            conn = getWriteConnection();
+            conn.setAutoCommit(false);
+
+            // Imported players replace whatever is stored for them
+            for (String table : childTables) {
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + table + " WHERE player_id = ?")) {
+                    for (PlayerData data : batch) {
+                        stmt.setBytes(1, uuidToBytes(data.getPlayerId()));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            try (PreparedStatement playerStmt = conn.prepareStatement(replacePlayerData);
+                 PreparedStatement cooldownStmt = conn.prepareStatement(insertCooldown);
+                 PreparedStatement toolStmt = conn.prepareStatement(insertToolUsage);
+                 PreparedStatement enchantStmt = conn.prepareStatement(insertEnchantUsage);
+                 PreparedStatement blocksStmt = conn.prepareStatement(insertMilestoneBlocks);
+                 PreparedStatement claimStmt = conn.prepareStatement(insertMilestoneClaim)) {
+
+                for (PlayerData data : batch) {
+                    byte[] id = uuidToBytes(data.getPlayerId());
+
+                    playerStmt.setBytes(1, id);
+                    playerStmt.setLong(2, data.getTotalBlocksBroken());
+                    playerStmt.setDouble(3, data.getTotalXpEarned());
+                    playerStmt.setDouble(4, data.getTotalEssenceEarned());
+                    playerStmt.setString(5, data.getLastEnchantUsed());
+                    playerStmt.setInt(6, data.getTotalMeteorsSpawned());
+                    playerStmt.setInt(7, data.getTotalAirstrikes());
+                    playerStmt.setString(8, data.getFavoriteToolType());
+                    playerStmt.setLong(9, data.getLastSeen());
+                    playerStmt.addBatch();
+
+                    for (Map.Entry<String, Long> entry : data.getEnchantmentCooldowns().entrySet()) {
+                        addIdRow(cooldownStmt, id, enchantments.getId(conn, entry.getKey()), entry.getValue());
+                    }
+                    for (Map.Entry<String, Integer> entry : data.getToolUsageCount().entrySet()) {
+                        addIdRow(toolStmt, id, toolTypes.getId(conn, entry.getKey()), entry.getValue());
+                    }
+                    for (Map.Entry<String, Long> entry : data.getEnchantmentUsageCount().entrySet()) {
+                        addIdRow(enchantStmt, id, enchantments.getId(conn, entry.getKey()), entry.getValue());
+                    }
+                    for (Map.Entry<Material, Long> entry : data.getMilestoneData().getAllBlocksBroken().entrySet()) {
+                        addIdRow(blocksStmt, id, materials.getId(conn, entry.getKey().name()), entry.getValue());
+                    }
+                    for (Map.Entry<Material, Long> entry : data.getMilestoneData().getAllClaimMasks().entrySet()) {
+                        addIdRow(claimStmt, id, materials.getId(conn, entry.getKey().name()), entry.getValue());
+                    }
+                }
+
+                playerStmt.executeBatch();
+                cooldownStmt.executeBatch();
+                toolStmt.executeBatch();
+                enchantStmt.executeBatch();
+                blocksStmt.executeBatch();
+                claimStmt.executeBatch();
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            invalidateDictionaries();
+            throw e;
         } finally {
             closeConnection(conn);
         }
     }
 
+    private void addIdRow(PreparedStatement stmt, byte[] id, int nameId, long value) throws SQLException {
+        stmt.setBytes(1, id);
+        stmt.setInt(2, nameId);
+        stmt.setLong(3, value);
+        stmt.addBatch();
+    }
+
     @Override
     public void shutdown() throws Exception {
         plugin.getLogger().info("Shutting down SQLite storage...");
 
-        if (dataSource != null && !dataSource.isClosed()) {
-            try {
-                // Proper shutdown sequence with timeout
-                dataSource.close();
-
-                // Wait for connection pool to shutdown
-                long startTime = System.currentTimeMillis();
-                while (!dataSource.isClosed() &&
-                        (System.currentTimeMillis() - startTime) < TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS)) {
-                    Thread.sleep(100);
-                }
+        // Stop the schema migration after its current chunk
+        migration.shutdown();
 
-                if (!dataSource.isClosed()) {
-                    plugin.getLogger().warning("DataSource did not close within timeout period");
-                }
+        // Write queued saves while the pool is still open
+        if (batchWriter != null) {
+            batchWriter.shutdown();
+            batchWriter = null;
+        }
 
-                plugin.getLogger().info("SQLite storage shutdown completed");
+        try {
+            // Readers first, then the writer (closing the last connection checkpoints the WAL)
+            closeDataSource(readDataSource);
+            closeDataSource(writeDataSource);
 
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error during SQLite storage shutdown", e);
-                throw e;
-            }
+            plugin.getLogger().info("SQLite storage shutdown completed");
+
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error during SQLite storage shutdown", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Proper shutdown sequence with timeout
+     */
+    private void closeDataSource(HikariDataSource dataSource) throws InterruptedException {
+        if (dataSource == null || dataSource.isClosed()) {
+            return;
         }
+
+        dataSource.close();
+
+        // Wait for connection pool to shutdown
+        long startTime = System.currentTimeMillis();
+        while (!dataSource.isClosed() &&
+                (System.currentTimeMillis() - startTime) < TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS)) {
+            Thread.sleep(100);
+        }
+
+        if (!dataSource.isClosed()) {
+            plugin.getLogger().warning("DataSource " + dataSource.getPoolName() + " did not close within timeout period");
+        }
+    }
+
+    /**
+     * Encode a UUID as 16 big-endian bytes
+     */
+    static byte[] uuidToBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Decode a UUID stored as 16 big-endian bytes
+     */
+    static UUID bytesToUuid(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Parse the level part of a milestone key, -1 if it is not a valid level
+     */
+    static int parseMilestoneLevel(String level) {
+        try {
+            int parsed = Integer.parseInt(level);
+            return parsed >= 0 ? parsed : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void invalidateDictionaries() {
+        materials.invalidate();
+        enchantments.invalidate();
+        toolTypes.invalidate();
     }
 
     /**
      * Get connection pool statistics for monitoring
      */
     public Map<String, Object> getPoolStats() {
-        if (dataSource != null) {
+        if (writeDataSource != null && readDataSource != null) {
             return Map.of(
-                    "active", dataSource.getHikariPoolMXBean().getActiveConnections(),
-                    "idle", dataSource.getHikariPoolMXBean().getIdleConnections(),
-                    "total", dataSource.getHikariPoolMXBean().getTotalConnections(),
-                    "waiting", dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection()
+                    "writerActive", writeDataSource.getHikariPoolMXBean().getActiveConnections(),
+                    "writerWaiting", writeDataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(),
+                    "readActive", readDataSource.getHikariPoolMXBean().getActiveConnections(),
+                    "readIdle", readDataSource.getHikariPoolMXBean().getIdleConnections(),
+                    "readTotal", readDataSource.getHikariPoolMXBean().getTotalConnections(),
+                    "readWaiting", readDataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(),
+                    "queuedSaves", batchWriter != null ? batchWriter.getQueueSize() : 0,
+                    "batchesWritten", batchWriter != null ? batchWriter.getBatchesWritten() : 0L
             );
         }
         return Map.of();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package com.ghasttools.data.storage;
+
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * SQL differences between the server databases supported by {@link NetworkSqlStorage}
+ */
+public enum SqlDialect {
+
+    /**
+     * MySQL and MariaDB, both through the MariaDB driver
+     */
+    MYSQL("org.mariadb.jdbc.Driver", "jdbc:mariadb://", 3306, "BINARY(16)", "DOUBLE",
+            "BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY") {
+        @Override
+        String upsert(String table, String[] keyColumns, String[] valueColumns, Set<String> incrementColumns) {
+            StringJoiner updates = new StringJoiner(", ");
+            for (String column : valueColumns) {
+                updates.add(incrementColumns.contains(column)
+                        ? column + " = " + column + " + VALUES(" + column + ")"
+                        : column + " = VALUES(" + column + ")");
+            }
+            return insert(table, keyColumns, valueColumns) + " ON DUPLICATE KEY UPDATE " + updates;
+        }
+
+        @Override
+        String inlineIndex(String name, String column) {
+            return ", INDEX " + name + " (" + column + ")";
+        }
+
+        @Override
+        String createIndex(String table, String name, String column) {
+            return null;
+        }
+    },
+
+    POSTGRESQL("org.postgresql.Driver", "jdbc:postgresql://", 5432, "BYTEA", "DOUBLE PRECISION",
+            "BIGSERIAL PRIMARY KEY") {
+        @Override
+        String upsert(String table, String[] keyColumns, String[] valueColumns, Set<String> incrementColumns) {
+            StringJoiner updates = new StringJoiner(", ");
+            for (String column : valueColumns) {
+                updates.add(incrementColumns.contains(column)
+                        ? column + " = " + table + "." + column + " + EXCLUDED." + column
+                        : column + " = EXCLUDED." + column);
+            }
+            return insert(table, keyColumns, valueColumns)
+                    + " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO UPDATE SET " + updates;
+        }
+
+        @Override
+        String inlineIndex(String name, String column) {
+            return "";
+        }
+
+        @Override
+        String createIndex(String table, String name, String column) {
+            return "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + column + ")";
+        }
+    };
+
+    private final String driverClassName;
+    private final String urlPrefix;
+    private final int defaultPort;
+    private final String binaryIdType;
+    private final String doubleType;
+    private final String sequenceType;
+
+    SqlDialect(String driverClassName, String urlPrefix, int defaultPort, String binaryIdType, String doubleType,
+               String sequenceType) {
+        this.driverClassName = driverClassName;
+        this.urlPrefix = urlPrefix;
+        this.defaultPort = defaultPort;
+        this.binaryIdType = binaryIdType;
+        this.doubleType = doubleType;
+        this.sequenceType = sequenceType;
+    }
+
+    /**
+     * @return The dialect for a storage type, or null if it is not a network database
+     */
+    public static SqlDialect fromStorageType(String type) {
+        switch (type) {
+            case "mysql":
+            case "mariadb":
+                return MYSQL;
+            case "postgresql":
+            case "postgres":
+                return POSTGRESQL;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Insert-or-update statement for one row. Value columns in incrementColumns are added to the stored
+     * value, the others replace it.
+     */
+    abstract String upsert(String table, String[] keyColumns, String[] valueColumns, Set<String> incrementColumns);
+
+    /**
+     * Index definition to append inside CREATE TABLE, empty if indexes are created separately
+     */
+    abstract String inlineIndex(String name, String column);
+
+    /**
+     * Statement creating an index if it is missing, null if indexes are defined inline
+     */
+    abstract String createIndex(String table, String name, String column);
+
+    static String insert(String table, String[] keyColumns, String[] valueColumns) {
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        for (String column : keyColumns) {
+            columns.add(column);
+            values.add("?");
+        }
+        for (String column : valueColumns) {
+            columns.add(column);
+            values.add("?");
+        }
+        return "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")";
+    }
+
+    String getDriverClassName() {
+        return driverClassName;
+    }
+
+    String getUrlPrefix() {
+        return urlPrefix;
+    }
+
+    String getJdbcUrl(String host, int port, String database) {
+        return urlPrefix + host + ":" + port + "/" + database;
+    }
+
+    int getDefaultPort() {
+        return defaultPort;
+    }
+
+    String getBinaryIdType() {
+        return binaryIdType;
+    }
+
+    String getDoubleType() {
+        return doubleType;
+    }
+
+    /**
+     * Column definition of an auto-incrementing primary key
+     */
+    String getSequenceType() {
+        return sequenceType;
+    }
+}
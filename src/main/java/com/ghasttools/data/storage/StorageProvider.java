@@ -2,7 +2,12 @@ package com.ghasttools.data.storage;
 
 import com.ghasttools.data.PlayerData;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for data storage providers
@@ -19,11 +24,55 @@ public interface StorageProvider {
      */
     void savePlayerData(UUID playerId, PlayerData data) throws Exception;
 
+    /**
+     * Queue a player save; the future completes once the data is persisted.
+     * Providers that batch writes override this, the default saves synchronously.
+     */
+    default CompletableFuture<Void> queuePlayerSave(UUID playerId, PlayerData data) {
+        try {
+            savePlayerData(playerId, data);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Load player data
      */
     PlayerData loadPlayerData(UUID playerId) throws Exception;
 
+    /**
+     * Load several players at once (leaderboards, stats, admin commands).
+     * Players without stored data get default data, like {@link #loadPlayerData(UUID)}.
+     * Providers that can read many players in a few queries override this.
+     * @return Data per requested player, in request order
+     */
+    default Map<UUID, PlayerData> loadPlayerData(Collection<UUID> playerIds) throws Exception {
+        Map<UUID, PlayerData> players = new LinkedHashMap<>();
+        for (UUID playerId : playerIds) {
+            if (!players.containsKey(playerId)) {
+                players.put(playerId, loadPlayerData(playerId));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Call the consumer for the id of every stored player, without loading their data
+     */
+    void forEachPlayerId(PlayerIdConsumer consumer) throws Exception;
+
+    /**
+     * Write complete player data, replacing whatever is stored for these players (imports and migrations).
+     * Providers that can write several players in one transaction override this.
+     */
+    default void importPlayers(List<PlayerData> players) throws Exception {
+        for (PlayerData data : players) {
+            savePlayerData(data.getPlayerId(), data);
+        }
+    }
+
     /**
      * Clean up old player data
      * @param daysOffline Number of days a player must be offline before their data is cleaned
@@ -45,4 +94,12 @@ public interface StorageProvider {
      * Shutdown the storage system
      */
     void shutdown() throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Receives player ids while a provider walks its stored players
+     */
+    @FunctionalInterface
+    interface PlayerIdConsumer {
+        void accept(UUID playerId) throws Exception;
+    }
+}
@@ -0,0 +1,184 @@
+package com.ghasttools.data.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only UUID -> lastSeen index kept next to the YAML player files.
+ *
+ * Each save appends a fixed size record, and a removal appends a tombstone. The file is replayed into
+ * memory on startup and compacted once most of its records are superseded, so cleanup queries never
+ * have to parse player files.
+ */
+class YamlLastSeenIndex {
+
+    private final File file;
+    private final Map<UUID, Long> lastSeen = new ConcurrentHashMap<>();
+
+    private FileChannel channel;
+    private long recordCount;
+
+    // Configuration constants to avoid magic numbers
+    private static final int MAGIC = 0x47544C53; // "GTLS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 24;
+    private static final long TOMBSTONE = -1L;
+    private static final int COMPACT_MIN_RECORDS = 10_000;
+    private static final int COMPACT_RATIO = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    YamlLastSeenIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Replay the index file into memory
+     * @return false if the file is missing or unreadable and the index must be rebuilt
+     */
+    synchronized boolean load() throws IOException {
+        lastSeen.clear();
+        recordCount = 0;
+
+        if (!file.exists()) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+
+            // A torn record at the end of the file is ignored
+            long records = (file.length() - HEADER_SIZE) / RECORD_SIZE;
+            for (long i = 0; i < records; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                long seen = in.readLong();
+                if (seen == TOMBSTONE) {
+                    lastSeen.remove(playerId);
+                } else {
+                    lastSeen.put(playerId, seen);
+                }
+            }
+            recordCount = records;
+        } catch (EOFException e) {
+            return false;
+        }
+
+        // Rewrite now so appends never follow a torn record
+        compact();
+        return true;
+    }
+
+    /**
+     * Replace the index with a freshly scanned set of entries
+     */
+    synchronized void rebuild(Map<UUID, Long> entries) throws IOException {
+        lastSeen.clear();
+        lastSeen.putAll(entries);
+        compact();
+    }
+
+    synchronized void update(UUID playerId, long seen) throws IOException {
+        Long previous = lastSeen.put(playerId, seen);
+        if (previous == null || previous != seen) {
+            append(playerId, seen);
+        }
+    }
+
+    synchronized void remove(UUID playerId) throws IOException {
+        if (lastSeen.remove(playerId) != null) {
+            append(playerId, TOMBSTONE);
+        }
+    }
+
+    /**
+     * @return Players whose last seen time is before the cutoff
+     */
+    List<UUID> getPlayersSeenBefore(long cutoffTime) {
+        List<UUID> result = new ArrayList<>();
+        for (Map.Entry<UUID, Long> entry : lastSeen.entrySet()) {
+            if (entry.getValue() < cutoffTime) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return lastSeen.size();
+    }
+
+    private void append(UUID playerId, long seen) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(playerId.getMostSignificantBits());
+        record.putLong(playerId.getLeastSignificantBits());
+        record.putLong(seen);
+        record.flip();
+
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        recordCount++;
+
+        if (recordCount > COMPACT_MIN_RECORDS && recordCount > (long) lastSeen.size() * COMPACT_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * Write only the live entries to a new file and swap it in
+     */
+    private void compact() throws IOException {
+        closeChannel();
+
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<UUID, Long> entry : lastSeen.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeLong(entry.getValue());
+            }
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        recordCount = lastSeen.size();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -9,16 +9,43 @@ import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 /**
  * FIXED: YAML implementation with milestone data support
+ *
+ * Player files are sharded into subdirectories named after the first two hex characters of the UUID
+ * (playerdata/ab/ab12....yml) and are replaced atomically through a temporary file. A lastSeen
+ * index next to the shards answers cleanup queries without parsing player files.
  */
 public class YamlStorage implements StorageProvider {
 
     private final GhastToolsPlugin plugin;
     private File dataFolder;
+    private YamlLastSeenIndex lastSeenIndex;
+
+    // Configuration constants to avoid magic numbers
+    private static final int SHARD_PREFIX_LENGTH = 2;
+    private static final String FILE_EXTENSION = ".yml";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String INDEX_FILE = "lastseen.idx";
 
     public YamlStorage(GhastToolsPlugin plugin) {
         this.plugin = plugin;
@@ -30,12 +57,118 @@ public class YamlStorage implements StorageProvider {
         if (!dataFolder.exists()) {
             dataFolder.mkdirs();
         }
+
+        migrateFlatFiles();
+
+        lastSeenIndex = new YamlLastSeenIndex(new File(dataFolder, INDEX_FILE));
+        if (!lastSeenIndex.load()) {
+            rebuildLastSeenIndex();
+        }
+    }
+
+    /**
+     * Rebuild the lastSeen index by reading every player file once
+     */
+    private void rebuildLastSeenIndex() throws Exception {
+        long startTime = System.currentTimeMillis();
+        Map<UUID, Long> entries = new HashMap<>();
+
+        forEachPlayerId(playerId -> {
+            FileConfiguration config = YamlConfiguration.loadConfiguration(getPlayerFile(playerId));
+            entries.put(playerId, config.getLong("lastSeen", System.currentTimeMillis()));
+        });
+
+        lastSeenIndex.rebuild(entries);
+        plugin.getLogger().info("Rebuilt lastSeen index for " + entries.size() + " players in "
+                + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Move player files from the old flat layout into their shard directories
+     */
+    private void migrateFlatFiles() throws IOException {
+        int moved = 0;
+
+        try (DirectoryStream<Path> legacyFiles = Files.newDirectoryStream(dataFolder.toPath(), "*" + FILE_EXTENSION)) {
+            for (Path legacyFile : legacyFiles) {
+                UUID playerId = parsePlayerId(legacyFile);
+                if (playerId == null) {
+                    continue;
+                }
+
+                File target = getPlayerFile(playerId);
+                target.getParentFile().mkdirs();
+                Files.move(legacyFile, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                moved++;
+            }
+        }
+
+        if (moved > 0) {
+            plugin.getLogger().info("Moved " + moved + " player files into sharded directories");
+        }
+    }
+
+    /**
+     * Get the file for a player inside its shard directory
+     */
+    private File getPlayerFile(UUID playerId) {
+        String id = playerId.toString();
+        return new File(new File(dataFolder, id.substring(0, SHARD_PREFIX_LENGTH)), id + FILE_EXTENSION);
+    }
+
+    /**
+     * Parse the player id from a player file name
+     * @return The id, or null if the name is not a player file
+     */
+    private UUID parsePlayerId(Path playerFile) {
+        String name = playerFile.getFileName().toString();
+        try {
+            return UUID.fromString(name.substring(0, name.length() - FILE_EXTENSION.length()));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Skipping player file with invalid name: " + name);
+            return null;
+        }
+    }
+
+    /**
+     * Replace a file with new contents through a temporary file in the same directory.
+     * The temporary file has a unique name, so concurrent writers of the same player never share it,
+     * and it is flushed to disk before the rename so a crash cannot leave an empty file behind.
+     */
+    private void writeAtomically(File file, String contents) throws IOException {
+        File folder = file.getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        Path tempFile = Files.createTempFile(folder.toPath(), file.getName() + ".", TEMP_EXTENSION);
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // Only left over when the write or the move failed
+            Files.deleteIfExists(tempFile);
+        }
     }
 
     @Override
     public void savePlayerData(UUID playerId, PlayerData data) throws Exception {
-        File playerFile = new File(dataFolder, playerId.toString() + ".yml");
-        FileConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
+        // The whole file is rewritten, so pending changes are covered by this save
+        data.clearChanges();
+
+        // Built from scratch: the file is fully replaced, so it never needs to be read first
+        FileConfiguration config = new YamlConfiguration();
 
         // Save main data
         config.set("totalBlocksBroken", data.getTotalBlocksBroken());
@@ -48,7 +181,6 @@ public class YamlStorage implements StorageProvider {
         config.set("lastSeen", data.getLastSeen());
 
         // Save cooldowns (only active ones)
-        config.set("cooldowns", null); // Clear existing
         for (Map.Entry<String, Long> entry : data.getEnchantmentCooldowns().entrySet()) {
             if (entry.getValue() > System.currentTimeMillis()) {
                 config.set("cooldowns." + entry.getKey(), entry.getValue());
@@ -56,13 +188,11 @@ public class YamlStorage implements StorageProvider {
         }
 
         // Save tool usage
-        config.set("toolUsage", null); // Clear existing
         for (Map.Entry<String, Integer> entry : data.getToolUsageCount().entrySet()) {
             config.set("toolUsage." + entry.getKey(), entry.getValue());
         }
 
         // Save enchantment usage
-        config.set("enchantmentUsage", null); // Clear existing
         for (Map.Entry<String, Long> entry : data.getEnchantmentUsageCount().entrySet()) {
             config.set("enchantmentUsage." + entry.getKey(), entry.getValue());
         }
@@ -71,15 +201,43 @@ public class YamlStorage implements StorageProvider {
         saveMilestoneData(config, data.getMilestoneData());
 
         try {
-            config.save(playerFile);
+            writeAtomically(getPlayerFile(playerId), config.saveToString());
+            lastSeenIndex.update(playerId, data.getLastSeen());
         } catch (IOException e) {
             throw new Exception("Failed to save player data for " + playerId, e);
         }
     }
 
+    /**
+     * Read the player files in parallel; the calling thread takes part, so callers on any pool are safe
+     */
+    @Override
+    public Map<UUID, PlayerData> loadPlayerData(Collection<UUID> playerIds) throws Exception {
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(playerIds));
+
+        List<PlayerData> loaded;
+        try {
+            loaded = ids.parallelStream().map(playerId -> {
+                try {
+                    return loadPlayerData(playerId);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+
+        Map<UUID, PlayerData> players = new LinkedHashMap<>();
+        for (PlayerData data : loaded) {
+            players.put(data.getPlayerId(), data);
+        }
+        return players;
+    }
+
     @Override
     public PlayerData loadPlayerData(UUID playerId) throws Exception {
-        File playerFile = new File(dataFolder, playerId.toString() + ".yml");
+        File playerFile = getPlayerFile(playerId);
         PlayerData data = new PlayerData(playerId);
 
         if (!playerFile.exists()) {
@@ -103,7 +261,7 @@ public class YamlStorage implements StorageProvider {
             for (String enchant : config.getConfigurationSection("cooldowns").getKeys(false)) {
                 long cooldownEnd = config.getLong("cooldowns." + enchant);
                 if (cooldownEnd > System.currentTimeMillis()) {
-                    data.getEnchantmentCooldowns().put(enchant, cooldownEnd);
+                    data.restoreCooldown(enchant, cooldownEnd);
                 }
             }
         }
@@ -111,20 +269,23 @@ public class YamlStorage implements StorageProvider {
         // Load tool usage
         if (config.contains("toolUsage")) {
             for (String tool : config.getConfigurationSection("toolUsage").getKeys(false)) {
-                data.getToolUsageCount().put(tool, config.getInt("toolUsage." + tool));
+                data.restoreToolUsage(tool, config.getInt("toolUsage." + tool));
             }
         }
 
         // Load enchantment usage
         if (config.contains("enchantmentUsage")) {
             for (String enchant : config.getConfigurationSection("enchantmentUsage").getKeys(false)) {
-                data.getEnchantmentUsageCount().put(enchant, config.getLong("enchantmentUsage." + enchant));
+                data.restoreEnchantmentUsage(enchant, config.getLong("enchantmentUsage." + enchant));
             }
         }
 
         // ADDED: Load milestone data
         loadMilestoneData(config, data.getMilestoneData());
 
+        // Loaded state matches the file
+        data.clearChanges();
+
         return data;
     }
 
@@ -134,24 +295,11 @@ public class YamlStorage implements StorageProvider {
     private void saveMilestoneData(FileConfiguration config, MilestoneData milestoneData) {
         if (milestoneData == null) return;
 
-        // Clear existing milestone data
-        config.set("milestones", null);
-
         // Save blocks broken data
-        Map<Material, Long> blocksData = milestoneData.getAllBlocksBroken();
-        for (Map.Entry<Material, Long> entry : blocksData.entrySet()) {
-            if (entry.getValue() > 0) { // Only save non-zero values
-                config.set("milestones.blocks." + entry.getKey().name(), entry.getValue());
-            }
-        }
+        milestoneData.forEachBlocksBroken((material, count) -> config.set("milestones.blocks." + material.name(), count));
 
-        // Save milestone claims data
-        Map<String, Boolean> claimsData = milestoneData.getAllClaimedMilestones();
-        for (Map.Entry<String, Boolean> entry : claimsData.entrySet()) {
-            if (entry.getValue()) { // Only save claimed milestones
-                config.set("milestones.claims." + entry.getKey(), entry.getValue());
-            }
-        }
+        // Save milestone claims as one bitmask per material (bit n = level n)
+        milestoneData.forEachClaimMask((material, mask) -> config.set("milestones.claimed." + material.name(), mask));
     }
 
     /**
@@ -173,7 +321,19 @@ public class YamlStorage implements StorageProvider {
             }
         }
 
-        // Load milestone claims data
+        // Load milestone claim bitmasks
+        if (config.contains("milestones.claimed")) {
+            for (String materialName : config.getConfigurationSection("milestones.claimed").getKeys(false)) {
+                Material material = Material.getMaterial(materialName);
+                if (material != null) {
+                    milestoneData.setClaimMask(material, config.getLong("milestones.claimed." + materialName));
+                } else {
+                    plugin.getLogger().warning("Invalid material in milestone data: " + materialName);
+                }
+            }
+        }
+
+        // Files written before claim bitmasks store one MATERIAL_LEVEL key per claim
         if (config.contains("milestones.claims")) {
             for (String milestoneKey : config.getConfigurationSection("milestones.claims").getKeys(false)) {
                 boolean claimed = config.getBoolean("milestones.claims." + milestoneKey);
@@ -182,22 +342,45 @@ public class YamlStorage implements StorageProvider {
         }
     }
 
+    @Override
+    public void forEachPlayerId(PlayerIdConsumer consumer) throws Exception {
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(dataFolder.toPath(), Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> playerFiles = Files.newDirectoryStream(shard, "*" + FILE_EXTENSION)) {
+                    for (Path playerFile : playerFiles) {
+                        UUID playerId = parsePlayerId(playerFile);
+                        if (playerId != null) {
+                            consumer.accept(playerId);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public int cleanupOldData(int daysOffline) throws Exception {
         long cutoffTime = System.currentTimeMillis() - (daysOffline * 24L * 60L * 60L * 1000L);
         int cleaned = 0;
 
-        File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(".yml"));
-        if (playerFiles != null) {
-            for (File file : playerFiles) {
-                FileConfiguration config = YamlConfiguration.loadConfiguration(file);
-                long lastSeen = config.getLong("lastSeen", System.currentTimeMillis());
+        for (UUID playerId : lastSeenIndex.getPlayersSeenBefore(cutoffTime)) {
+            File file = getPlayerFile(playerId);
+            if (!file.exists()) {
+                lastSeenIndex.remove(playerId);
+                continue;
+            }
 
-                if (lastSeen < cutoffTime) {
-                    if (file.delete()) {
-                        cleaned++;
-                    }
+            // The file is authoritative: an index append lost in a crash must not delete an active player
+            FileConfiguration config = YamlConfiguration.loadConfiguration(file);
+            long lastSeen = config.getLong("lastSeen", System.currentTimeMillis());
+
+            if (lastSeen < cutoffTime) {
+                if (file.delete()) {
+                    lastSeenIndex.remove(playerId);
+                    cleaned++;
                 }
+            } else {
+                lastSeenIndex.update(playerId, lastSeen);
             }
         }
 
@@ -206,18 +389,49 @@ public class YamlStorage implements StorageProvider {
 
     @Override
     public boolean exportData(String fileName) throws Exception {
-        // Implementation for data export
-        return true; // Placeholder
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+
+        // Player files are listed lazily and loaded one at a time
+        try (PlayerDataExport.Writer writer = new PlayerDataExport.Writer(file)) {
+            forEachPlayerId(playerId -> writer.write(loadPlayerData(playerId)));
+
+            writer.complete();
+            plugin.getLogger().info("Exported " + writer.getCount() + " players to " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return true;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to export data", e);
+        }
     }
 
     @Override
     public boolean importData(String fileName) throws Exception {
-        // Implementation for data import
-        return true; // Placeholder
+        File file = PlayerDataExport.resolveFile(plugin, fileName);
+        long startTime = System.currentTimeMillis();
+        int imported = 0;
+
+        try (PlayerDataExport.Reader reader = new PlayerDataExport.Reader(file)) {
+            PlayerData data;
+            while ((data = reader.next()) != null) {
+                savePlayerData(data.getPlayerId(), data);
+                imported++;
+            }
+
+            plugin.getLogger().info("Imported " + imported + " players from " + file.getName()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return true;
+
+        } catch (Exception e) {
+            throw new Exception("Failed to import data after " + imported + " players", e);
+        }
     }
 
     @Override
     public void shutdown() throws Exception {
-        // No cleanup needed for YAML storage
+        if (lastSeenIndex != null) {
+            lastSeenIndex.close();
+        }
     }
 }
\ No newline at end of file
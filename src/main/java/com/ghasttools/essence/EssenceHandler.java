@@ -216,6 +216,27 @@ public class EssenceHandler {
         }
     }
 
+    /**
+     * Give essence points to player directly through the EssenceManager
+     */
+    public boolean giveEssence(Player player, int amount) {
+        if (!isAvailable()) {
+            plugin.getLogger().warning("Cannot give essence - system not available");
+            return false;
+        }
+
+        if (amount <= 0) {
+            return true;
+        }
+
+        try {
+            return essenceManager.giveEssence(player, amount);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Error giving essence to " + player.getName(), e);
+            return false;
+        }
+    }
+
     /**
      * Get the essence cost in levels for a specific number of essence points
      */
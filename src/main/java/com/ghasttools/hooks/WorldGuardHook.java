@@ -2,21 +2,30 @@ package com.ghasttools.hooks;
 
 import com.ghasttools.GhastToolsPlugin;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldguard.LocalPlayer;
 import com.sk89q.worldguard.WorldGuard;
 import com.sk89q.worldguard.bukkit.WorldGuardPlugin;
-import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.RegionResultSet;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
 import com.sk89q.worldguard.protection.flags.StateFlag;
 import com.sk89q.worldguard.protection.flags.registry.FlagConflictException;
 import com.sk89q.worldguard.protection.flags.registry.FlagRegistry;
 import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.protection.regions.RegionQuery;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
 
 /**
  * FIXED: Enhanced thread-safe WorldGuard integration with proper error handling
@@ -29,6 +38,27 @@ public class WorldGuardHook {
     private volatile boolean initialized = false;
     private volatile boolean worldGuardAvailable = false;
 
+    // Configuration constants to avoid magic numbers
+    private static final String AREA_REGION_ID = "__ghasttools_area__";
+    // Region combinations are cached as bit masks, areas touching more regions are checked per position
+    private static final int MAX_MASKED_REGIONS = Long.SIZE;
+    private static final long DEFAULT_CACHE_TTL_MS = 5000;
+    private static final int SECTION_SHIFT = 4;
+    private static final int SECTION_SIZE = 1 << SECTION_SHIFT;
+    private static final int MAX_CACHED_SECTIONS = 4096;
+
+    // Flag checks per player and chunk section, so repeated mining in a mine stays in memory
+    private final ConcurrentHashMap<SectionKey, SectionCache> sectionCaches = new ConcurrentHashMap<>();
+
+    /**
+     * Flag results for the positions of one area, evaluated against regions fetched once
+     */
+    public interface AreaCheck {
+        AreaCheck ALLOW = (x, y, z) -> true;
+
+        boolean isAllowed(int x, int y, int z);
+    }
+
     public WorldGuardHook(GhastToolsPlugin plugin) {
         this.plugin = plugin;
     }
@@ -149,7 +179,8 @@ public class WorldGuardHook {
                 return getDefaultBehavior();
             }
 
-            return checkFlag(player, location, flag);
+            return getSectionCheck(player, location, flag)
+                    .isAllowed(location.getBlockX(), location.getBlockY(), location.getBlockZ());
         } catch (Exception e) {
             plugin.getLogger().fine("Error checking tool usage permissions: " + e.getMessage());
             return getDefaultBehavior();
@@ -158,6 +189,244 @@ public class WorldGuardHook {
         }
     }
 
+    /**
+     * Tool usage checking for every position of a box at once.
+     * The regions intersecting the box are queried once; positions are then matched against them in memory,
+     * and boxes lying completely inside the same regions get a single answer for every position.
+     */
+    public AreaCheck canUseToolsInArea(Player player, World world, int minX, int minY, int minZ,
+                                       int maxX, int maxY, int maxZ) {
+        initLock.readLock().lock();
+        try {
+            if (!worldGuardAvailable || !initialized) {
+                return constant(getDefaultBehavior());
+            }
+
+            if (player.hasPermission("ghasttools.bypass.worldguard")) {
+                return AreaCheck.ALLOW;
+            }
+
+            if (!isWorldAllowed(world.getName())) {
+                return constant(false);
+            }
+
+            StateFlag flag = flags.get("ghasttools-use");
+            if (flag == null) {
+                return constant(getDefaultBehavior());
+            }
+
+            return areaCheck(player, world, minX, minY, minZ, maxX, maxY, maxZ, flag);
+        } catch (Exception e) {
+            plugin.getLogger().fine("Error checking tool usage permissions for area: " + e.getMessage());
+            return constant(getDefaultBehavior());
+        } finally {
+            initLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fetch the regions intersecting the box once and answer the flag for its positions from them
+     */
+    private AreaCheck areaCheck(Player player, World world, int minX, int minY, int minZ,
+                                int maxX, int maxY, int maxZ, StateFlag flag) {
+        try {
+            RegionManager regionManager = WorldGuard.getInstance().getPlatform()
+                    .getRegionContainer()
+                    .get(BukkitAdapter.adapt(world));
+            if (regionManager == null) {
+                plugin.getLogger().fine("No region manager found for world: " + world.getName());
+                return constant(getDefaultBehavior());
+            }
+
+            return areaCheck(regionManager, WorldGuardPlugin.inst().wrapPlayer(player), flag,
+                    minX, minY, minZ, maxX, maxY, maxZ, getDefaultBehavior(), plugin.getLogger());
+        } catch (Exception e) {
+            plugin.getLogger().fine("Error checking WorldGuard flag " + flag.getName() + " for area: " + e.getMessage());
+            return constant(getDefaultBehavior());
+        }
+    }
+
+    /**
+     * Answer the flag for the positions of a box from the regions of the region manager intersecting it
+     */
+    static AreaCheck areaCheck(RegionManager regionManager, RegionAssociable subject, StateFlag flag,
+                               int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                               boolean defaultBehavior, Logger logger) {
+        BlockVector3 min = BlockVector3.at(minX, minY, minZ);
+        BlockVector3 max = BlockVector3.at(maxX, maxY, maxZ);
+        ProtectedRegion box = new ProtectedCuboidRegion(AREA_REGION_ID, true, min, max);
+
+        List<ProtectedRegion> candidates = new ArrayList<>();
+        boolean uniform = true;
+        for (ProtectedRegion region : regionManager.getApplicableRegions(box, RegionQuery.QueryOption.NONE)) {
+            if (ProtectedRegion.GLOBAL_REGION.equals(region.getId())) {
+                continue;
+            }
+            candidates.add(region);
+            uniform &= region instanceof ProtectedCuboidRegion && region.contains(min) && region.contains(max);
+        }
+
+        RegionEvaluator evaluator = new RegionEvaluator(subject, flag, candidates,
+                regionManager.getRegion(ProtectedRegion.GLOBAL_REGION), defaultBehavior, logger);
+
+        // Every position is inside the same regions, one query answers for the whole box
+        if (uniform) {
+            return constant(evaluator.evaluate(candidates));
+        }
+        return evaluator;
+    }
+
+    /**
+     * Flag check of the chunk section around the location, reused until it expires
+     */
+    private AreaCheck getSectionCheck(Player player, Location location, StateFlag flag) {
+        World world = location.getWorld();
+        int sectionX = location.getBlockX() >> SECTION_SHIFT;
+        int sectionY = location.getBlockY() >> SECTION_SHIFT;
+        int sectionZ = location.getBlockZ() >> SECTION_SHIFT;
+        SectionKey key = new SectionKey(player.getUniqueId(), world.getUID(), sectionX, sectionY, sectionZ,
+                player.hasPermission("ghasttools.bypass.worldguard"));
+        long now = System.currentTimeMillis();
+        long ttl = getCacheTtl();
+
+        SectionCache cache = sectionCaches.get(key);
+        if (cache == null || now - cache.createdAt > ttl) {
+            // Regions may have been edited since, start over for this section
+            if (sectionCaches.size() >= MAX_CACHED_SECTIONS) {
+                sectionCaches.values().removeIf(expired -> now - expired.createdAt > ttl);
+                if (sectionCaches.size() >= MAX_CACHED_SECTIONS) {
+                    // Nothing expired yet, start over instead of growing past the bound
+                    sectionCaches.clear();
+                }
+            }
+            cache = new SectionCache(now);
+            sectionCaches.put(key, cache);
+        }
+
+        int minX = sectionX << SECTION_SHIFT;
+        int minY = sectionY << SECTION_SHIFT;
+        int minZ = sectionZ << SECTION_SHIFT;
+        return cache.checks.computeIfAbsent(flag.getName(), name -> areaCheck(player, world, minX, minY, minZ,
+                minX + SECTION_SIZE - 1, minY + SECTION_SIZE - 1, minZ + SECTION_SIZE - 1, flag));
+    }
+
+    private long getCacheTtl() {
+        var config = plugin.getConfigManager().getMainConfig();
+        long ttl = config != null ? config.getLong("worldguard.cache_ttl_ms", DEFAULT_CACHE_TTL_MS) : DEFAULT_CACHE_TTL_MS;
+        return Math.max(0, ttl);
+    }
+
+    /**
+     * Forget the cached flag results of a player
+     */
+    public void clearCache(UUID playerId) {
+        sectionCaches.keySet().removeIf(key -> key.playerId().equals(playerId));
+    }
+
+    /**
+     * Forget all cached flag results, e.g. after regions or the configuration were reloaded
+     */
+    public void clearCache() {
+        sectionCaches.clear();
+    }
+
+    /**
+     * Player, chunk section and bypass state the cached results belong to
+     */
+    private record SectionKey(UUID playerId, UUID worldId, int sectionX, int sectionY, int sectionZ, boolean bypass) {
+    }
+
+    /**
+     * Flag checks of one chunk section for one player
+     */
+    private static final class SectionCache {
+        private final long createdAt;
+        private final ConcurrentHashMap<String, AreaCheck> checks = new ConcurrentHashMap<>();
+
+        private SectionCache(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static AreaCheck constant(boolean allowed) {
+        return allowed ? AreaCheck.ALLOW : (x, y, z) -> false;
+    }
+
+    /**
+     * Flag state at a position from the regions containing it, the same answer as
+     * {@code regionManager.getApplicableRegions(position).queryState(subject, flag)}
+     */
+    static StateFlag.State queryState(List<ProtectedRegion> containing, ProtectedRegion globalRegion,
+                                      RegionAssociable subject, StateFlag flag) {
+        return new RegionResultSet(containing, globalRegion).queryState(subject, flag);
+    }
+
+    /**
+     * Answers positions of an area from the regions that intersect it, caching the result per combination of regions
+     */
+    private static final class RegionEvaluator implements AreaCheck {
+        private final RegionAssociable subject;
+        private final StateFlag flag;
+        private final List<ProtectedRegion> candidates;
+        private final ProtectedRegion globalRegion;
+        private final boolean defaultBehavior;
+        private final Logger logger;
+        private final ConcurrentHashMap<Long, Boolean> results = new ConcurrentHashMap<>();
+
+        private RegionEvaluator(RegionAssociable subject, StateFlag flag, List<ProtectedRegion> candidates,
+                                ProtectedRegion globalRegion, boolean defaultBehavior, Logger logger) {
+            this.subject = subject;
+            this.flag = flag;
+            this.candidates = candidates;
+            this.globalRegion = globalRegion;
+            this.defaultBehavior = defaultBehavior;
+            this.logger = logger;
+        }
+
+        @Override
+        public boolean isAllowed(int x, int y, int z) {
+            try {
+                if (candidates.size() > MAX_MASKED_REGIONS) {
+                    return evaluate(containing(x, y, z));
+                }
+
+                long mask = 0L;
+                for (int i = 0; i < candidates.size(); i++) {
+                    if (candidates.get(i).contains(x, y, z)) {
+                        mask |= 1L << i;
+                    }
+                }
+                return results.computeIfAbsent(mask, key -> evaluate(containing(x, y, z)));
+            } catch (Exception e) {
+                logger.fine("Error checking WorldGuard flag " + flag.getName() + ": " + e.getMessage());
+                return defaultBehavior;
+            }
+        }
+
+        private List<ProtectedRegion> containing(int x, int y, int z) {
+            List<ProtectedRegion> regions = new ArrayList<>();
+            for (ProtectedRegion region : candidates) {
+                if (region.contains(x, y, z)) {
+                    regions.add(region);
+                }
+            }
+            return regions;
+        }
+
+        /**
+         * Flag state at a position inside exactly the given regions
+         */
+        private boolean evaluate(List<ProtectedRegion> regions) {
+            StateFlag.State result = queryState(regions, globalRegion, subject, flag);
+            if (result == StateFlag.State.ALLOW) {
+                return true;
+            } else if (result == StateFlag.State.DENY) {
+                return false;
+            }
+            return defaultBehavior;
+        }
+    }
+
     /**
      * FIXED: Enhanced enchantment checking with proper validation
      */
@@ -194,7 +463,8 @@ public class WorldGuardHook {
                 return getDefaultBehavior(); // Allow if flag doesn't exist
             }
 
-            return checkFlag(player, location, flag);
+            return getSectionCheck(player, location, flag)
+                    .isAllowed(location.getBlockX(), location.getBlockY(), location.getBlockZ());
         } catch (Exception e) {
             plugin.getLogger().fine("Error checking enchantment permissions: " + e.getMessage());
             return getDefaultBehavior();
@@ -203,43 +473,6 @@ public class WorldGuardHook {
         }
     }
 
-    /**
-     * FIXED: Enhanced flag checking with proper error handling
-     */
-    private boolean checkFlag(Player player, Location location, StateFlag flag) {
-        try {
-            LocalPlayer localPlayer = WorldGuardPlugin.inst().wrapPlayer(player);
-            RegionManager regionManager = WorldGuard.getInstance().getPlatform()
-                    .getRegionContainer()
-                    .get(BukkitAdapter.adapt(location.getWorld()));
-
-            if (regionManager == null) {
-                plugin.getLogger().fine("No region manager found for world: " + location.getWorld().getName());
-                return getDefaultBehavior();
-            }
-
-            ApplicableRegionSet regions = regionManager.getApplicableRegions(
-                    BukkitAdapter.asBlockVector(location)
-            );
-
-            StateFlag.State result = regions.queryState(localPlayer, flag);
-
-            // Convert StateFlag.State to boolean properly
-            if (result == StateFlag.State.ALLOW) {
-                return true;
-            } else if (result == StateFlag.State.DENY) {
-                return false;
-            } else {
-                // result is null, use default behavior
-                return getDefaultBehavior();
-            }
-
-        } catch (Exception e) {
-            plugin.getLogger().fine("Error checking WorldGuard flag " + flag.getName() + ": " + e.getMessage());
-            return getDefaultBehavior();
-        }
-    }
-
     /**
      * Get enchantment-specific flag
      */
@@ -402,6 +635,7 @@ public class WorldGuardHook {
     public void reinitialize() {
         initLock.writeLock().lock();
         try {
+            sectionCaches.clear();
             initialized = false;
             worldGuardAvailable = false;
             flags.clear();
@@ -124,22 +124,7 @@ public class BlockBreakListener implements Listener {
                 return true;
             }
 
-            FileConfiguration config = plugin.getConfigManager().getMainConfig();
-            if (config == null) {
-                return true; // Allow if config not available
-            }
-
-            ConfigurationSection blockLevelSection = config.getConfigurationSection("block-level-requirements");
-            if (blockLevelSection == null) {
-                return true; // No block level requirements configured
-            }
-
-            String blockKey = blockType.name().toLowerCase();
-            if (!blockLevelSection.contains(blockKey)) {
-                return true; // Block not in requirements list
-            }
-
-            int requiredLevel = blockLevelSection.getInt(blockKey, 0);
+            int requiredLevel = plugin.getBlockBreaker().getMaterialRules().getRequiredLevel(blockType);
             if (requiredLevel <= 0) {
                 return true; // No level requirement
             }
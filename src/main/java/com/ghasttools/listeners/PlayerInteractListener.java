@@ -233,14 +233,8 @@ public class PlayerInteractListener implements Listener {
                                     playerData.setCooldown("xpboost_rightclick", 30000); // 30 second cooldown
                                     dataChanged = true;
 
-                                    // Execute XP command for right-click boost
-                                    String command = plugin.getConfigManager().getRewardsConfig()
-                                            .getString("rewards.xp.command", "");
-                                    if (!command.isEmpty()) {
-                                        String finalXpCommand = command.replace("{player}", player.getName())
-                                                .replace("{amount}", String.valueOf(Math.round(xpAmount)));
-                                        plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), finalXpCommand);
-                                    }
+                                    // Give XP for right-click boost with the next reward flush
+                                    plugin.getBlockBreaker().getRewardAccumulator().addXp(player, xpAmount);
 
                                     player.sendMessage("§a+XP Boost activated! (+" + Math.round(xpAmount) + " XP)");
                                 }
@@ -256,14 +250,8 @@ public class PlayerInteractListener implements Listener {
                                     playerData.setCooldown("essenceboost_rightclick", 30000); // 30 second cooldown
                                     dataChanged = true;
 
-                                    // Execute essence command for right-click boost
-                                    String command = plugin.getConfigManager().getRewardsConfig()
-                                            .getString("rewards.essence.command", "");
-                                    if (!command.isEmpty()) {
-                                        String finalEssenceCommand = command.replace("{player}", player.getName())
-                                                .replace("{amount}", String.valueOf(Math.round(essenceAmount)));
-                                        plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), finalEssenceCommand);
-                                    }
+                                    // Give Essence for right-click boost with the next reward flush
+                                    plugin.getBlockBreaker().getRewardAccumulator().addEssence(player, essenceAmount);
 
                                     player.sendMessage("§a+Essence Boost activated! (+" + Math.round(essenceAmount) + " Essence)");
                                 }
@@ -1,17 +1,26 @@
 package com.ghasttools.listeners;
 
 import com.ghasttools.GhastToolsPlugin;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 
 /**
  * FIXED: Handles player join/quit events with proper task management and memory leak prevention
@@ -23,20 +32,77 @@ public class PlayerJoinListener implements Listener {
     // FIXED: Track haste tasks to prevent memory leaks
     private final ConcurrentHashMap<Player, BukkitTask> hasteTasks = new ConcurrentHashMap<>();
 
+    // Configuration constants to avoid magic numbers
+    private static final long DEFAULT_PREFETCH_TIMEOUT_MS = 3000;
+
     public PlayerJoinListener(GhastToolsPlugin plugin) {
         this.plugin = plugin;
     }
 
+    /**
+     * Load the player's data while they log in, so it is cached before their first block break.
+     * Runs on a login thread, waiting here does not block the server.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED || plugin.isShuttingDown()) {
+            return;
+        }
+
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        if (!config.getBoolean("storage.prefetch.enabled", true)) {
+            return;
+        }
+
+        long timeoutMs = config.getLong("storage.prefetch.timeout_ms", DEFAULT_PREFETCH_TIMEOUT_MS);
+        if (timeoutMs <= 0) {
+            plugin.getLogger().warning("Invalid storage.prefetch.timeout_ms: " + timeoutMs
+                    + ". Using default: " + DEFAULT_PREFETCH_TIMEOUT_MS);
+            timeoutMs = DEFAULT_PREFETCH_TIMEOUT_MS;
+        }
+
+        UUID playerId = event.getUniqueId();
+        try {
+            plugin.getDataManager().prefetchPlayerSession(playerId).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException | ExecutionException e) {
+            if ("kick".equalsIgnoreCase(config.getString("storage.prefetch.on_timeout", "join"))) {
+                plugin.getDataManager().cancelPrefetch(playerId);
+                event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                        plugin.getMessageUtil().getMessage("data_loading_failed", null));
+                return;
+            }
+            // The join handler picks up the load that is still running, or loads again after a failure
+            plugin.getLogger().fine("Data of " + event.getName() + " was not loaded within " + timeoutMs
+                    + "ms of login, continuing in the background");
+        }
+    }
+
+    /**
+     * Drop a prefetched session when the server denies the login afterwards (whitelist, bans, full server)
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            plugin.getDataManager().cancelPrefetch(event.getPlayer().getUniqueId());
+        }
+    }
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        plugin.getDataManager().completePrefetch(player.getUniqueId());
 
-        // Load player data
-        plugin.getDataManager().loadPlayerData(player.getUniqueId()).thenAccept(playerData -> {
+        // Load player data into the session cache (already cached or loading if it was prefetched)
+        plugin.getDataManager().loadPlayerSession(player.getUniqueId()).thenAccept(playerData -> {
             playerData.updateLastSeen();
             // FIXED: Clean up expired data to prevent memory leaks
             playerData.cleanupExpiredCooldowns();
             plugin.getDataManager().savePlayerData(player.getUniqueId(), playerData);
+        }).exceptionally(throwable -> {
+            plugin.getLogger().log(Level.WARNING, "Could not load the session of " + player.getName(), throwable);
+            return null;
         });
 
         // Start haste effect task for this player
@@ -53,12 +119,17 @@ public class PlayerJoinListener implements Listener {
             hasteTask.cancel();
         }
 
-        // Save player data on quit
-        plugin.getDataManager().loadPlayerData(player.getUniqueId()).thenAccept(playerData -> {
+        if (plugin.getWorldGuardHook() != null) {
+            plugin.getWorldGuardHook().clearCache(player.getUniqueId());
+        }
+
+        // Flush and evict the player's session on quit
+        plugin.getDataManager().loadPlayerData(player.getUniqueId()).thenCompose(playerData -> {
             playerData.updateLastSeen();
             // FIXED: Cleanup expired data before saving
             playerData.cleanup();
             plugin.getDataManager().savePlayerData(player.getUniqueId(), playerData);
+            return plugin.getDataManager().unloadPlayerSession(player.getUniqueId());
         });
     }
 
@@ -64,6 +64,20 @@ public class MilestoneConfig {
         return levels.containsKey(levelNumber);
     }
 
+    /**
+     * Get the levels whose required amount has been reached as a bitmask (bit n = level n)
+     */
+    public long getReachedLevelMask(long progress) {
+        long mask = 0L;
+        for (Map.Entry<Integer, MilestoneLevel> entry : levels.entrySet()) {
+            int level = entry.getKey();
+            if (level >= 0 && level <= MilestoneData.MAX_CLAIM_LEVEL && progress >= entry.getValue().getAmount()) {
+                mask |= 1L << level;
+            }
+        }
+        return mask;
+    }
+
     public int getMaxLevel() {
         return levels.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
     }
@@ -2,20 +2,65 @@ package com.ghasttools.milestones;
 
 import org.bukkit.Material;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Represents milestone progress data for a player
+ *
+ * Block counts are kept in primitive arrays indexed by {@link MilestoneSlots} slot, so incrementing and
+ * reading a count never allocates. Claims are a bitmask per material (bit n = level n claimed).
  */
 public class MilestoneData {
 
-    private final ConcurrentHashMap<Material, Long> blocksBroken;
-    private final ConcurrentHashMap<String, Boolean> claimedMilestones;
+    /** Highest milestone level a claim bitmask can hold */
+    public static final int MAX_CLAIM_LEVEL = 63;
+
+    // Indexed by material slot; replaced with larger copies under changeLock when a new slot is used
+    private volatile AtomicLongArray blocksBroken;
+    private volatile AtomicLongArray claimMasks;
+
+    // Change tracking for delta persistence (guarded by changeLock)
+    private final Object changeLock = new Object();
+    private long[] pendingBlockDeltas;
+    private final BitSet overwrittenBlocks = new BitSet();
+    private final BitSet pendingClaims = new BitSet();
+    private boolean fullRewrite;
 
     public MilestoneData() {
-        this.blocksBroken = new ConcurrentHashMap<>();
-        this.claimedMilestones = new ConcurrentHashMap<>();
+        this.blocksBroken = new AtomicLongArray(MilestoneSlots.size());
+        this.claimMasks = new AtomicLongArray(MilestoneSlots.size());
+        this.pendingBlockDeltas = new long[MilestoneSlots.size()];
+    }
+
+    /**
+     * Make sure the arrays can hold a slot; the caller must hold changeLock
+     */
+    private void ensureCapacity(int slot) {
+        if (slot < blocksBroken.length()) {
+            return;
+        }
+
+        int length = Math.max(slot + 1, MilestoneSlots.size());
+        pendingBlockDeltas = Arrays.copyOf(pendingBlockDeltas, length);
+        claimMasks = grow(claimMasks, length);
+        blocksBroken = grow(blocksBroken, length);
+    }
+
+    private static AtomicLongArray grow(AtomicLongArray array, int length) {
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < array.length(); i++) {
+            grown.set(i, array.get(i));
+        }
+        return grown;
+    }
+
+    private static boolean isValidLevel(int level) {
+        return level >= 0 && level <= MAX_CLAIM_LEVEL;
     }
 
     /**
@@ -23,7 +68,12 @@ public class MilestoneData {
      */
     public void addBlocksBroken(Material material, long amount) {
         if (material != null && amount > 0) {
-            blocksBroken.merge(material, amount, Long::sum);
+            int slot = MilestoneSlots.register(material);
+            synchronized (changeLock) {
+                ensureCapacity(slot);
+                blocksBroken.addAndGet(slot, amount);
+                pendingBlockDeltas[slot] += amount;
+            }
         }
     }
 
@@ -31,37 +81,109 @@ public class MilestoneData {
      * Get total blocks broken for a material
      */
     public long getBlocksBroken(Material material) {
-        return blocksBroken.getOrDefault(material, 0L);
+        if (material == null) return 0L;
+
+        int slot = MilestoneSlots.slotOf(material);
+        AtomicLongArray counts = blocksBroken;
+        return slot >= 0 && slot < counts.length() ? counts.get(slot) : 0L;
+    }
+
+    /**
+     * Visit every material with a non-zero count without copying
+     */
+    public <E extends Exception> void forEachBlocksBroken(BlockCountConsumer<E> consumer) throws E {
+        AtomicLongArray counts = blocksBroken;
+        for (int slot = 0; slot < counts.length(); slot++) {
+            long count = counts.get(slot);
+            if (count > 0) {
+                consumer.accept(MilestoneSlots.materialAt(slot), count);
+            }
+        }
     }
 
     /**
      * Get all blocks broken data
      */
     public Map<Material, Long> getAllBlocksBroken() {
-        return new ConcurrentHashMap<>(blocksBroken);
+        Map<Material, Long> result = new HashMap<>();
+        forEachBlocksBroken(result::put);
+        return result;
     }
 
     /**
      * Check if a milestone has been claimed
      */
     public boolean isMilestoneClaimed(Material material, int milestoneNumber) {
-        String key = material.name() + "_" + milestoneNumber;
-        return claimedMilestones.getOrDefault(key, false);
+        return isValidLevel(milestoneNumber) && (getClaimMask(material) & (1L << milestoneNumber)) != 0;
+    }
+
+    /**
+     * Get the claimed levels of a material as a bitmask
+     */
+    public long getClaimMask(Material material) {
+        if (material == null) return 0L;
+
+        int slot = MilestoneSlots.slotOf(material);
+        AtomicLongArray masks = claimMasks;
+        return slot >= 0 && slot < masks.length() ? masks.get(slot) : 0L;
     }
 
     /**
      * Mark a milestone as claimed
+     * @return false if it was already claimed
+     */
+    public boolean claimMilestone(Material material, int milestoneNumber) {
+        if (material == null || !isValidLevel(milestoneNumber)) {
+            return false;
+        }
+
+        int slot = MilestoneSlots.register(material);
+        long bit = 1L << milestoneNumber;
+        synchronized (changeLock) {
+            ensureCapacity(slot);
+            long mask = claimMasks.get(slot);
+            if ((mask & bit) != 0) {
+                return false;
+            }
+            claimMasks.set(slot, mask | bit);
+            pendingClaims.set(slot);
+            return true;
+        }
+    }
+
+    /**
+     * Visit every material with at least one claimed level without copying
      */
-    public void claimMilestone(Material material, int milestoneNumber) {
-        String key = material.name() + "_" + milestoneNumber;
-        claimedMilestones.put(key, true);
+    public <E extends Exception> void forEachClaimMask(ClaimMaskConsumer<E> consumer) throws E {
+        AtomicLongArray masks = claimMasks;
+        for (int slot = 0; slot < masks.length(); slot++) {
+            long mask = masks.get(slot);
+            if (mask != 0) {
+                consumer.accept(MilestoneSlots.materialAt(slot), mask);
+            }
+        }
     }
 
     /**
-     * Get all claimed milestones
+     * Get the claimed level bitmask of every material with at least one claim
+     */
+    public Map<Material, Long> getAllClaimMasks() {
+        Map<Material, Long> result = new HashMap<>();
+        forEachClaimMask(result::put);
+        return result;
+    }
+
+    /**
+     * Get all claimed milestones keyed as MATERIAL_LEVEL
      */
     public Map<String, Boolean> getAllClaimedMilestones() {
-        return new ConcurrentHashMap<>(claimedMilestones);
+        Map<String, Boolean> result = new HashMap<>();
+        forEachClaimMask((material, mask) -> {
+            for (long bits = mask; bits != 0; bits &= bits - 1) {
+                result.put(material.name() + "_" + Long.numberOfTrailingZeros(bits), true);
+            }
+        });
+        return result;
     }
 
     /**
@@ -69,16 +191,55 @@ public class MilestoneData {
      */
     public void setBlocksBroken(Material material, long amount) {
         if (material != null && amount >= 0) {
-            blocksBroken.put(material, amount);
+            int slot = MilestoneSlots.register(material);
+            synchronized (changeLock) {
+                ensureCapacity(slot);
+                blocksBroken.set(slot, amount);
+                pendingBlockDeltas[slot] = 0;
+                overwrittenBlocks.set(slot);
+            }
         }
     }
 
     /**
-     * Set milestone as claimed (for loading from storage)
+     * Set the claimed levels of a material (for loading from storage)
+     */
+    public void setClaimMask(Material material, long mask) {
+        if (material != null) {
+            int slot = MilestoneSlots.register(material);
+            synchronized (changeLock) {
+                ensureCapacity(slot);
+                claimMasks.set(slot, mask);
+                pendingClaims.set(slot);
+            }
+        }
+    }
+
+    /**
+     * Set milestone as claimed from a MATERIAL_LEVEL key (for loading from storage)
      */
     public void setMilestoneClaimed(String milestoneKey, boolean claimed) {
-        if (milestoneKey != null) {
-            claimedMilestones.put(milestoneKey, claimed);
+        if (milestoneKey == null) return;
+
+        int separator = milestoneKey.lastIndexOf('_');
+        if (separator <= 0) return;
+
+        Material material = Material.getMaterial(milestoneKey.substring(0, separator));
+        int level;
+        try {
+            level = Integer.parseInt(milestoneKey.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (material == null || !isValidLevel(level)) return;
+
+        int slot = MilestoneSlots.register(material);
+        long bit = 1L << level;
+        synchronized (changeLock) {
+            ensureCapacity(slot);
+            long mask = claimMasks.get(slot);
+            claimMasks.set(slot, claimed ? mask | bit : mask & ~bit);
+            pendingClaims.set(slot);
         }
     }
 
@@ -86,8 +247,12 @@ public class MilestoneData {
      * Reset all milestone data
      */
     public void reset() {
-        blocksBroken.clear();
-        claimedMilestones.clear();
+        synchronized (changeLock) {
+            blocksBroken = new AtomicLongArray(blocksBroken.length());
+            claimMasks = new AtomicLongArray(claimMasks.length());
+            clearPendingChanges();
+            fullRewrite = true;
+        }
     }
 
     /**
@@ -95,7 +260,13 @@ public class MilestoneData {
      */
     public void resetBlocksBroken(Material material) {
         if (material != null) {
-            blocksBroken.remove(material);
+            int slot = MilestoneSlots.register(material);
+            synchronized (changeLock) {
+                ensureCapacity(slot);
+                blocksBroken.set(slot, 0L);
+                pendingBlockDeltas[slot] = 0;
+                overwrittenBlocks.set(slot);
+            }
         }
     }
 
@@ -105,4 +276,165 @@ public class MilestoneData {
     public boolean hasReachedMilestone(Material material, long requiredAmount) {
         return getBlocksBroken(material) >= requiredAmount;
     }
-}
\ No newline at end of file
+
+    /**
+     * Take the changes made since the last flush and reset the tracking state
+     */
+    public Changes captureChanges() {
+        synchronized (changeLock) {
+            if (fullRewrite) {
+                Changes changes = new Changes(true, Collections.emptyMap(), getAllBlocksBroken(), getAllClaimMasks());
+                clearPendingChanges();
+                return changes;
+            }
+
+            AtomicLongArray counts = blocksBroken;
+            Map<Material, Long> overwritten = new HashMap<>();
+            for (int slot = overwrittenBlocks.nextSetBit(0); slot >= 0; slot = overwrittenBlocks.nextSetBit(slot + 1)) {
+                overwritten.put(MilestoneSlots.materialAt(slot), counts.get(slot));
+            }
+
+            Map<Material, Long> deltas = new HashMap<>();
+            for (int slot = 0; slot < pendingBlockDeltas.length; slot++) {
+                if (pendingBlockDeltas[slot] != 0) {
+                    deltas.put(MilestoneSlots.materialAt(slot), pendingBlockDeltas[slot]);
+                }
+            }
+
+            AtomicLongArray masks = claimMasks;
+            Map<Material, Long> claims = new HashMap<>();
+            for (int slot = pendingClaims.nextSetBit(0); slot >= 0; slot = pendingClaims.nextSetBit(slot + 1)) {
+                claims.put(MilestoneSlots.materialAt(slot), masks.get(slot));
+            }
+
+            Changes changes = new Changes(false, deltas, overwritten, claims);
+            clearPendingChanges();
+            return changes;
+        }
+    }
+
+    /**
+     * Merge changes from a failed flush back so the next flush writes them again
+     */
+    public void restoreChanges(Changes changes) {
+        if (changes == null) return;
+
+        synchronized (changeLock) {
+            if (changes.fullRewrite) {
+                clearPendingChanges();
+                fullRewrite = true;
+                return;
+            }
+
+            changes.blockDeltas.forEach((material, delta) -> {
+                int slot = MilestoneSlots.register(material);
+                ensureCapacity(slot);
+                if (!overwrittenBlocks.get(slot)) {
+                    pendingBlockDeltas[slot] += delta;
+                }
+            });
+            for (Material material : changes.overwrittenBlocks.keySet()) {
+                int slot = MilestoneSlots.register(material);
+                ensureCapacity(slot);
+                overwrittenBlocks.set(slot);
+                pendingBlockDeltas[slot] = 0;
+            }
+            for (Material material : changes.claims.keySet()) {
+                pendingClaims.set(MilestoneSlots.register(material));
+            }
+        }
+    }
+
+    /**
+     * Mark the current state as persisted
+     */
+    public void clearChanges() {
+        synchronized (changeLock) {
+            clearPendingChanges();
+        }
+    }
+
+    /**
+     * Force the next flush to rewrite all milestone rows (used when the instance is swapped in)
+     */
+    public void markFullRewrite() {
+        synchronized (changeLock) {
+            fullRewrite = true;
+        }
+    }
+
+    private void clearPendingChanges() {
+        Arrays.fill(pendingBlockDeltas, 0L);
+        overwrittenBlocks.clear();
+        pendingClaims.clear();
+        fullRewrite = false;
+    }
+
+    /**
+     * Receives a material and its blocks broken count without boxing
+     */
+    @FunctionalInterface
+    public interface BlockCountConsumer<E extends Exception> {
+        void accept(Material material, long count) throws E;
+    }
+
+    /**
+     * Receives a material and its claimed level bitmask without boxing
+     */
+    @FunctionalInterface
+    public interface ClaimMaskConsumer<E extends Exception> {
+        void accept(Material material, long mask) throws E;
+    }
+
+    /**
+     * Milestone changes made since the last flush
+     */
+    public static class Changes {
+        public static final Changes EMPTY = new Changes(false, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final boolean fullRewrite;
+        private final Map<Material, Long> blockDeltas;
+        private final Map<Material, Long> overwrittenBlocks;
+        private final Map<Material, Long> claims;
+
+        private Changes(boolean fullRewrite, Map<Material, Long> blockDeltas,
+                        Map<Material, Long> overwrittenBlocks, Map<Material, Long> claims) {
+            this.fullRewrite = fullRewrite;
+            this.blockDeltas = blockDeltas;
+            this.overwrittenBlocks = overwrittenBlocks;
+            this.claims = claims;
+        }
+
+        /**
+         * True if all milestone rows have to be replaced; overwritten blocks and claims then hold the full state
+         */
+        public boolean isFullRewrite() {
+            return fullRewrite;
+        }
+
+        /**
+         * Blocks broken increments per material
+         */
+        public Map<Material, Long> getBlockDeltas() {
+            return blockDeltas;
+        }
+
+        /**
+         * Materials whose count was set to an absolute value (0 means the row should be removed)
+         */
+        public Map<Material, Long> getOverwrittenBlocks() {
+            return overwrittenBlocks;
+        }
+
+        /**
+         * Claimed level bitmasks of materials changed since the last flush (0 means the row should be removed)
+         */
+        public Map<Material, Long> getClaims() {
+            return claims;
+        }
+
+        public boolean isEmpty() {
+            return !fullRewrite && blockDeltas.isEmpty() && overwrittenBlocks.isEmpty() && claims.isEmpty();
+        }
+    }
+}
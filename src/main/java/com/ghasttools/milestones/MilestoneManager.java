@@ -320,6 +320,7 @@ public class MilestoneManager {
                 }
             }
 
+            MilestoneSlots.register(material);
             milestoneConfigs.put(material, config);
 
         } catch (Exception e) {
@@ -328,6 +329,12 @@ public class MilestoneManager {
     }
 
     private void loadMilestoneLevel(MilestoneConfig config, int level, ConfigurationSection section) {
+        if (level < 0 || level > MilestoneData.MAX_CLAIM_LEVEL) {
+            plugin.getLogger().warning("Milestone level " + level + " for " + config.getMaterial()
+                    + " is out of range (0-" + MilestoneData.MAX_CLAIM_LEVEL + "), skipping");
+            return;
+        }
+
         try {
             long amount = section.getLong("amount", 0);
             String onReachCommand = section.getString("on-reach-command", "");
@@ -404,8 +411,8 @@ public class MilestoneManager {
                         // FIXED: Add to PlayerData first (this saves to database)
                         playerData.addMilestoneBlocksBroken(trackMaterial, amount);
 
-                        MilestoneData cacheData = playerMilestones.computeIfAbsent(playerUUID, k -> new MilestoneData());
-                        cacheData.addBlocksBroken(trackMaterial, amount);
+                        // Cache shares the session's MilestoneData, so it is already up to date
+                        playerMilestones.put(playerUUID, playerData.getMilestoneData());
 
                         long newAmount = playerData.getMilestoneBlocksBroken(trackMaterial);
 
@@ -592,6 +599,12 @@ public class MilestoneManager {
                 return false;
             }
 
+            // Mark milestone as claimed before giving rewards, so concurrent claims cannot both succeed
+            if (!playerData.claimMilestone(material, milestoneLevel)) {
+                player.sendMessage("§cYou have already claimed this milestone!");
+                return false;
+            }
+
             // ENHANCED: Command execution with better error handling
             String command = milestone.getGuiCommand();
             if (command != null && !command.trim().isEmpty()) {
@@ -626,12 +639,8 @@ public class MilestoneManager {
                 player.sendMessage("§a✓ Milestone claimed successfully!");
             }
 
-            // Mark milestone as claimed
-            playerData.claimMilestone(material, milestoneLevel);
-
             // Update cache
-            MilestoneData cacheData = playerMilestones.computeIfAbsent(playerUUID, k -> new MilestoneData());
-            cacheData.claimMilestone(material, milestoneLevel);
+            playerMilestones.put(playerUUID, playerData.getMilestoneData());
 
             // Save data
             plugin.getDataManager().savePlayerData(playerUUID, playerData).join();
@@ -691,17 +700,7 @@ public class MilestoneManager {
         MilestoneData milestoneData = getPlayerMilestoneData(playerUUID);
         long playerProgress = getCombinedProgress(playerUUID, material);
 
-        int unclaimedCount = 0;
-        for (Map.Entry<Integer, MilestoneConfig.MilestoneLevel> entry : config.getAllLevels().entrySet()) {
-            int level = entry.getKey();
-            MilestoneConfig.MilestoneLevel milestone = entry.getValue();
-
-            if (playerProgress >= milestone.getAmount() && !milestoneData.isMilestoneClaimed(material, level)) {
-                unclaimedCount++;
-            }
-        }
-
-        return unclaimedCount;
+        return Long.bitCount(config.getReachedLevelMask(playerProgress) & ~milestoneData.getClaimMask(material));
     }
 
     public int getTotalUnclaimedMilestoneCount(UUID playerUUID) {
@@ -723,14 +722,12 @@ public class MilestoneManager {
 
         MilestoneData milestoneData = getPlayerMilestoneData(playerUUID);
         long playerProgress = getCombinedProgress(playerUUID, material);
+        long unclaimedMask = config.getReachedLevelMask(playerProgress) & ~milestoneData.getClaimMask(material);
 
-        for (Map.Entry<Integer, MilestoneConfig.MilestoneLevel> entry : config.getAllLevels().entrySet()) {
-            int level = entry.getKey();
-            MilestoneConfig.MilestoneLevel milestone = entry.getValue();
-
-            if (playerProgress >= milestone.getAmount() && !milestoneData.isMilestoneClaimed(material, level)) {
-                unclaimed.add(new UnclaimedMilestone(material, level, milestone.getAmount(), milestone.getGuiName()));
-            }
+        for (long bits = unclaimedMask; bits != 0; bits &= bits - 1) {
+            int level = Long.numberOfTrailingZeros(bits);
+            MilestoneConfig.MilestoneLevel milestone = config.getLevel(level);
+            unclaimed.add(new UnclaimedMilestone(material, level, milestone.getAmount(), milestone.getGuiName()));
         }
 
         return unclaimed;
@@ -801,6 +798,13 @@ public class MilestoneManager {
         return trackedBlocks.contains(material);
     }
 
+    /**
+     * Drop the cached milestone data of a player, the next access reads it from the player's data again
+     */
+    public void invalidatePlayer(UUID playerUUID) {
+        playerMilestones.remove(playerUUID);
+    }
+
     public void loadPlayerMilestoneData(UUID playerUUID) {
         plugin.getDataManager().loadPlayerData(playerUUID).thenAccept(playerData -> {
             if (playerData != null && playerData.getMilestoneData() != null) {
@@ -892,19 +896,7 @@ public class MilestoneManager {
         // FIXED: Clean up player locks
         playerLocks.clear();
 
-        for (Map.Entry<UUID, MilestoneData> entry : playerMilestones.entrySet()) {
-            try {
-                var playerDataFuture = plugin.getDataManager().loadPlayerData(entry.getKey());
-                var playerData = playerDataFuture.join();
-
-                if (playerData != null) {
-                    playerData.setMilestoneData(entry.getValue());
-                    plugin.getDataManager().savePlayerData(entry.getKey(), playerData).join();
-                }
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error saving milestone data during shutdown for " + entry.getKey(), e);
-            }
-        }
+        // Cached milestone data belongs to the player sessions, which DataManager flushes on shutdown
 
         milestoneConfigs.clear();
         playerMilestones.clear();
@@ -0,0 +1,77 @@
+package com.ghasttools.milestones;
+
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense slot numbers to the materials that milestone data is kept for.
+ *
+ * Slots are handed out on first use and never reassigned, so per-player arrays indexed by slot stay valid
+ * across milestone reloads and only grow to the number of materials actually tracked.
+ */
+public final class MilestoneSlots {
+
+    private static final Material[] MATERIALS = Material.values();
+
+    // Copy-on-write tables: material ordinal -> slot (-1 if unassigned) and slot -> material
+    private static volatile int[] slotByOrdinal = createSlotTable();
+    private static volatile Material[] materialBySlot = new Material[0];
+
+    private MilestoneSlots() {
+    }
+
+    private static int[] createSlotTable() {
+        int[] table = new int[MATERIALS.length];
+        Arrays.fill(table, -1);
+        return table;
+    }
+
+    /**
+     * @return The slot of a material, or -1 if it has never been tracked
+     */
+    public static int slotOf(Material material) {
+        return slotByOrdinal[material.ordinal()];
+    }
+
+    /**
+     * Get the slot of a material, assigning the next free slot on first use
+     */
+    public static int register(Material material) {
+        int slot = slotByOrdinal[material.ordinal()];
+        return slot >= 0 ? slot : assign(material);
+    }
+
+    private static synchronized int assign(Material material) {
+        int slot = slotByOrdinal[material.ordinal()];
+        if (slot >= 0) {
+            return slot;
+        }
+
+        Material[] materials = Arrays.copyOf(materialBySlot, materialBySlot.length + 1);
+        slot = materials.length - 1;
+        materials[slot] = material;
+
+        int[] slots = slotByOrdinal.clone();
+        slots[material.ordinal()] = slot;
+
+        // Publish the material before the slot so readers that find the slot can resolve it
+        materialBySlot = materials;
+        slotByOrdinal = slots;
+        return slot;
+    }
+
+    /**
+     * @return The material assigned to a slot
+     */
+    public static Material materialAt(int slot) {
+        return materialBySlot[slot];
+    }
+
+    /**
+     * @return Number of slots assigned so far
+     */
+    public static int size() {
+        return materialBySlot.length;
+    }
+}
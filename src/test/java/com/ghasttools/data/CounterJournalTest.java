@@ -0,0 +1,195 @@
+package com.ghasttools.data;
+
+import com.ghasttools.GhastToolsPlugin;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CounterJournalTest {
+
+    // Sync thread is not started, every test syncs by hand
+    private static final long SYNC_INTERVAL_MS = 60000;
+    private static final long SEGMENT_SIZE_KB = 64;
+
+    @TempDir
+    Path directory;
+
+    private GhastToolsPlugin plugin;
+    private final List<CounterJournal> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        plugin = mock(GhastToolsPlugin.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(CounterJournalTest.class.getName()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (CounterJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void unsavedDeltasAreReplayedAfterCrash() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        CounterJournal journal = newJournal();
+        journal.open();
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 5);
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 7);
+        journal.recordDouble(playerId, CounterJournal.XP_EARNED, 1.5);
+        journal.recordLong(playerId, CounterJournal.AIRSTRIKES, 2);
+        journal.recordMilestone(playerId, Material.STONE, 40);
+        journal.sync();
+
+        // No close: the process went down here
+        PlayerData replayed = replay(newJournal().open(), playerId);
+
+        assertEquals(12, replayed.getTotalBlocksBroken());
+        assertEquals(1.5, replayed.getTotalXpEarned(), 0.0001);
+        assertEquals(2, replayed.getTotalAirstrikes());
+        assertEquals(40, replayed.getMilestoneBlocksBroken(Material.STONE));
+    }
+
+    @Test
+    void tornRecordAtTheEndIsIgnored() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        CounterJournal journal = newJournal();
+        journal.open();
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 3);
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 4);
+        journal.sync();
+
+        // Half of the next record made it to disk: a length, then part of the payload
+        File segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(12).putShort((short) 33).put(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+            torn.flip();
+            channel.write(torn);
+        }
+
+        assertEquals(7, replay(newJournal().open(), playerId).getTotalBlocksBroken());
+    }
+
+    @Test
+    void recordWithBadChecksumEndsTheSegment() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        CounterJournal journal = newJournal();
+        journal.open();
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 3);
+        journal.sync();
+        long validLength = onlySegment().length();
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 100);
+        journal.sync();
+
+        // Flip a byte of the second record's delta
+        try (FileChannel channel = FileChannel.open(onlySegment().toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = channel.size() - 6;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, offset);
+            value.put(0, (byte) (value.get(0) ^ 0x7F));
+            value.rewind();
+            channel.write(value, offset);
+        }
+        assertTrue(onlySegment().length() > validLength);
+
+        assertEquals(3, replay(newJournal().open(), playerId).getTotalBlocksBroken());
+    }
+
+    @Test
+    void checkpointedDeltasAreNotReplayed() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        CounterJournal journal = newJournal();
+        journal.open();
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 5);
+        journal.checkpoint(playerId, journal.getPosition());
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 8);
+        journal.sync();
+
+        assertEquals(8, replay(newJournal().open(), playerId).getTotalBlocksBroken());
+    }
+
+    @Test
+    void replayIsIdempotentOnceCheckpointed() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        CounterJournal crashed = newJournal();
+        crashed.open();
+        crashed.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 9);
+        crashed.sync();
+
+        // Replay as DataManager does: apply, save, checkpoint up to the replayed position
+        CounterJournal restarted = newJournal();
+        Map<UUID, CounterJournal.PendingDeltas> pending = restarted.open();
+        assertEquals(9, replay(pending, playerId).getTotalBlocksBroken());
+        restarted.checkpoint(playerId, restarted.getPosition());
+        restarted.sync();
+
+        // Going down again before anything else was saved must not replay the same deltas twice
+        Map<UUID, CounterJournal.PendingDeltas> again = newJournal().open();
+        assertTrue(again.isEmpty(), "Deltas replayed twice: " + again.keySet());
+    }
+
+    @Test
+    void savedJournalIsDeletedOnClose() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        CounterJournal journal = newJournal();
+        journal.open();
+        journal.recordLong(playerId, CounterJournal.BLOCKS_BROKEN, 1);
+        journal.checkpoint(playerId, journal.getPosition());
+        journal.sync();
+        assertEquals(0, journal.getUnsavedPlayerCount());
+
+        journal.close();
+        opened.remove(journal);
+
+        assertEquals(0, segments().length);
+        assertTrue(newJournal().open().isEmpty());
+    }
+
+    private CounterJournal newJournal() {
+        CounterJournal journal = new CounterJournal(plugin, directory.toFile(), SYNC_INTERVAL_MS, SEGMENT_SIZE_KB);
+        opened.add(journal);
+        return journal;
+    }
+
+    private static PlayerData replay(Map<UUID, CounterJournal.PendingDeltas> pending, UUID playerId) {
+        CounterJournal.PendingDeltas deltas = pending.get(playerId);
+        assertNotNull(deltas, "No deltas replayed for the player");
+
+        PlayerData data = new PlayerData(playerId);
+        deltas.applyTo(data);
+        return data;
+    }
+
+    private File[] segments() {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".wal"));
+        return files != null ? files : new File[0];
+    }
+
+    private File onlySegment() {
+        File[] files = segments();
+        assertEquals(1, files.length, "Segments: " + Arrays.toString(files));
+        return files[0];
+    }
+}
@@ -0,0 +1,229 @@
+package com.ghasttools.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tasks return futures that the test completes by hand, so every ordering is deterministic
+ */
+class KeyedSerialExecutorTest {
+
+    private static final int MAX_QUEUED = 16;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private ExecutorService pool;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void tasksForOnePlayerWaitForTheEarlierFuture() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, MAX_QUEUED);
+        UUID playerId = UUID.randomUUID();
+        CompletableFuture<String> save = new CompletableFuture<>();
+
+        CompletableFuture<String> first = executor.submit(playerId, () -> {
+            events.add("save");
+            return save;
+        });
+        CompletableFuture<String> second = executor.submit(playerId, () -> {
+            events.add("load");
+            return CompletableFuture.completedFuture("loaded");
+        });
+
+        // The save handed off its work and has not completed, so the load must not start
+        assertEquals(List.of("save"), events);
+        assertEquals(1, executor.getQueueDepth());
+
+        save.complete("saved");
+
+        assertEquals(List.of("save", "load"), events);
+        assertEquals("saved", first.join());
+        assertEquals("loaded", second.join());
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(2, executor.getCompletedCount());
+    }
+
+    @Test
+    void orderIsKeptOnAThreadPool() {
+        pool = Executors.newFixedThreadPool(4);
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 1000);
+        UUID playerId = UUID.randomUUID();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String event = "task-" + i;
+            futures.add(executor.submit(playerId, () -> CompletableFuture.runAsync(() -> events.add(event), pool)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add("task-" + i);
+        }
+        assertEquals(expected, events);
+    }
+
+    @Test
+    void otherPlayersAreNotBlocked() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, MAX_QUEUED);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+
+        executor.submit(UUID.randomUUID(), () -> slow);
+        CompletableFuture<String> other = executor.submit(UUID.randomUUID(), () -> CompletableFuture.completedFuture("done"));
+
+        assertEquals("done", other.getNow(null));
+        assertFalse(slow.isDone());
+    }
+
+    @Test
+    void failedTaskDoesNotStallThePlayer() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, MAX_QUEUED);
+        UUID playerId = UUID.randomUUID();
+
+        CompletableFuture<String> failed = executor.submit(playerId, () -> {
+            throw new IllegalStateException("broken");
+        });
+        CompletableFuture<String> next = executor.submit(playerId, () -> CompletableFuture.completedFuture("next"));
+
+        CompletionException error = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals("next", next.join());
+    }
+
+    @Test
+    void waitingSavesOfTheSameValueAreCoalesced() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, MAX_QUEUED);
+        UUID playerId = UUID.randomUUID();
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        executor.submit(playerId, () -> running);
+
+        Object session = new Object();
+        List<Object> saved = new ArrayList<>();
+        Function<Object, CompletableFuture<Object>> save = value -> {
+            saved.add(value);
+            return CompletableFuture.completedFuture(value);
+        };
+        CompletableFuture<Object> first = executor.submitCoalescing(playerId, session, save);
+        CompletableFuture<Object> second = executor.submitCoalescing(playerId, session, save);
+        CompletableFuture<Object> third = executor.submitCoalescing(playerId, session, save);
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals(2, executor.getCoalescedCount());
+        assertTrue(saved.isEmpty());
+
+        running.complete(null);
+
+        assertEquals(List.of(session), saved);
+        assertSame(session, first.join());
+    }
+
+    @Test
+    void waitingSavesOfDifferentValuesAreAllWritten() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, MAX_QUEUED);
+        UUID playerId = UUID.randomUUID();
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        executor.submit(playerId, () -> running);
+
+        // Two detached copies of the same player, each holding changes only it knows about
+        Object copy = new Object();
+        Object otherCopy = new Object();
+        List<Object> saved = new ArrayList<>();
+        Function<Object, CompletableFuture<Object>> save = value -> {
+            saved.add(value);
+            return CompletableFuture.completedFuture(value);
+        };
+        CompletableFuture<Object> first = executor.submitCoalescing(playerId, copy, save);
+        CompletableFuture<Object> second = executor.submitCoalescing(playerId, otherCopy, save);
+        // Joins the save of the other copy, which is now the pending one
+        CompletableFuture<Object> third = executor.submitCoalescing(playerId, otherCopy, save);
+
+        assertNotSame(first, second);
+        assertSame(second, third);
+        assertEquals(1, executor.getCoalescedCount());
+
+        running.complete(null);
+
+        assertEquals(List.of(copy, otherCopy), saved);
+        assertSame(copy, first.join());
+        assertSame(otherCopy, second.join());
+    }
+
+    @Test
+    void startedSaveIsNotCoalescedIntoAgain() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, MAX_QUEUED);
+        UUID playerId = UUID.randomUUID();
+        CompletableFuture<Integer> writing = new CompletableFuture<>();
+
+        List<Integer> saved = new ArrayList<>();
+        CompletableFuture<Integer> first = executor.submitCoalescing(playerId, 1, value -> {
+            saved.add(value);
+            return writing;
+        });
+        // The first save is already writing its value, a newer one has to run after it
+        CompletableFuture<Integer> second = executor.submitCoalescing(playerId, 2, value -> {
+            saved.add(value);
+            return CompletableFuture.completedFuture(value);
+        });
+
+        assertNotSame(first, second);
+        assertEquals(List.of(1), saved);
+
+        writing.complete(1);
+
+        assertEquals(List.of(1, 2), saved);
+        assertEquals(2, second.join());
+    }
+
+    @Test
+    void submissionsBeyondTheBoundAreRejected() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(Runnable::run, 2);
+        UUID playerId = UUID.randomUUID();
+        CompletableFuture<Void> running = new CompletableFuture<>();
+
+        // The running task no longer counts, the next two wait and fill the queue
+        executor.submit(playerId, () -> running);
+        CompletableFuture<Void> second = executor.submit(playerId, () -> CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> third = executor.submit(playerId, () -> CompletableFuture.completedFuture(null));
+        assertEquals(2, executor.getQueueDepth());
+
+        // The bound covers all players, not only the busy one
+        CompletableFuture<Void> rejected = executor.submit(UUID.randomUUID(), () -> CompletableFuture.completedFuture(null));
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, executor.getRejectedCount());
+
+        running.complete(null);
+
+        assertTrue(second.isDone() && third.isDone());
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(2, executor.getPeakQueueDepth());
+        assertEquals("accepted", executor.submit(UUID.randomUUID(), () -> CompletableFuture.completedFuture("accepted")).join());
+    }
+}
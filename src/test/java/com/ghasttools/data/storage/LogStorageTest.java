@@ -0,0 +1,214 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.config.ConfigManager;
+import com.ghasttools.data.PlayerData;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Restarts the log storage on the same folder to check what recovery and compaction leave behind
+ */
+class LogStorageTest {
+
+    private static final int RECORD_HEADER_SIZE = 32;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    // Enough tool entries to fill a 1 MB segment within a few hundred saves
+    private static final int LARGE_PLAYER_TOOLS = 300;
+
+    @TempDir
+    Path dataFolder;
+
+    private final List<LogStorage> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (LogStorage storage : opened) {
+            storage.shutdown();
+        }
+    }
+
+    @Test
+    void latestRecordIsRecoveredAfterRestart() throws Exception {
+        UUID playerId = UUID.randomUUID();
+        LogStorage storage = open();
+        storage.savePlayerData(playerId, player(playerId, 10));
+        storage.savePlayerData(playerId, player(playerId, 20));
+
+        LogStorage restarted = restart(storage);
+
+        assertEquals(20, restarted.loadPlayerData(playerId).getTotalBlocksBroken());
+        assertEquals(List.of(playerId), playerIds(restarted));
+    }
+
+    @Test
+    void corruptedLastRecordIsDiscarded() throws Exception {
+        UUID playerId = UUID.randomUUID();
+        LogStorage storage = open();
+        storage.savePlayerData(playerId, player(playerId, 10));
+        storage.savePlayerData(playerId, player(playerId, 20));
+        storage.shutdown();
+        opened.remove(storage);
+
+        // The second save was cut short: its payload no longer matches the checksum
+        File segment = segmentFile(1);
+        List<Integer> offsets = recordOffsets(segment);
+        assertEquals(2, offsets.size());
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            long payload = offsets.get(1) + RECORD_HEADER_SIZE;
+            file.seek(payload);
+            int value = file.read();
+            file.seek(payload);
+            file.write(value ^ 0x7F);
+        }
+
+        LogStorage recovered = open();
+        assertEquals(10, recovered.loadPlayerData(playerId).getTotalBlocksBroken());
+
+        // Appends after the discarded tail are replayed on the next restart
+        recovered.savePlayerData(playerId, player(playerId, 30));
+        LogStorage restarted = restart(recovered);
+        assertEquals(30, restarted.loadPlayerData(playerId).getTotalBlocksBroken());
+    }
+
+    @Test
+    void cleanedUpPlayerStaysRemovedAfterRestart() throws Exception {
+        UUID expired = UUID.randomUUID();
+        UUID active = UUID.randomUUID();
+        LogStorage storage = open();
+        PlayerData old = player(expired, 10);
+        old.setLastSeen(1L);
+        storage.savePlayerData(expired, old);
+        storage.savePlayerData(active, player(active, 20));
+
+        assertEquals(1, storage.cleanupOldData(30));
+
+        LogStorage restarted = restart(storage);
+        assertEquals(List.of(active), playerIds(restarted));
+        assertEquals(0, restarted.loadPlayerData(expired).getTotalBlocksBroken());
+        assertEquals(20, restarted.loadPlayerData(active).getTotalBlocksBroken());
+    }
+
+    @Test
+    void compactionMovesLiveRecordsAndDeletesTheSegment() throws Exception {
+        List<UUID> players = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        LogStorage storage = open();
+
+        // Keep overwriting the same players until the first segment is sealed
+        long saves = 0;
+        while (!segmentFile(2).exists()) {
+            assertTrue(saves < 10_000, "The first segment never filled up");
+            UUID playerId = players.get((int) (saves % players.size()));
+            storage.savePlayerData(playerId, largePlayer(playerId, saves));
+            saves++;
+        }
+        List<Long> expected = new ArrayList<>();
+        for (UUID playerId : players) {
+            expected.add(storage.loadPlayerData(playerId).getTotalBlocksBroken());
+        }
+
+        storage.runCompaction();
+
+        assertFalse(segmentFile(1).exists());
+        assertEquals(expected, blocksBroken(storage, players));
+        assertEquals(LARGE_PLAYER_TOOLS, storage.loadPlayerData(players.get(0)).getToolUsageCount().size());
+
+        LogStorage restarted = restart(storage);
+        assertEquals(expected, blocksBroken(restarted, players));
+        assertEquals(players.size(), playerIds(restarted).size());
+    }
+
+    private LogStorage open() throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("storage.log.segment_size_mb", 1);
+
+        ConfigManager configManager = mock(ConfigManager.class);
+        when(configManager.getMainConfig()).thenReturn(config);
+        GhastToolsPlugin plugin = mock(GhastToolsPlugin.class);
+        when(plugin.getConfigManager()).thenReturn(configManager);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(LogStorageTest.class.getName()));
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+
+        LogStorage storage = new LogStorage(plugin);
+        storage.initialize();
+        opened.add(storage);
+        return storage;
+    }
+
+    private LogStorage restart(LogStorage storage) throws Exception {
+        storage.shutdown();
+        opened.remove(storage);
+        return open();
+    }
+
+    private File segmentFile(int id) {
+        return dataFolder.resolve("playerlog").resolve(String.format("segment-%06d.log", id)).toFile();
+    }
+
+    private static PlayerData player(UUID playerId, long blocksBroken) {
+        PlayerData data = new PlayerData(playerId);
+        data.setTotalBlocksBroken(blocksBroken);
+        data.getMilestoneData().setBlocksBroken(Material.STONE, blocksBroken);
+        return data;
+    }
+
+    private static PlayerData largePlayer(UUID playerId, long blocksBroken) {
+        PlayerData data = player(playerId, blocksBroken);
+        for (int i = 0; i < LARGE_PLAYER_TOOLS; i++) {
+            data.incrementToolUsage("tool-" + i);
+        }
+        return data;
+    }
+
+    private static List<Long> blocksBroken(LogStorage storage, List<UUID> players) throws Exception {
+        List<Long> blocks = new ArrayList<>();
+        for (UUID playerId : players) {
+            blocks.add(storage.loadPlayerData(playerId).getTotalBlocksBroken());
+        }
+        return blocks;
+    }
+
+    private static List<UUID> playerIds(LogStorage storage) throws Exception {
+        List<UUID> playerIds = new ArrayList<>();
+        storage.forEachPlayerId(playerIds::add);
+        return playerIds;
+    }
+
+    /**
+     * Offsets of the records in a segment file, walking the length fields up to the first empty slot
+     */
+    private static List<Integer> recordOffsets(File segment) throws IOException {
+        List<Integer> offsets = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            long position = SEGMENT_HEADER_SIZE;
+            while (position + RECORD_HEADER_SIZE <= file.length()) {
+                file.seek(position);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                offsets.add((int) position);
+                position += RECORD_HEADER_SIZE + Math.max(length, 0);
+            }
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,210 @@
+package com.ghasttools.data.storage;
+
+import com.ghasttools.GhastToolsPlugin;
+import com.ghasttools.config.ConfigManager;
+import com.ghasttools.data.PlayerData;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the network storage against an embedded H2 database in MySQL and PostgreSQL compatibility mode
+ */
+class NetworkSqlStorageTest {
+
+    // More players than one export page
+    private static final int EXPORTED_PLAYERS = BulkLoad.CHUNK_SIZE * 2 + 17;
+
+    @TempDir
+    Path dataFolder;
+
+    private final List<NetworkSqlStorage> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (NetworkSqlStorage storage : opened) {
+            storage.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(SqlDialect.class)
+    void savedPlayerLoadsBack(SqlDialect dialect) throws Exception {
+        NetworkSqlStorage storage = open(dialect);
+        PlayerData data = samplePlayer(UUID.randomUUID(), 1234);
+
+        storage.savePlayerData(data.getPlayerId(), data);
+
+        assertSameData(data, storage.loadPlayerData(data.getPlayerId()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SqlDialect.class)
+    void unknownPlayerLoadsEmpty(SqlDialect dialect) throws Exception {
+        NetworkSqlStorage storage = open(dialect);
+
+        PlayerData loaded = storage.loadPlayerData(UUID.randomUUID());
+
+        assertEquals(0, loaded.getTotalBlocksBroken());
+        assertTrue(loaded.getToolUsageCount().isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SqlDialect.class)
+    void incrementsFromTwoServersAreMerged(SqlDialect dialect) throws Exception {
+        NetworkSqlStorage storage = open(dialect);
+        UUID playerId = UUID.randomUUID();
+        storage.savePlayerData(playerId, samplePlayer(playerId, 100));
+
+        // Both servers loaded the same state and add to it
+        PlayerData first = storage.loadPlayerData(playerId);
+        PlayerData second = storage.loadPlayerData(playerId);
+        first.addBlocksBroken(10);
+        first.addXpEarned(1.5);
+        first.incrementToolUsage("pickaxe");
+        first.addMilestoneBlocksBroken(Material.STONE, 7);
+        second.addBlocksBroken(5);
+        second.addXpEarned(2.0);
+        second.incrementToolUsage("pickaxe");
+        second.incrementEnchantmentUsage("explosive");
+        second.addMilestoneBlocksBroken(Material.STONE, 3);
+
+        storage.savePlayerData(playerId, first);
+        storage.savePlayerData(playerId, second);
+
+        PlayerData merged = storage.loadPlayerData(playerId);
+        assertEquals(315, merged.getTotalBlocksBroken());
+        assertEquals(104.0, merged.getTotalXpEarned(), 0.0001);
+        assertEquals(4, merged.getToolUsageCount().get("pickaxe"));
+        assertEquals(2L, merged.getEnchantmentUsageCount().get("explosive"));
+        assertEquals(260, merged.getMilestoneBlocksBroken(Material.STONE));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SqlDialect.class)
+    void bulkLoadReturnsRequestOrder(SqlDialect dialect) throws Exception {
+        NetworkSqlStorage storage = open(dialect);
+        List<UUID> playerIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PlayerData data = samplePlayer(UUID.randomUUID(), i * 10);
+            storage.savePlayerData(data.getPlayerId(), data);
+            playerIds.add(data.getPlayerId());
+        }
+        UUID unknown = UUID.randomUUID();
+        playerIds.add(2, unknown);
+
+        Map<UUID, PlayerData> loaded = storage.loadPlayerData(playerIds);
+
+        assertEquals(playerIds, new ArrayList<>(loaded.keySet()));
+        assertEquals(0, loaded.get(unknown).getTotalBlocksBroken());
+        for (UUID playerId : playerIds) {
+            if (!playerId.equals(unknown)) {
+                assertSameData(storage.loadPlayerData(playerId), loaded.get(playerId));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(SqlDialect.class)
+    void exportedPlayersImportIntoEmptyDatabase(SqlDialect dialect) throws Exception {
+        NetworkSqlStorage source = open(dialect);
+        List<PlayerData> players = new ArrayList<>();
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int i = 0; i < EXPORTED_PLAYERS; i++) {
+            PlayerData data = samplePlayer(UUID.randomUUID(), i);
+            players.add(data);
+            saves.add(source.queuePlayerSave(data.getPlayerId(), data));
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).join();
+
+        assertTrue(source.exportData("players.json.gz"));
+
+        NetworkSqlStorage target = open(dialect);
+        assertTrue(target.importData("players.json.gz"));
+
+        List<UUID> playerIds = new ArrayList<>();
+        for (PlayerData data : players) {
+            playerIds.add(data.getPlayerId());
+        }
+        Map<UUID, PlayerData> imported = target.loadPlayerData(playerIds);
+        for (PlayerData data : players) {
+            assertSameData(data, imported.get(data.getPlayerId()));
+        }
+
+        List<UUID> storedIds = new ArrayList<>();
+        target.forEachPlayerId(storedIds::add);
+        assertEquals(EXPORTED_PLAYERS, storedIds.size());
+    }
+
+    private NetworkSqlStorage open(SqlDialect dialect) throws Exception {
+        String mode = dialect == SqlDialect.MYSQL ? "MySQL" : "PostgreSQL";
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("storage.network.jdbc_url", "jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=" + mode + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        config.set("storage.network.pool_size", 2);
+        config.set("storage.batch_max_latency_ms", 0);
+
+        ConfigManager configManager = mock(ConfigManager.class);
+        when(configManager.getMainConfig()).thenReturn(config);
+        GhastToolsPlugin plugin = mock(GhastToolsPlugin.class);
+        when(plugin.getConfigManager()).thenReturn(configManager);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(NetworkSqlStorageTest.class.getName()));
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+
+        NetworkSqlStorage storage = new NetworkSqlStorage(plugin, dialect);
+        storage.initialize();
+        opened.add(storage);
+        return storage;
+    }
+
+    private static PlayerData samplePlayer(UUID playerId, int seed) {
+        PlayerData data = new PlayerData(playerId);
+        data.setTotalBlocksBroken(seed * 3L);
+        data.setTotalXpEarned(seed + 0.5);
+        data.setTotalEssenceEarned(seed * 2.25);
+        data.setTotalMeteorsSpawned(seed % 7);
+        data.setTotalAirstrikes(seed % 5);
+        data.setLastEnchantUsed("explosive");
+        data.setFavoriteToolType("pickaxe");
+        data.incrementToolUsage("pickaxe");
+        data.incrementToolUsage("pickaxe");
+        data.incrementToolUsage("axe");
+        data.incrementEnchantmentUsage("explosive");
+        data.setCooldown("meteor", 3_600_000L);
+        data.getMilestoneData().setBlocksBroken(Material.STONE, 250);
+        data.getMilestoneData().setBlocksBroken(Material.COAL_ORE, seed);
+        data.getMilestoneData().setClaimMask(Material.STONE, 0b101L);
+        return data;
+    }
+
+    private static void assertSameData(PlayerData expected, PlayerData actual) {
+        assertEquals(expected.getPlayerId(), actual.getPlayerId());
+        assertEquals(expected.getTotalBlocksBroken(), actual.getTotalBlocksBroken());
+        assertEquals(expected.getTotalXpEarned(), actual.getTotalXpEarned(), 0.0001);
+        assertEquals(expected.getTotalEssenceEarned(), actual.getTotalEssenceEarned(), 0.0001);
+        assertEquals(expected.getTotalMeteorsSpawned(), actual.getTotalMeteorsSpawned());
+        assertEquals(expected.getTotalAirstrikes(), actual.getTotalAirstrikes());
+        assertEquals(expected.getLastEnchantUsed(), actual.getLastEnchantUsed());
+        assertEquals(expected.getToolUsageCount(), actual.getToolUsageCount());
+        assertEquals(expected.getEnchantmentUsageCount(), actual.getEnchantmentUsageCount());
+        assertEquals(expected.getEnchantmentCooldowns(), actual.getEnchantmentCooldowns());
+        assertEquals(expected.getMilestoneData().getAllBlocksBroken(), actual.getMilestoneData().getAllBlocksBroken());
+        assertEquals(expected.getMilestoneData().getAllClaimMasks(), actual.getMilestoneData().getAllClaimMasks());
+    }
+}
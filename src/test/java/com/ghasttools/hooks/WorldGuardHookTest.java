@@ -0,0 +1,186 @@
+package com.ghasttools.hooks;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.protection.association.Associables;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
+import com.sk89q.worldguard.protection.flags.StateFlag;
+import com.sk89q.worldguard.protection.flags.registry.SimpleFlagRegistry;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.managers.index.PriorityRTreeIndex;
+import com.sk89q.worldguard.protection.managers.storage.MemoryRegionDatabase;
+import com.sk89q.worldguard.protection.regions.GlobalProtectedRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.protection.regions.RegionGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * The area check has to answer every position like WorldGuard's own query for that position
+ */
+class WorldGuardHookTest {
+
+    private static final int SIZE = 24;
+    private static final boolean DEFAULT_BEHAVIOR = true;
+
+    private StateFlag flag;
+    private RegionManager regionManager;
+    private ProtectedRegion globalRegion;
+
+    @BeforeEach
+    void setUp() {
+        flag = new StateFlag("ghasttools-test", true);
+        regionManager = new RegionManager(new MemoryRegionDatabase(), new PriorityRTreeIndex.Factory(), new SimpleFlagRegistry());
+        globalRegion = new GlobalProtectedRegion(ProtectedRegion.GLOBAL_REGION);
+        regionManager.addRegion(globalRegion);
+    }
+
+    @Test
+    void singleRegionMatchesBaseline() {
+        ProtectedRegion mine = cuboid("mine", 0, 0, 0, 15, 15, 15, 0);
+        mine.setFlag(flag, StateFlag.State.ALLOW);
+
+        assertMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER));
+    }
+
+    @Test
+    void overlappingPrioritiesMatchBaseline() {
+        ProtectedRegion mine = cuboid("mine", 0, 0, 0, 20, 20, 20, 0);
+        mine.setFlag(flag, StateFlag.State.ALLOW);
+        ProtectedRegion spawn = cuboid("spawn", 5, 5, 5, 10, 10, 10, 10);
+        spawn.setFlag(flag, StateFlag.State.DENY);
+        cuboid("plain", 8, 0, 8, 23, 23, 23, 5);
+
+        assertMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER));
+        assertMatchesBaseline(Associables.constant(RegionAssociable.Association.MEMBER));
+    }
+
+    @Test
+    void memberGroupFlagMatchesBaseline() {
+        ProtectedRegion mine = cuboid("mine", 0, 0, 0, 15, 15, 15, 0);
+        mine.setFlag(flag, StateFlag.State.DENY);
+        mine.setFlag(flag.getRegionGroupFlag(), RegionGroup.NON_MEMBERS);
+
+        assertMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER));
+        assertMatchesBaseline(Associables.constant(RegionAssociable.Association.OWNER));
+    }
+
+    @Test
+    void globalRegionFlagMatchesBaseline() {
+        globalRegion.setFlag(flag, StateFlag.State.DENY);
+        ProtectedRegion mine = cuboid("mine", 4, 4, 4, 12, 12, 12, 0);
+        mine.setFlag(flag, StateFlag.State.ALLOW);
+
+        assertMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER));
+    }
+
+    @Test
+    void areaCheckOverOverlappingRegionsMatchesBaseline() {
+        ProtectedRegion mine = cuboid("mine", 0, 0, 0, 20, 20, 20, 0);
+        mine.setFlag(flag, StateFlag.State.ALLOW);
+        ProtectedRegion spawn = cuboid("spawn", 5, 5, 5, 10, 10, 10, 10);
+        spawn.setFlag(flag, StateFlag.State.DENY);
+        cuboid("plain", 8, 0, 8, 23, 23, 23, 5);
+        globalRegion.setFlag(flag, StateFlag.State.DENY);
+
+        assertAreaMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER), 0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1);
+        assertAreaMatchesBaseline(Associables.constant(RegionAssociable.Association.MEMBER), 3, 4, 5, 17, 12, 21);
+    }
+
+    @Test
+    void areaCheckWithMemberGroupFlagMatchesBaseline() {
+        ProtectedRegion mine = cuboid("mine", 0, 0, 0, 15, 15, 15, 0);
+        mine.setFlag(flag, StateFlag.State.DENY);
+        mine.setFlag(flag.getRegionGroupFlag(), RegionGroup.NON_MEMBERS);
+
+        assertAreaMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER), 0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1);
+        assertAreaMatchesBaseline(Associables.constant(RegionAssociable.Association.OWNER), 0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1);
+    }
+
+    @Test
+    void boxInsideTheSameRegionsGetsOneAnswer() {
+        ProtectedRegion mine = cuboid("mine", 0, 0, 0, 20, 20, 20, 0);
+        mine.setFlag(flag, StateFlag.State.ALLOW);
+        ProtectedRegion spawn = cuboid("spawn", 5, 5, 5, 10, 10, 10, 10);
+        spawn.setFlag(flag, StateFlag.State.DENY);
+        RegionAssociable subject = Associables.constant(RegionAssociable.Association.NON_MEMBER);
+
+        // Only inside the mine: the fast path answers with the shared constant
+        assertSame(WorldGuardHook.AreaCheck.ALLOW, areaCheck(subject, 12, 12, 12, 19, 19, 19));
+        assertAreaMatchesBaseline(subject, 12, 12, 12, 19, 19, 19);
+        // Inside both regions, the higher priority denies everywhere
+        assertAreaMatchesBaseline(subject, 6, 6, 6, 9, 9, 9);
+    }
+
+    @Test
+    void areaCheckOverMoreRegionsThanTheMaskHoldsMatchesBaseline() {
+        for (int i = 0; i < 70; i++) {
+            ProtectedRegion slab = cuboid("slab-" + i, i % 20, i % 11, 0, i % 20 + 3, i % 11 + 12, SIZE - 1, i % 7);
+            if (i % 3 == 0) {
+                slab.setFlag(flag, StateFlag.State.ALLOW);
+            } else if (i % 3 == 1) {
+                slab.setFlag(flag, StateFlag.State.DENY);
+            }
+        }
+
+        assertAreaMatchesBaseline(Associables.constant(RegionAssociable.Association.NON_MEMBER), 0, 0, 0, SIZE - 1, SIZE - 1, SIZE - 1);
+    }
+
+    private ProtectedRegion cuboid(String id, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int priority) {
+        ProtectedRegion region = new ProtectedCuboidRegion(id, BlockVector3.at(minX, minY, minZ), BlockVector3.at(maxX, maxY, maxZ));
+        region.setPriority(priority);
+        regionManager.addRegion(region);
+        return region;
+    }
+
+    private void assertMatchesBaseline(RegionAssociable subject) {
+        List<ProtectedRegion> regions = new ArrayList<>(regionManager.getRegions().values());
+        regions.remove(globalRegion);
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    List<ProtectedRegion> containing = new ArrayList<>();
+                    for (ProtectedRegion region : regions) {
+                        if (region.contains(x, y, z)) {
+                            containing.add(region);
+                        }
+                    }
+
+                    StateFlag.State expected = regionManager.getApplicableRegions(BlockVector3.at(x, y, z)).queryState(subject, flag);
+                    assertEquals(expected, WorldGuardHook.queryState(containing, globalRegion, subject, flag),
+                            "Flag state at " + x + "," + y + "," + z);
+                }
+            }
+        }
+    }
+
+    private WorldGuardHook.AreaCheck areaCheck(RegionAssociable subject, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return WorldGuardHook.areaCheck(regionManager, subject, flag, minX, minY, minZ, maxX, maxY, maxZ,
+                DEFAULT_BEHAVIOR, Logger.getLogger(WorldGuardHookTest.class.getName()));
+    }
+
+    private void assertAreaMatchesBaseline(RegionAssociable subject, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        WorldGuardHook.AreaCheck check = areaCheck(subject, minX, minY, minZ, maxX, maxY, maxZ);
+
+        // The second pass is answered from the results cached per combination of regions
+        for (int pass = 0; pass < 2; pass++) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        StateFlag.State state = regionManager.getApplicableRegions(BlockVector3.at(x, y, z)).queryState(subject, flag);
+                        boolean expected = state == null ? DEFAULT_BEHAVIOR : state == StateFlag.State.ALLOW;
+                        assertEquals(expected, check.isAllowed(x, y, z), "Area check at " + x + "," + y + "," + z);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ghasttools.milestones;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Claimed levels are kept as one bitmask per material slot and have to survive every load and save path
+ */
+class MilestoneDataTest {
+
+    @Test
+    void claimedLevelsSetTheirBits() {
+        MilestoneData data = new MilestoneData();
+
+        assertTrue(data.claimMilestone(Material.IRON_ORE, 0));
+        assertTrue(data.claimMilestone(Material.IRON_ORE, 5));
+        assertTrue(data.claimMilestone(Material.IRON_ORE, MilestoneData.MAX_CLAIM_LEVEL));
+
+        assertEquals(1L | 1L << 5 | 1L << 63, data.getClaimMask(Material.IRON_ORE));
+        assertTrue(data.isMilestoneClaimed(Material.IRON_ORE, 63));
+        assertFalse(data.isMilestoneClaimed(Material.IRON_ORE, 4));
+        assertEquals(0L, data.getClaimMask(Material.GOLD_ORE));
+    }
+
+    @Test
+    void levelIsClaimedOnlyOnce() {
+        MilestoneData data = new MilestoneData();
+
+        assertTrue(data.claimMilestone(Material.COAL_ORE, 3));
+        assertFalse(data.claimMilestone(Material.COAL_ORE, 3));
+        assertEquals(1L << 3, data.getClaimMask(Material.COAL_ORE));
+    }
+
+    @Test
+    void levelsOutsideTheMaskAreRejected() {
+        MilestoneData data = new MilestoneData();
+
+        assertFalse(data.claimMilestone(Material.COPPER_ORE, -1));
+        assertFalse(data.claimMilestone(Material.COPPER_ORE, MilestoneData.MAX_CLAIM_LEVEL + 1));
+        assertFalse(data.isMilestoneClaimed(Material.COPPER_ORE, 64));
+        data.setMilestoneClaimed("COPPER_ORE_64", true);
+        data.setMilestoneClaimed("COPPER_ORE_x", true);
+        data.setMilestoneClaimed("NOT_A_MATERIAL_1", true);
+
+        assertEquals(0L, data.getClaimMask(Material.COPPER_ORE));
+        assertTrue(data.getAllClaimedMilestones().isEmpty());
+    }
+
+    @Test
+    void claimKeysRoundTripIntoTheSameMask() {
+        MilestoneData data = new MilestoneData();
+        data.claimMilestone(Material.DIAMOND_ORE, 0);
+        data.claimMilestone(Material.DIAMOND_ORE, 17);
+        data.claimMilestone(Material.DIAMOND_ORE, 63);
+        data.claimMilestone(Material.DEEPSLATE_IRON_ORE, 2);
+
+        Map<String, Boolean> keys = data.getAllClaimedMilestones();
+        assertEquals(4, keys.size());
+        assertTrue(keys.containsKey("DIAMOND_ORE_63"));
+        // Material names with underscores split on the last one
+        assertTrue(keys.containsKey("DEEPSLATE_IRON_ORE_2"));
+
+        MilestoneData loaded = new MilestoneData();
+        keys.forEach(loaded::setMilestoneClaimed);
+
+        assertEquals(data.getAllClaimMasks(), loaded.getAllClaimMasks());
+
+        loaded.setMilestoneClaimed("DIAMOND_ORE_17", false);
+        assertEquals(1L | 1L << 63, loaded.getClaimMask(Material.DIAMOND_ORE));
+    }
+
+    @Test
+    void claimMasksRoundTripThroughStorage() {
+        MilestoneData data = new MilestoneData();
+        data.setClaimMask(Material.EMERALD_ORE, 0b1011L);
+        data.setClaimMask(Material.REDSTONE_ORE, Long.MIN_VALUE);
+        data.setClaimMask(Material.LAPIS_ORE, 0L);
+
+        Map<Material, Long> masks = data.getAllClaimMasks();
+        assertEquals(Map.of(Material.EMERALD_ORE, 0b1011L, Material.REDSTONE_ORE, Long.MIN_VALUE), masks);
+
+        MilestoneData loaded = new MilestoneData();
+        masks.forEach(loaded::setClaimMask);
+        assertEquals(masks, loaded.getAllClaimMasks());
+        assertTrue(loaded.isMilestoneClaimed(Material.REDSTONE_ORE, 63));
+    }
+
+    @Test
+    void capturedChangesCarryTheWholeMask() {
+        MilestoneData data = new MilestoneData();
+        data.setClaimMask(Material.NETHER_GOLD_ORE, 1L << 1);
+        data.clearChanges();
+
+        data.claimMilestone(Material.NETHER_GOLD_ORE, 4);
+        MilestoneData.Changes changes = data.captureChanges();
+
+        assertEquals(Map.of(Material.NETHER_GOLD_ORE, 1L << 1 | 1L << 4), changes.getClaims());
+        assertTrue(data.captureChanges().isEmpty());
+
+        // A failed flush puts the claim back and the retry writes the current mask
+        data.restoreChanges(changes);
+        data.claimMilestone(Material.NETHER_GOLD_ORE, 9);
+        assertEquals(Map.of(Material.NETHER_GOLD_ORE, 1L << 1 | 1L << 4 | 1L << 9), data.captureChanges().getClaims());
+    }
+
+    @Test
+    void slotsAreStableOnceRegistered() {
+        int slot = MilestoneSlots.register(Material.ANCIENT_DEBRIS);
+
+        assertEquals(slot, MilestoneSlots.register(Material.ANCIENT_DEBRIS));
+        assertEquals(slot, MilestoneSlots.slotOf(Material.ANCIENT_DEBRIS));
+        assertSame(Material.ANCIENT_DEBRIS, MilestoneSlots.materialAt(slot));
+        assertTrue(slot < MilestoneSlots.size());
+
+        // Data created before a material got its slot grows to hold it
+        MilestoneData data = new MilestoneData();
+        int later = MilestoneSlots.register(Material.NETHER_QUARTZ_ORE);
+        assertTrue(data.claimMilestone(Material.NETHER_QUARTZ_ORE, 1));
+        assertEquals(later, MilestoneSlots.slotOf(Material.NETHER_QUARTZ_ORE));
+        assertEquals(1L << 1, data.getClaimMask(Material.NETHER_QUARTZ_ORE));
+    }
+}